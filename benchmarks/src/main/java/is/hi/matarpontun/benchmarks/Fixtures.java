@@ -0,0 +1,81 @@
+package is.hi.matarpontun.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import is.hi.matarpontun.dto.WardPatientRowDTO;
+import is.hi.matarpontun.metrics.OrderMetrics;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import is.hi.matarpontun.repository.DailyOrderRepository;
+import is.hi.matarpontun.service.ConflictEngine;
+import is.hi.matarpontun.service.DailyOrderService;
+import is.hi.matarpontun.service.IngredientTaxonomy;
+import is.hi.matarpontun.service.OptimisticRetry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wires the application's services against {@link InMemoryRepositories} the same way the
+ * Spring context would.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static ConflictEngine conflictEngine() {
+        return new ConflictEngine(new IngredientTaxonomy(new ClassPathResource("ingredient-taxonomy.txt")));
+    }
+
+    static DailyOrderService dailyOrderService(SyntheticHospital hospital, DailyOrderRepository orders) {
+        return new DailyOrderService(
+                orders,
+                InMemoryRepositories.patients(hospital.patients()),
+                InMemoryRepositories.foodTypes(hospital.foodTypes()),
+                conflictEngine(),
+                orderMetrics(),
+                optimisticRetry());
+    }
+
+    // What PatientRepository.findWardOrderRows reads for the ward order run
+    static List<WardPatientRowDTO> wardRows(Ward ward) {
+        List<WardPatientRowDTO> rows = new ArrayList<>();
+        for (Room room : ward.getRooms()) {
+            for (Patient patient : room.getPatients()) {
+                rows.add(new WardPatientRowDTO(patient.getPatientID(), patient.getName(), room.getRoomNumber()));
+            }
+        }
+        return rows;
+    }
+
+    static OrderMetrics orderMetrics() {
+        return new OrderMetrics(new SimpleMeterRegistry());
+    }
+
+    // There is no database, so transactions are no-ops and nothing is ever retried
+    static OptimisticRetry optimisticRetry() {
+        return new OptimisticRetry(new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        }, 1, 0);
+    }
+}
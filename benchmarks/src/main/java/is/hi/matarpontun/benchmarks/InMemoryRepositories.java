@@ -0,0 +1,186 @@
+package is.hi.matarpontun.benchmarks;
+
+import is.hi.matarpontun.dto.KitchenMealCountDTO;
+import is.hi.matarpontun.dto.MealIngredientsDTO;
+import is.hi.matarpontun.dto.OrderVersionDTO;
+import is.hi.matarpontun.dto.WardMealCountDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.MealSlot;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.repository.DailyOrderRepository;
+import is.hi.matarpontun.repository.FoodTypeRepository;
+import is.hi.matarpontun.repository.MealRepository;
+import is.hi.matarpontun.repository.MenuRepository;
+import is.hi.matarpontun.repository.PatientRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories, so the services can be benchmarked
+ * without a database.
+ *
+ * Only the methods the benchmarked code paths call are implemented; any other call fails
+ * loudly so a benchmark never silently measures a no-op.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static PatientRepository patients(List<Patient> patients) {
+        Map<Long, Patient> byId = new HashMap<>();
+        for (Patient patient : patients) byId.put(patient.getPatientID(), patient);
+
+        return create(PatientRepository.class, Map.of(
+                "findById/1", args -> Optional.ofNullable(byId.get((Long) args[0])),
+                "findByIdForUpdate/1", args -> Optional.ofNullable(byId.get((Long) args[0])),
+                "findAll/0", args -> new ArrayList<>(patients)));
+    }
+
+    static FoodTypeRepository foodTypes(List<FoodType> foodTypes) {
+        return create(FoodTypeRepository.class, Map.of(
+                "findAll/0", args -> new ArrayList<>(foodTypes),
+                "findWithMenuOfTheDayByTypeNameIn/1", args -> foodTypes.stream()
+                        .filter(ft -> ((Collection<?>) args[0]).contains(ft.getTypeName()))
+                        .toList()));
+    }
+
+    static MealRepository meals(List<Meal> meals) {
+        Map<Long, Meal> byId = new HashMap<>();
+        for (Meal meal : meals) byId.put(meal.getId(), meal);
+
+        return create(MealRepository.class, Map.of(
+                "findIngredientsByIds/1", args -> ((Collection<?>) args[0]).stream()
+                        .map(byId::get)
+                        .filter(meal -> meal != null)
+                        .map(meal -> new MealIngredientsDTO(meal.getId(), meal.getIngredients()))
+                        .toList()));
+    }
+
+    /** Menus are not read by any benchmarked code path yet. */
+    static MenuRepository menus() {
+        return create(MenuRepository.class, Map.of());
+    }
+
+    /**
+     * Daily orders keyed like the real table: one order per patient and date.
+     */
+    static DailyOrderRepository dailyOrders(List<DailyOrder> initial) {
+        Map<String, DailyOrder> byPatientAndDate = new HashMap<>();
+        AtomicLong ids = new AtomicLong();
+        for (DailyOrder order : initial) {
+            byPatientAndDate.put(key(order.getPatient(), order.getOrderDate()), order);
+            ids.accumulateAndGet(order.getId(), Math::max);
+        }
+
+        Function<Object[], Object> save = args -> {
+            DailyOrder order = (DailyOrder) args[0];
+            String key = key(order.getPatient(), order.getOrderDate());
+            DailyOrder existing = byPatientAndDate.get(key);
+            order.setId(existing != null ? existing.getId() : ids.incrementAndGet());
+            byPatientAndDate.put(key, order);
+            return order;
+        };
+
+        return create(DailyOrderRepository.class, Map.of(
+                "findAll/0", args -> new ArrayList<>(byPatientAndDate.values()),
+                "findByPatientAndOrderDate/2", args -> Optional.ofNullable(
+                        byPatientAndDate.get(key((Patient) args[0], (LocalDate) args[1]))),
+                "save/1", save,
+                "upsert/1", args -> ((DailyOrder) save.apply(args)).getId(),
+                "findVersions/2", args -> byPatientAndDate.values().stream()
+                        .filter(order -> order.getOrderDate().equals(args[1])
+                                && ((Collection<?>) args[0]).contains(order.getPatient().getPatientID()))
+                        .map(order -> new OrderVersionDTO(order.getPatient().getPatientID(), order.getVersion()))
+                        .toList(),
+                "countByOrderDate/1", args -> byPatientAndDate.values().stream()
+                        .filter(order -> order.getOrderDate().equals(args[0]))
+                        .count(),
+                "countByOrderDateBetween/2", args -> byPatientAndDate.values().stream()
+                        .filter(order -> inRange(order, (LocalDate) args[0], (LocalDate) args[1]))
+                        .count(),
+                "countKitchenMealsByOrderDate/1", args -> kitchenCounts(byPatientAndDate.values().stream()
+                        .filter(order -> order.getOrderDate().equals(args[0]))
+                        .toList()),
+                "countMealsByWardAndOrderDateRange/2", args -> wardMealCounts(byPatientAndDate.values().stream()
+                        .filter(order -> inRange(order, (LocalDate) args[0], (LocalDate) args[1]))
+                        .toList())));
+    }
+
+    private static boolean inRange(DailyOrder order, LocalDate from, LocalDate to) {
+        return !order.getOrderDate().isBefore(from) && !order.getOrderDate().isAfter(to);
+    }
+
+    // Same grouping as the GROUP BY of the real query
+    private static List<KitchenMealCountDTO> kitchenCounts(List<DailyOrder> orders) {
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (DailyOrder order : orders) {
+            for (MealSlot slot : MealSlot.values()) {
+                String foodType = foodTypeName(order.getMeal(slot));
+                if (foodType == null) continue;
+                counts.merge(Arrays.asList(order.getWardName(), slot, foodType), 1L, Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .map(e -> new KitchenMealCountDTO((String) e.getKey().get(0), (MealSlot) e.getKey().get(1),
+                        (String) e.getKey().get(2), e.getValue()))
+                .toList();
+    }
+
+    private static List<WardMealCountDTO> wardMealCounts(List<DailyOrder> orders) {
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (DailyOrder order : orders) {
+            for (MealSlot slot : MealSlot.values()) {
+                Long mealId = mealId(order.getMeal(slot));
+                if (mealId == null) continue;
+                counts.merge(Arrays.asList(order.getWardName(), mealId), 1L, Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .map(e -> new WardMealCountDTO((String) e.getKey().get(0), (Long) e.getKey().get(1), e.getValue()))
+                .toList();
+    }
+
+    private static Long mealId(Meal meal) {
+        return meal != null ? meal.getId() : null;
+    }
+
+    private static String foodTypeName(Meal meal) {
+        return meal != null && meal.getFoodType() != null ? meal.getFoodType().getTypeName() : null;
+    }
+
+    private static String key(Patient patient, LocalDate date) {
+        return patient.getPatientID() + "/" + date;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T create(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Object[] arguments = args != null ? args : new Object[0];
+            switch (method.getName()) {
+                case "toString": return "InMemory" + type.getSimpleName();
+                case "hashCode": return System.identityHashCode(proxy);
+                case "equals": return proxy == arguments[0];
+                default: break;
+            }
+            Function<Object[], Object> implementation = methods.get(method.getName() + "/" + arguments.length);
+            if (implementation == null) {
+                throw new UnsupportedOperationException(
+                        type.getSimpleName() + "." + method.getName() + " is not available in benchmarks");
+            }
+            return implementation.apply(arguments);
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package is.hi.matarpontun.benchmarks;
+
+import is.hi.matarpontun.service.IngredientRollupService;
+import is.hi.matarpontun.service.IngredientTaxonomy;
+import is.hi.matarpontun.service.MealIngredientIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hospital-wide ingredient rollup over the last {@code days} days of orders.
+ *
+ * The meal index is shared across invocations like the singleton bean, so after the first
+ * call every meal's ingredient vector is already memoised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngredientRollupBenchmark {
+
+    @Param({"2", "20"})
+    public int wards;
+
+    @Param({"1", "7"})
+    public int days;
+
+    private IngredientRollupService rollupService;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticHospital hospital = SyntheticHospital.generate(
+                SyntheticHospital.Spec.of(wards, 12, 2, 0.3).withHistoryDays(days - 1));
+        MealIngredientIndex index = new MealIngredientIndex(
+                new IngredientTaxonomy(new ClassPathResource("ingredient-taxonomy.txt")));
+        rollupService = new IngredientRollupService(InMemoryRepositories.dailyOrders(hospital.orders()),
+                InMemoryRepositories.meals(hospital.meals()), index);
+        to = LocalDate.now();
+        from = to.minusDays(days - 1L);
+    }
+
+    @Benchmark
+    public Map<String, Object> rollup() {
+        return rollupService.rollup(from, to);
+    }
+}
@@ -0,0 +1,44 @@
+package is.hi.matarpontun.benchmarks;
+
+import is.hi.matarpontun.service.KitchenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The kitchen's summary of today's orders per ward, meal category and food type.
+ *
+ * {@code historyDays} adds past orders to the repository; the in-memory stand-in for the
+ * summary query scans them all, like the table would without an index on the order date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KitchenSummaryBenchmark {
+
+    @Param({"2", "20"})
+    public int wards;
+
+    @Param({"0", "30"})
+    public int historyDays;
+
+    private KitchenService kitchenService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticHospital hospital = SyntheticHospital.generate(
+                SyntheticHospital.Spec.of(wards, 12, 2, 0.3).withHistoryDays(historyDays));
+        kitchenService = new KitchenService(InMemoryRepositories.dailyOrders(hospital.orders()),
+                InMemoryRepositories.menus(), InMemoryRepositories.patients(hospital.patients()),
+                Fixtures.orderMetrics());
+    }
+
+    @Benchmark
+    public Map<String, Object> todaysOrdersSummary() {
+        return kitchenService.getTodaysOrdersSummary();
+    }
+}
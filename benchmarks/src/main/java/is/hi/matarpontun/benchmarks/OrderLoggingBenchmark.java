@@ -0,0 +1,45 @@
+package is.hi.matarpontun.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import is.hi.matarpontun.model.Ward;
+import is.hi.matarpontun.service.DailyOrderService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the safe-alternative trace on the ward order run: the same run with the
+ * {@code DailyOrderService.alternatives} logger at INFO (trace off, the default) and at
+ * DEBUG (trace on). Every patient has restrictions, so most slots search for an alternative.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderLoggingBenchmark {
+
+    private static final String ALTERNATIVES_LOGGER = DailyOrderService.class.getName() + ".alternatives";
+
+    @Param({"INFO", "DEBUG"})
+    public String alternativesLevel;
+
+    private SyntheticHospital hospital;
+    private DailyOrderService dailyOrderService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(ALTERNATIVES_LOGGER)).setLevel(ch.qos.logback.classic.Level.valueOf(alternativesLevel));
+        hospital = SyntheticHospital.generate(SyntheticHospital.Spec.of(4, 12, 2, 1.0));
+        dailyOrderService = Fixtures.dailyOrderService(hospital, InMemoryRepositories.dailyOrders(hospital.orders()));
+    }
+
+    @Benchmark
+    public DailyOrderService.WardOrderResult generateOrdersForWard() {
+        Ward ward = hospital.wards().get(next++ % hospital.wards().size());
+        return dailyOrderService.generateOrdersForWard(ward.getWardName(), Fixtures.wardRows(ward));
+    }
+}
@@ -0,0 +1,87 @@
+package is.hi.matarpontun.benchmarks;
+
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Ward;
+import is.hi.matarpontun.service.ConflictEngine;
+import is.hi.matarpontun.service.ConflictProfile;
+import is.hi.matarpontun.service.DailyOrderService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order generation: restriction checking, safe-alternative search and the ward order run.
+ *
+ * {@code checkForRestrictions} and {@code findSafeAlternative} are private, so they are
+ * measured through {@link DailyOrderService#orderFoodTypeForPatient}; raising
+ * {@code restrictedShare} raises the share of orders that need an alternative.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPipelineBenchmark {
+
+    @Param({"0.0", "0.3", "1.0"})
+    public double restrictedShare;
+
+    @Param({"4"})
+    public int wards;
+
+    @Param({"12"})
+    public int roomsPerWard;
+
+    @Param({"2"})
+    public int bedsPerRoom;
+
+    private SyntheticHospital hospital;
+    private DailyOrderService dailyOrderService;
+    private ConflictEngine conflictEngine;
+    private List<Patient> patients;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hospital = SyntheticHospital.generate(SyntheticHospital.Spec.of(wards, roomsPerWard, bedsPerRoom, restrictedShare));
+        dailyOrderService = Fixtures.dailyOrderService(hospital, InMemoryRepositories.dailyOrders(hospital.orders()));
+        conflictEngine = Fixtures.conflictEngine();
+        patients = hospital.patients();
+    }
+
+    /** One patient's order: build, check every slot, swap conflicting meals, upsert. */
+    @Benchmark
+    public DailyOrderService.OrderResult orderForPatient() {
+        Patient patient = patients.get(next++ % patients.size());
+        return dailyOrderService.orderFoodTypeForPatient(patient.getPatientID());
+    }
+
+    /** The nurse's "order for the whole ward" run. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DailyOrderService.WardOrderResult generateOrdersForWard() {
+        Ward ward = hospital.wards().get(next++ % hospital.wards().size());
+        return dailyOrderService.generateOrdersForWard(ward.getWardName(), Fixtures.wardRows(ward));
+    }
+
+    /** Matching alone: every meal against every patient's cached profile. */
+    @Benchmark
+    public void matchAllMealsForPatient(Blackhole blackhole) {
+        Patient patient = patients.get(next++ % patients.size());
+        ConflictProfile profile = conflictEngine.profileFor(patient);
+        for (Meal meal : hospital.meals()) {
+            blackhole.consume(profile.findConflict(meal));
+        }
+    }
+
+    /** Compiling a profile from scratch, as happens after every diet change. */
+    @Benchmark
+    public ConflictProfile compileProfile() {
+        Patient patient = patients.get(next++ % patients.size());
+        return conflictEngine.compile(patient.getRestriction(), patient.getAllergies());
+    }
+}
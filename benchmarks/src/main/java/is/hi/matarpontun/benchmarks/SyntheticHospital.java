@@ -0,0 +1,205 @@
+package is.hi.matarpontun.benchmarks;
+
+import is.hi.matarpontun.model.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates an in-memory hospital for the benchmarks: food types with menus of the day,
+ * wards with rooms and patients, and daily orders.
+ *
+ * Generation is deterministic for a given {@link Spec}, so runs before and after a change
+ * are measured against exactly the same data.
+ */
+public final class SyntheticHospital {
+
+    /**
+     * Size and shape of the generated hospital.
+     *
+     * @param wards           number of wards
+     * @param roomsPerWard    rooms in every ward
+     * @param bedsPerRoom     patients in every room
+     * @param restrictedShare share of patients with at least one restriction (0..1)
+     * @param allergicShare   share of patients with at least one allergy (0..1)
+     * @param historyDays     days of past orders to generate in addition to today's
+     * @param seed            random seed
+     */
+    public record Spec(int wards, int roomsPerWard, int bedsPerRoom,
+                       double restrictedShare, double allergicShare, int historyDays, long seed) {
+
+        public static Spec of(int wards, int roomsPerWard, int bedsPerRoom, double restrictedShare) {
+            return new Spec(wards, roomsPerWard, bedsPerRoom, restrictedShare, restrictedShare / 3, 0, 42L);
+        }
+
+        public Spec withHistoryDays(int days) {
+            return new Spec(wards, roomsPerWard, bedsPerRoom, restrictedShare, allergicShare, days, seed);
+        }
+    }
+
+    // Food types that have a menu of the day; the three groups findSafeAlternative searches
+    // plus a few types outside any group, which always need a manual change on conflict
+    private static final String[] FOOD_TYPES = {
+            "A1", "A2", "A3", "OP", "RDS-KF", "RDS-G",
+            "M1", "M2", "M3",
+            "F1", "F1-S", "F1-M", "F2", "F3", "F4", "F4-S", "F5",
+            "GL", "SA", "MS"
+    };
+
+    // Rough distribution of patients over food types: most patients are on the general diet
+    private static final String[] PATIENT_FOOD_TYPES = {
+            "A1", "A1", "A1", "A1", "A1", "A2", "A2", "A3", "OP", "RDS-KF",
+            "M1", "M2", "M3", "F1", "F4", "GL", "SA", "MS"
+    };
+
+    private static final String[] INGREDIENTS = {
+            "oats", "milk", "raisins", "skyr", "bread", "butter", "cheese", "egg", "ham", "jam",
+            "chicken", "beef", "lamb", "pork", "cod", "haddock", "salmon", "shrimp", "potatoes",
+            "carrots", "rice", "rice pasta", "wheat flour", "barley", "onion", "garlic", "lettuce",
+            "tomato", "cucumber", "broccoli", "peas", "lentils", "tofu", "soy sauce", "walnut",
+            "almond", "peanut butter", "sesame seeds", "cream", "yoghurt", "honey", "apple",
+            "banana", "berries", "mustard", "celery", "mushrooms", "paprika", "olive oil", "salt"
+    };
+
+    private static final String[] RESTRICTIONS = {
+            "dairy", "milk", "gluten", "meat", "pork", "fish", "sugar", "salt", "egg", "soy", "celery"
+    };
+
+    private static final String[] ALLERGIES = {
+            "nuts", "peanut", "shellfish", "sesame", "egg", "fish", "mustard"
+    };
+
+    private static final String[] NAMES = {
+            "Anna", "Jón", "Guðrún", "Sigurður", "Kristín", "Ólafur", "Sunna", "Helgi", "Silja", "Einar"
+    };
+
+    private final List<FoodType> foodTypes = new ArrayList<>();
+    private final List<Meal> meals = new ArrayList<>();
+    private final List<Ward> wards = new ArrayList<>();
+    private final List<Patient> patients = new ArrayList<>();
+    private final List<DailyOrder> orders = new ArrayList<>();
+    private final List<DailyOrder> todaysOrders = new ArrayList<>();
+
+    private SyntheticHospital() {
+    }
+
+    /**
+     * Generates a hospital of the given shape.
+     *
+     * @param spec the size and shape of the hospital
+     * @return the generated hospital
+     */
+    public static SyntheticHospital generate(Spec spec) {
+        SyntheticHospital hospital = new SyntheticHospital();
+        Random random = new Random(spec.seed());
+        hospital.generateFoodTypes(random);
+        hospital.generateWards(spec, random);
+        hospital.generateOrders(spec);
+        return hospital;
+    }
+
+    public List<FoodType> foodTypes() { return foodTypes; }
+    public List<Meal> meals() { return meals; }
+    public List<Ward> wards() { return wards; }
+    public List<Patient> patients() { return patients; }
+    /** All orders, including history. */
+    public List<DailyOrder> orders() { return orders; }
+    public List<DailyOrder> todaysOrders() { return todaysOrders; }
+
+    private void generateFoodTypes(Random random) {
+        long mealId = 1;
+        long menuId = 1;
+        for (int i = 0; i < FOOD_TYPES.length; i++) {
+            FoodType foodType = new FoodType(FOOD_TYPES[i], FOOD_TYPES[i]);
+            foodType.setId((long) i + 1);
+
+            Menu menu = new Menu(LocalDate.now(), foodType);
+            menu.setId(menuId++);
+            for (MealSlot slot : MealSlot.values()) {
+                Meal meal = new Meal(FOOD_TYPES[i] + " " + slot.getDisplayName(),
+                        randomIngredients(random), slot.getDisplayName(), foodType);
+                meal.setId(mealId++);
+                meals.add(meal);
+                menu.setMeal(slot, meal);
+            }
+            foodType.setMenuOfTheDay(menu);
+            foodType.getMenus().add(menu);
+            foodTypes.add(foodType);
+        }
+    }
+
+    private void generateWards(Spec spec, Random random) {
+        long patientId = 1;
+        long roomId = 1;
+        for (int w = 0; w < spec.wards(); w++) {
+            Ward ward = new Ward("Ward " + (w + 1), "secret");
+            ward.setId((long) w + 1);
+            ward.setPatients(new ArrayList<>());
+            ward.setRooms(new ArrayList<>());
+
+            for (int r = 0; r < spec.roomsPerWard(); r++) {
+                Room room = new Room(String.valueOf(100 * (w + 1) + r + 1), ward, spec.bedsPerRoom());
+                room.setId(roomId++);
+                room.setPatients(new ArrayList<>());
+                ward.addRoom(room);
+
+                for (int b = 0; b < spec.bedsPerRoom(); b++) {
+                    Patient patient = new Patient(NAMES[random.nextInt(NAMES.length)] + " " + patientId,
+                            18 + random.nextInt(80), b + 1, ward);
+                    patient.setPatientID(patientId++);
+                    patient.setFoodType(foodType(PATIENT_FOOD_TYPES[random.nextInt(PATIENT_FOOD_TYPES.length)]));
+                    if (random.nextDouble() < spec.restrictedShare()) {
+                        patient.setRestriction(pick(random, RESTRICTIONS, 1 + random.nextInt(2)));
+                    }
+                    if (random.nextDouble() < spec.allergicShare()) {
+                        patient.setAllergies(pick(random, ALLERGIES, 1));
+                    }
+                    ward.addPatient(patient);
+                    room.addPatient(patient);
+                    patients.add(patient);
+                }
+            }
+            wards.add(ward);
+        }
+    }
+
+    // Orders mirror the menu of the day; conflicts are left for the code under test to resolve
+    private void generateOrders(Spec spec) {
+        long orderId = 1;
+        LocalDate today = LocalDate.now();
+        for (int day = spec.historyDays(); day >= 0; day--) {
+            LocalDate date = today.minusDays(day);
+            for (Patient patient : patients) {
+                Menu menu = patient.getFoodType().getMenuOfTheDay();
+                DailyOrder order = new DailyOrder(date, patient, menu, patient.getFoodType(),
+                        menu.getBreakfast(), menu.getLunch(), menu.getAfternoonSnack(),
+                        menu.getDinner(), menu.getNightSnack());
+                order.setId(orderId++);
+                orders.add(order);
+                if (day == 0) todaysOrders.add(order);
+            }
+        }
+    }
+
+    private FoodType foodType(String typeName) {
+        for (FoodType foodType : foodTypes) {
+            if (foodType.getTypeName().equals(typeName)) return foodType;
+        }
+        throw new IllegalArgumentException("Unknown food type " + typeName);
+    }
+
+    private static String randomIngredients(Random random) {
+        return String.join(", ", pick(random, INGREDIENTS, 3 + random.nextInt(4)));
+    }
+
+    private static List<String> pick(Random random, String[] pool, int count) {
+        List<String> picked = new ArrayList<>();
+        while (picked.size() < count) {
+            String candidate = pool[random.nextInt(pool.length)];
+            if (!picked.contains(candidate)) picked.add(candidate);
+        }
+        return picked;
+    }
+}
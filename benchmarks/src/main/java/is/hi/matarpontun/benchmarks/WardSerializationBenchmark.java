@@ -0,0 +1,75 @@
+package is.hi.matarpontun.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import is.hi.matarpontun.dto.PatientDailyOrderDTO;
+import is.hi.matarpontun.dto.PatientMapper;
+import is.hi.matarpontun.dto.WardFullDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Ward;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ward sign-in response: mapping patients and today's orders with {@link PatientMapper}
+ * and serialising the resulting {@link WardFullDTO} to JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WardSerializationBenchmark {
+
+    @Param({"24", "120"})
+    public int patientsPerWard;
+
+    private Ward ward;
+    private Map<Long, DailyOrder> todaysOrders;
+    private WardFullDTO mapped;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticHospital hospital = SyntheticHospital.generate(
+                SyntheticHospital.Spec.of(1, patientsPerWard / 2, 2, 0.3));
+        ward = hospital.wards().get(0);
+        todaysOrders = new HashMap<>();
+        for (DailyOrder order : hospital.todaysOrders()) {
+            todaysOrders.put(order.getPatient().getPatientID(), order);
+        }
+        // Configured like Spring Boot's auto-configured ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        mapped = mapWard();
+    }
+
+    @Benchmark
+    public WardFullDTO mapWard() {
+        List<PatientDailyOrderDTO> patients = new ArrayList<>();
+        for (Patient patient : ward.getPatients()) {
+            patients.add(PatientMapper.toDailyOrderDTO(patient, ward, todaysOrders.get(patient.getPatientID())));
+        }
+        return new WardFullDTO(ward.getId(), ward.getWardName(), patients);
+    }
+
+    @Benchmark
+    public byte[] serializeWard() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapped);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeWard() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapWard());
+    }
+}
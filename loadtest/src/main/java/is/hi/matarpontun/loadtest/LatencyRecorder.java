@@ -0,0 +1,80 @@
+package is.hi.matarpontun.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects request latencies per endpoint and prints percentiles and throughput.
+ *
+ * Samples recorded before {@link #startMeasuring()} (the warm-up) are dropped.
+ */
+final class LatencyRecorder {
+
+    /** Latencies for one endpoint, in nanoseconds. */
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void add(long nanos, boolean error) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (error) errors++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+    }
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+    private volatile long measuringSince;
+
+    void startMeasuring() {
+        samples.clear();
+        measuringSince = System.nanoTime();
+        measuring = true;
+    }
+
+    void record(String endpoint, long nanos, boolean error) {
+        if (!measuring) return;
+        samples.computeIfAbsent(endpoint, e -> new Samples()).add(nanos, error);
+    }
+
+    void printReport(PrintStream out) {
+        double seconds = (System.nanoTime() - measuringSince) / 1e9;
+        out.printf("%n%-45s %8s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "Max ms");
+
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : new TreeMap<>(samples).entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            if (sorted.length == 0) continue;
+            total += sorted.length;
+            out.printf("%-45s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), sorted.length, entry.getValue().errors(), sorted.length / seconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                    millis(percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+        }
+        out.printf("%nTotal: %d requests in %.1f s (%.1f req/s)%n", total, seconds, total / seconds);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
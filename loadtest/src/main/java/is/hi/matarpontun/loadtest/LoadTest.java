@@ -0,0 +1,167 @@
+package is.hi.matarpontun.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import is.hi.matarpontun.Application;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: embedded PostgreSQL, the real application on a random port,
+ * a seeded synthetic hospital and concurrent nurse and kitchen traffic.
+ *
+ * Run from the {@code loadtest} directory, options go in {@code exec.args}:
+ * <pre>
+ *   mvn -B compile exec:java -Dexec.args="--wards=10 --nurses=40 --duration=120"
+ * </pre>
+ *
+ * Options ({@code --name=value}):
+ * <pre>
+ *   --wards=4            wards to seed
+ *   --rooms=12           rooms per ward
+ *   --beds=2             patients per room
+ *   --restricted=0.3     share of patients with a restriction
+ *   --nurses=8           concurrent nurses, spread over the wards
+ *   --kitchens=1         concurrent kitchen screens
+ *   --contenders=0       threads racing on the same few patients of the first ward
+ *   --think=200          nurse pause between actions, in ms
+ *   --poll=1000          kitchen polling interval, in ms
+ *   --warmup=15          warm-up before measuring, in seconds
+ *   --duration=60        measured duration, in seconds
+ *   --seed=42            random seed for the data and the traffic
+ *   --replica=false      route read-only transactions to a second pool on the same database
+ * </pre>
+ * Anything else starting with {@code --spring.} or {@code --matarpontun.} is passed on to
+ * the application. The application's console output goes to {@code target/loadtest-app.log}.
+ *
+ * With {@code --matarpontun.query-budget.fail-on-exceed=true} every request that goes over
+ * its query budget fails with 500 and shows up in the error column of the report.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int wards = intOption(options, "wards", 4);
+        int rooms = intOption(options, "rooms", 12);
+        int beds = intOption(options, "beds", 2);
+        double restricted = Double.parseDouble(options.getOrDefault("restricted", "0.3"));
+        int nurses = intOption(options, "nurses", wards * 2);
+        int kitchens = intOption(options, "kitchens", 1);
+        int contenders = intOption(options, "contenders", 0);
+        long think = intOption(options, "think", 200);
+        long poll = intOption(options, "poll", 1000);
+        int warmup = intOption(options, "warmup", 15);
+        int duration = intOption(options, "duration", 60);
+        long seed = intOption(options, "seed", 42);
+
+        PrintStream report = System.out;
+        Files.createDirectories(Path.of("target"));
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("target/loadtest-app.log")), true));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = startApplication(postgres, options)) {
+
+            report.printf("Seeding %d wards x %d rooms x %d beds...%n", wards, rooms, beds);
+            DataSource dataSource = context.getBean(DataSource.class);
+            List<SeedGenerator.SeededWard> seeded =
+                    new SeedGenerator(new JdbcTemplate(dataSource), seed).seed(wards, rooms, beds, restricted);
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            LatencyRecorder recorder = new LatencyRecorder();
+            TrafficDriver driver = new TrafficDriver(baseUrl, recorder);
+            seeded.forEach(driver::placeWardOrder);
+
+            TrafficDriver.Deadline deadline = TrafficDriver.Deadline.in(Duration.ofSeconds(warmup + duration));
+            ExecutorService users = Executors.newFixedThreadPool(nurses + kitchens + contenders);
+            for (int i = 0; i < nurses; i++) {
+                SeedGenerator.SeededWard ward = seeded.get(i % seeded.size());
+                long userSeed = seed + i;
+                users.submit(() -> driver.runNurse(ward, userSeed, think, deadline));
+            }
+            for (int i = 0; i < kitchens; i++) {
+                users.submit(() -> driver.runKitchen(poll, deadline));
+            }
+            for (int i = 0; i < contenders; i++) {
+                long userSeed = seed + nurses + i;
+                users.submit(() -> driver.runContention(seeded.get(0), userSeed, deadline));
+            }
+
+            report.printf("Running %d nurses, %d kitchen screens and %d contenders against %s"
+                    + " (%d s warm-up, %d s measured)...%n", nurses, kitchens, contenders, baseUrl, warmup, duration);
+            TimeUnit.SECONDS.sleep(warmup);
+            recorder.startMeasuring();
+
+            users.shutdown();
+            if (!users.awaitTermination(duration + 60L, TimeUnit.SECONDS)) {
+                users.shutdownNow();
+            }
+            recorder.printReport(report);
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres, Map<String, String> options)
+            throws IOException {
+        SpringApplication application = new SpringApplication(Application.class);
+        // application.properties reads the datasource from db.* placeholders
+        Map<String, Object> defaults = new HashMap<>(Map.of(
+                "db.url", postgres.getJdbcUrl("postgres", "postgres"),
+                "db.username", "postgres",
+                "db.password", "postgres"));
+        if (Boolean.parseBoolean(options.getOrDefault("replica", "false"))) {
+            // No real replica here, but reads and writes get separate pools like in production
+            defaults.put("matarpontun.datasource.replica.jdbc-url", "${db.url}");
+            defaults.put("matarpontun.datasource.replica.username", "${db.username}");
+            defaults.put("matarpontun.datasource.replica.password", "${db.password}");
+        }
+        application.setDefaultProperties(defaults);
+
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.hibernate.ddl-auto=update"));
+        options.forEach((name, value) -> {
+            if (name.startsWith("spring.") || name.startsWith("matarpontun.")) {
+                applicationArgs.add("--" + name + "=" + value);
+            }
+        });
+        return application.run(applicationArgs.toArray(String[]::new));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,176 @@
+package is.hi.matarpontun.loadtest;
+
+import is.hi.matarpontun.model.MealSlot;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds the schema created by Hibernate with a synthetic hospital, in the spirit of
+ * {@code data.sql} but at a configurable size.
+ *
+ * Rows are inserted with explicit ids in JDBC batches, and the identity sequences are moved
+ * past them afterwards so that the application can keep inserting.
+ */
+final class SeedGenerator {
+
+    /** A seeded ward with its sign-in credentials and patients. */
+    record SeededWard(long id, String wardName, String password, List<Long> patientIds) {}
+
+    // Same food types as data.sql; FA (fasting) and EIN get no menu, like in production
+    private static final String[][] FOOD_TYPES = {
+            {"A1", "Almennt fæði"}, {"A2", "Hentar eldri kynslóðinni"}, {"A3", "Grænmetisfæði"},
+            {"OP", "Orku og próteinbætt fæði"}, {"RDS-KF", "RDS kjöt/fiskur"}, {"RDS-G", "RDS grænmetisfæði"},
+            {"M1", "Mjúkt"}, {"M2", "Hakkað"}, {"M3", "Fínmaukað"},
+            {"F1", "Fljótandi fæði"}, {"F1-S", "F1 Sykurskert"}, {"F1-M", "F1 Mjólkurlaust"},
+            {"F2", "Tært fljótandi"}, {"F3", "Fljótandi fæði eftir aðgerð"}, {"F4", "Þykkfljótandi fæði"},
+            {"F4-S", "F4 Sykurskert"}, {"F5", "Fljótandi fæði kalt"},
+            {"GL", "Glútensnautt"}, {"SA", "Saltskert"}, {"MS", "Mjólkursykurskert"},
+            {"FA", "FASTANDI"}, {"EIN", "EINNOTA"}
+    };
+    private static final int TYPES_WITH_MENU = FOOD_TYPES.length - 2;
+
+    private static final String[] INGREDIENTS = {
+            "oats", "milk", "raisins", "skyr", "bread", "butter", "cheese", "egg", "ham", "jam",
+            "chicken", "beef", "lamb", "pork", "cod", "haddock", "salmon", "shrimp", "potatoes",
+            "carrots", "rice", "rice pasta", "wheat flour", "barley", "onion", "garlic", "lettuce",
+            "tomato", "cucumber", "broccoli", "peas", "lentils", "tofu", "soy sauce", "walnut",
+            "almond", "peanut butter", "sesame seeds", "cream", "yoghurt", "honey", "apple",
+            "banana", "berries", "mustard", "celery", "mushrooms", "paprika", "olive oil", "salt"
+    };
+
+    static final String[] RESTRICTIONS = {
+            "dairy", "milk", "gluten", "meat", "pork", "fish", "sugar", "salt", "egg", "soy", "celery"
+    };
+
+    private static final String[] ALLERGIES = {
+            "nuts", "peanut", "shellfish", "sesame", "egg", "fish", "mustard"
+    };
+
+    private final JdbcTemplate jdbc;
+    private final Random random;
+
+    SeedGenerator(JdbcTemplate jdbc, long seed) {
+        this.jdbc = jdbc;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Inserts food types, meals, today's menus, wards, rooms and patients.
+     *
+     * @return the seeded wards
+     */
+    List<SeededWard> seed(int wards, int roomsPerWard, int bedsPerRoom, double restrictedShare) {
+        seedFoodTypesAndMenus();
+        List<SeededWard> seeded = seedWards(wards, roomsPerWard, bedsPerRoom, restrictedShare);
+
+        resetIdentity("food_types", "id");
+        resetIdentity("meals", "id");
+        resetIdentity("menus", "id");
+        resetIdentity("wards", "id");
+        resetIdentity("rooms", "id");
+        resetIdentity("patients", "patientid");
+        return seeded;
+    }
+
+    private void seedFoodTypesAndMenus() {
+        List<Object[]> foodTypes = new ArrayList<>();
+        List<Object[]> meals = new ArrayList<>();
+        List<Object[]> menus = new ArrayList<>();
+        List<Object[]> menuItems = new ArrayList<>();
+        List<Object[]> menusOfTheDay = new ArrayList<>();
+        Date today = Date.valueOf(LocalDate.now());
+
+        long mealId = 1;
+        for (int i = 0; i < FOOD_TYPES.length; i++) {
+            long foodTypeId = i + 1;
+            foodTypes.add(new Object[] { foodTypeId, FOOD_TYPES[i][0], FOOD_TYPES[i][1] });
+            if (i >= TYPES_WITH_MENU) continue;
+
+            long firstMeal = mealId;
+            for (MealSlot slot : MealSlot.values()) {
+                meals.add(new Object[] { mealId++, FOOD_TYPES[i][0] + " " + slot.getDisplayName(),
+                        randomIngredients(), slot.getDisplayName(), foodTypeId });
+            }
+            long menuId = foodTypeId;
+            menus.add(new Object[] { menuId, today, foodTypeId });
+            long meal = firstMeal;
+            for (MealSlot slot : MealSlot.values()) {
+                menuItems.add(new Object[] { menuId, slot.name(), meal++ });
+            }
+            menusOfTheDay.add(new Object[] { menuId, foodTypeId });
+        }
+
+        jdbc.batchUpdate("INSERT INTO food_types (id, type_name, description) VALUES (?, ?, ?)", foodTypes);
+        jdbc.batchUpdate("INSERT INTO meals (id, name, ingredients, category, food_type_id) VALUES (?, ?, ?, ?, ?)", meals);
+        jdbc.batchUpdate("""
+                INSERT INTO menus (id, date, food_type_id) VALUES (?, ?, ?)
+                """, menus);
+        jdbc.batchUpdate("INSERT INTO menu_items (menu_id, slot, meal_id) VALUES (?, ?, ?)", menuItems);
+        jdbc.batchUpdate("UPDATE food_types SET menu_id = ? WHERE id = ?", menusOfTheDay);
+    }
+
+    private List<SeededWard> seedWards(int wards, int roomsPerWard, int bedsPerRoom, double restrictedShare) {
+        List<Object[]> wardRows = new ArrayList<>();
+        List<Object[]> roomRows = new ArrayList<>();
+        List<Object[]> patientRows = new ArrayList<>();
+        List<Object[]> restrictionRows = new ArrayList<>();
+        List<Object[]> allergyRows = new ArrayList<>();
+        List<SeededWard> seeded = new ArrayList<>();
+
+        long roomId = 1;
+        long patientId = 1;
+        for (int w = 1; w <= wards; w++) {
+            String wardName = "Ward " + w;
+            wardRows.add(new Object[] { (long) w, wardName, "secret" });
+            List<Long> patientIds = new ArrayList<>();
+
+            for (int r = 1; r <= roomsPerWard; r++, roomId++) {
+                roomRows.add(new Object[] { roomId, String.valueOf(100 * w + r), "ROOM-LT" + roomId, bedsPerRoom, (long) w });
+
+                for (int b = 1; b <= bedsPerRoom; b++, patientId++) {
+                    long foodTypeId = 1 + random.nextInt(TYPES_WITH_MENU);
+                    patientRows.add(new Object[] { patientId, "Patient " + patientId, 18 + random.nextInt(80), b,
+                            foodTypeId, (long) w, roomId });
+                    if (random.nextDouble() < restrictedShare) {
+                        restrictionRows.add(new Object[] { patientId, RESTRICTIONS[random.nextInt(RESTRICTIONS.length)] });
+                    }
+                    if (random.nextDouble() < restrictedShare / 3) {
+                        allergyRows.add(new Object[] { patientId, ALLERGIES[random.nextInt(ALLERGIES.length)] });
+                    }
+                    patientIds.add(patientId);
+                }
+            }
+            seeded.add(new SeededWard(w, wardName, "secret", patientIds));
+        }
+
+        jdbc.batchUpdate("INSERT INTO wards (id, ward_name, password) VALUES (?, ?, ?)", wardRows);
+        jdbc.batchUpdate("INSERT INTO rooms (id, room_number, qr_code, max_patients, ward_id) VALUES (?, ?, ?, ?, ?)", roomRows);
+        jdbc.batchUpdate("""
+                INSERT INTO patients (patientid, name, age, bed_number, foodtype_id, ward_id, room_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, patientRows);
+        jdbc.batchUpdate("INSERT INTO patient_restrictions (patient_id, restriction) VALUES (?, ?)", restrictionRows);
+        jdbc.batchUpdate("INSERT INTO patient_allergies (patient_id, allergy) VALUES (?, ?)", allergyRows);
+        return seeded;
+    }
+
+    private void resetIdentity(String table, String column) {
+        jdbc.execute("SELECT setval(pg_get_serial_sequence('" + table + "', '" + column + "'), "
+                + "(SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table + "), false)");
+    }
+
+    private String randomIngredients() {
+        List<String> picked = new ArrayList<>();
+        int count = 3 + random.nextInt(4);
+        while (picked.size() < count) {
+            String candidate = INGREDIENTS[random.nextInt(INGREDIENTS.length)];
+            if (!picked.contains(candidate)) picked.add(candidate);
+        }
+        return String.join(", ", picked);
+    }
+}
@@ -0,0 +1,180 @@
+package is.hi.matarpontun.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulated users of the REST API. Every user runs on its own thread until the test ends.
+ *
+ * A nurse works on a single ward with a mix that roughly follows the ward screens: signing
+ * in, browsing rooms, editing restrictions, checking orders and now and then placing the
+ * ward's orders. The kitchen polls today's order summary. A contender skips the thinking
+ * and keeps editing the same few patients of one ward, to show how lost updates and
+ * duplicate orders are handled when many screens race on the same rows.
+ */
+final class TrafficDriver {
+
+    // Patients every contender fights over, and the food types it switches them between
+    private static final int HOT_PATIENTS = 4;
+    private static final String[] CONTENDED_FOOD_TYPES = {"A1", "A3", "M1"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+
+    TrafficDriver(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Places today's orders for a ward once, so the first minute of traffic does not only
+     * measure empty wards.
+     */
+    void placeWardOrder(SeedGenerator.SeededWard ward) {
+        send("POST /wards/{id}/order", post("/wards/" + ward.id() + "/order", Map.of()));
+    }
+
+    void runNurse(SeedGenerator.SeededWard ward, long seed, long thinkMillis, Deadline deadline) {
+        Random random = new Random(seed);
+        List<Long> patients = ward.patientIds();
+        String today = LocalDate.now().toString();
+
+        while (!deadline.passed()) {
+            int roll = random.nextInt(100);
+            Long patientId = patients.get(random.nextInt(patients.size()));
+            String restriction = SeedGenerator.RESTRICTIONS[random.nextInt(SeedGenerator.RESTRICTIONS.length)];
+
+            if (roll < 10) {
+                send("POST /wards/signIn", post("/wards/signIn",
+                        Map.of("wardName", ward.wardName(), "password", ward.password())));
+            } else if (roll < 40) {
+                send("GET /wards/{id}/rooms", get("/wards/" + ward.id() + "/rooms"));
+            } else if (roll < 75) {
+                // Add and remove again, so restriction lists stay the same size over the run
+                send("POST /patients/{id}/restrictions/add", post("/patients/" + patientId + "/restrictions/add",
+                        Map.of("restriction", restriction)));
+                send("PATCH /patients/{id}/restrictions/remove", patch("/patients/" + patientId + "/restrictions/remove",
+                        Map.of("remove", List.of(restriction))));
+            } else if (roll < 85) {
+                send("POST /patients/{id}/restrictions/addAndReassign", post(
+                        "/patients/" + patientId + "/restrictions/addAndReassign", Map.of("restriction", restriction)));
+                send("PATCH /patients/{id}/restrictions/remove", patch("/patients/" + patientId + "/restrictions/remove",
+                        Map.of("remove", List.of(restriction))));
+            } else if (roll < 95) {
+                send("GET /wards/{id}/orders", get("/wards/" + ward.id() + "/orders?date=" + today));
+            } else {
+                send("POST /wards/{id}/order", post("/wards/" + ward.id() + "/order", Map.of()));
+            }
+            pause(thinkMillis);
+        }
+    }
+
+    void runContention(SeedGenerator.SeededWard ward, long seed, Deadline deadline) {
+        Random random = new Random(seed);
+        List<Long> hot = ward.patientIds().subList(0, Math.min(HOT_PATIENTS, ward.patientIds().size()));
+
+        while (!deadline.passed()) {
+            int roll = random.nextInt(100);
+            Long patientId = hot.get(random.nextInt(hot.size()));
+            String restriction = SeedGenerator.RESTRICTIONS[random.nextInt(SeedGenerator.RESTRICTIONS.length)];
+            String foodType = CONTENDED_FOOD_TYPES[random.nextInt(CONTENDED_FOOD_TYPES.length)];
+
+            if (roll < 35) {
+                send("POST /patients/{id}/restrictions/add", post("/patients/" + patientId + "/restrictions/add",
+                        Map.of("restriction", restriction)));
+                send("PATCH /patients/{id}/restrictions/remove", patch("/patients/" + patientId + "/restrictions/remove",
+                        Map.of("remove", List.of(restriction))));
+            } else if (roll < 65) {
+                send("POST /patients/{id}/order", post("/patients/" + patientId + "/order",
+                        Map.of("foodType", foodType)));
+            } else if (roll < 80) {
+                send("POST /patients/order", post("/patients/order",
+                        Map.of("foodType", foodType, "patientIds", hot)));
+            } else if (roll < 90) {
+                send("PATCH /patients/{id}/fixConflicts", patch("/patients/" + patientId + "/fixConflicts", Map.of()));
+            } else {
+                send("POST /wards/{id}/order", post("/wards/" + ward.id() + "/order", Map.of()));
+            }
+        }
+    }
+
+    void runKitchen(long pollMillis, Deadline deadline) {
+        while (!deadline.passed()) {
+            send("GET /kitchen/todaysOrders", get("/kitchen/todaysOrders"));
+            pause(pollMillis);
+        }
+    }
+
+    private void send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean error;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            error = response.statusCode() >= 400;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(endpoint, System.nanoTime() - start, error);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return withBody(path, "POST", body);
+    }
+
+    private HttpRequest patch(String path, Object body) {
+        return withBody(path, "PATCH", body);
+    }
+
+    private HttpRequest withBody(String path, String method, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialise request body", e);
+        }
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Shared end time of the run. */
+    record Deadline(long endNanos) {
+        static Deadline in(Duration duration) {
+            return new Deadline(System.nanoTime() + duration.toNanos());
+        }
+
+        boolean passed() {
+            return System.nanoTime() >= endNanos || Thread.currentThread().isInterrupted();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package is.hi.matarpontun.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import is.hi.matarpontun.Application;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Menu;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times the nurse's "order for the whole ward" run against PostgreSQL, the path that
+ * regenerates every patient's daily order.
+ *
+ * Unlike the JMH benchmarks, the writes go to a real database, so the number of statements
+ * per order shows up in the timings. The data is seeded through the entities and the run is
+ * requested with {@code POST /wards/{id}/order}, both of which exist unchanged since the
+ * first version of the application, so the class can be copied into an older checkout to
+ * compare before and after (see {@code benchmarks/README.md}).
+ *
+ * Run from the {@code loadtest} directory:
+ * <pre>
+ *   mvn -B compile exec:java -Dexec.mainClass=is.hi.matarpontun.loadtest.WardOrderTiming \
+ *       -Dexec.args="--wards=4 --rooms=12 --beds=2 --runs=20"
+ * </pre>
+ *
+ * Options ({@code --name=value}): {@code wards} (4), {@code rooms} per ward (12), {@code beds}
+ * per room (2), {@code restricted} share of patients with a restriction (0.3), {@code warmup}
+ * runs per ward that are not measured (5), {@code runs} measured runs per ward (20) and
+ * {@code seed} (42). The application's console output goes to {@code target/ward-order-timing-app.log}.
+ */
+public final class WardOrderTiming {
+
+    private WardOrderTiming() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int wards = Integer.parseInt(options.getOrDefault("wards", "4"));
+        int rooms = Integer.parseInt(options.getOrDefault("rooms", "12"));
+        int beds = Integer.parseInt(options.getOrDefault("beds", "2"));
+        double restricted = Double.parseDouble(options.getOrDefault("restricted", "0.3"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "20"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        PrintStream report = System.out;
+        Files.createDirectories(Path.of("target"));
+        System.setOut(new PrintStream(new BufferedOutputStream(
+                new FileOutputStream("target/ward-order-timing-app.log")), true));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = startApplication(postgres)) {
+
+            List<Long> wardIds = seed(context, wards, rooms, beds, restricted, new Random(seed));
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newHttpClient();
+
+            for (int i = 0; i < warmup; i++) {
+                for (Long wardId : wardIds) {
+                    placeWardOrder(client, baseUrl, wardId);
+                }
+            }
+            double[] millis = new double[runs * wardIds.size()];
+            int n = 0;
+            for (int i = 0; i < runs; i++) {
+                for (Long wardId : wardIds) {
+                    long start = System.nanoTime();
+                    placeWardOrder(client, baseUrl, wardId);
+                    millis[n++] = (System.nanoTime() - start) / 1_000_000.0;
+                }
+            }
+
+            Arrays.sort(millis);
+            double mean = Arrays.stream(millis).average().orElse(0);
+            int patients = rooms * beds;
+            report.printf("Ward order run, %d patients per ward (%.0f%% restricted), %d measured runs:%n",
+                    patients, restricted * 100, millis.length);
+            report.printf("  mean %.1f ms, median %.1f ms, p95 %.1f ms, %.2f ms per patient%n",
+                    mean, percentile(millis, 0.50), percentile(millis, 0.95), mean / patients);
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    // Two food types of one substitution group: A1's breakfast contains milk, A2's does not,
+    // so restricted patients on A1 get A2's breakfast as their safe alternative
+    private static List<Long> seed(ConfigurableApplicationContext context, int wards, int rooms, int beds,
+            double restricted, Random random) {
+        EntityManager entityManager = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        return transactionTemplate.execute(status -> {
+            FoodType a1 = foodType(entityManager, "A1", "Porridge", "oats, milk");
+            foodType(entityManager, "A2", "Rye bread", "rye flour, margarine");
+
+            List<Long> wardIds = new ArrayList<>();
+            for (int w = 1; w <= wards; w++) {
+                Ward ward = new Ward("Timing ward " + w, "secret");
+                entityManager.persist(ward);
+                for (int r = 1; r <= rooms; r++) {
+                    Room room = new Room(String.valueOf(r), ward);
+                    entityManager.persist(room);
+                    for (int b = 1; b <= beds; b++) {
+                        Patient patient = new Patient("Patient " + w + "-" + r + "-" + b, 20 + random.nextInt(60),
+                                b, ward);
+                        patient.setRoom(room);
+                        patient.setFoodType(a1);
+                        if (random.nextDouble() < restricted) {
+                            patient.getRestriction().add("milk");
+                        }
+                        entityManager.persist(patient);
+                    }
+                }
+                wardIds.add(ward.getId());
+            }
+            return wardIds;
+        });
+    }
+
+    private static FoodType foodType(EntityManager entityManager, String name, String breakfast,
+            String breakfastIngredients) {
+        FoodType foodType = new FoodType(name, name + " timing diet");
+        entityManager.persist(foodType);
+        Meal first = new Meal(breakfast, breakfastIngredients, "breakfast", foodType);
+        Meal lunch = new Meal("Fish stew " + name, "haddock, potatoes, onion", "lunch", foodType);
+        Meal dinner = new Meal("Lamb soup " + name, "lamb, carrots, rice", "dinner", foodType);
+        entityManager.persist(first);
+        entityManager.persist(lunch);
+        entityManager.persist(dinner);
+        Menu menu = new Menu(LocalDate.now(), foodType);
+        menu.setBreakfast(first);
+        menu.setLunch(lunch);
+        menu.setDinner(dinner);
+        entityManager.persist(menu);
+        foodType.setMenuOfTheDay(menu);
+        return foodType;
+    }
+
+    private static void placeWardOrder(HttpClient client, String baseUrl, Long wardId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/wards/" + wardId + "/order"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Ward order failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres) {
+        SpringApplication application = new SpringApplication(Application.class);
+        // application.properties reads the datasource from db.* placeholders
+        application.setDefaultProperties(Map.of(
+                "db.url", postgres.getJdbcUrl("postgres", "postgres"),
+                "db.username", "postgres",
+                "db.password", "postgres"));
+        return application.run("--server.port=0", "--spring.sql.init.mode=never",
+                "--spring.jpa.hibernate.ddl-auto=update");
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
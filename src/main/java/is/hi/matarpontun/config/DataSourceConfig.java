@@ -0,0 +1,53 @@
+package is.hi.matarpontun.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to a replica database when
+ * {@code matarpontun.datasource.replica.jdbc-url} is set. Without it Spring Boot's single
+ * auto-configured pool is used as before.
+ *
+ * Both pools sit behind a {@link LazyConnectionDataSourceProxy}, which only takes a physical
+ * connection at the first statement. By then the transaction manager has marked the
+ * connection read-only for {@code @Transactional(readOnly = true)} methods, and the proxy
+ * picks the replica pool for those and the primary pool for everything else.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "matarpontun.datasource.replica", name = "jdbc-url")
+public class DataSourceConfig {
+
+    /** The read-write pool, configured by {@code spring.datasource.*} like the default one. */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /** The read-only pool, configured by {@code matarpontun.datasource.replica.*} (Hikari property names). */
+    @Bean
+    @ConfigurationProperties("matarpontun.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        // Known up front, so the proxy does not need a connection at startup to find out
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(java.sql.Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+}
@@ -0,0 +1,100 @@
+package is.hi.matarpontun.controller;
+
+import is.hi.matarpontun.service.OrderRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST controller responsible for order history analytics. Every read is served from the
+ * pre-aggregated daily rollups.
+ */
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    private final OrderRollupService orderRollupService;
+
+    /**
+     * Constructs a new {@code AnalyticsController} with the specified {@link OrderRollupService}.
+     *
+     * @param orderRollupService the service responsible for maintaining and querying order rollups
+     */
+    public AnalyticsController(OrderRollupService orderRollupService) {
+        this.orderRollupService = orderRollupService;
+    }
+
+    /**
+     * Order counts, status mix, conflict rates and swapped meal slots over a date range.
+     * GET {@code /analytics/orders?groupBy=ward&from=2025-01-01&to=2025-03-31}
+     *
+     * Rollups are refreshed nightly, so today's numbers are only complete after a backfill.
+     *
+     * @param groupBy  {@code day} (default), {@code ward} or {@code foodType}
+     * @param from     first order date ({@code yyyy-MM-dd})
+     * @param to       last order date ({@code yyyy-MM-dd})
+     * @param wardName optional ward to restrict the counts to
+     * @return {@code 200 OK} with the summary per group or {@code 400 Bad Request} if the parameters are invalid
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<Map<String, Object>> getOrderAnalytics(
+            @RequestParam(defaultValue = "day") String groupBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String wardName) {
+
+        OrderRollupService.GroupBy dimension = switch (groupBy) {
+            case "day" -> OrderRollupService.GroupBy.DAY;
+            case "ward" -> OrderRollupService.GroupBy.WARD;
+            case "foodType" -> OrderRollupService.GroupBy.FOOD_TYPE;
+            default -> throw new IllegalArgumentException(
+                    "Unknown groupBy '" + groupBy + "'. Use day, ward or foodType");
+        };
+
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("from", from.toString());
+        filters.put("to", to.toString());
+        filters.put("wardName", wardName);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("groupBy", groupBy);
+        response.put("filters", filters);
+        response.put("groups", orderRollupService.summarize(dimension, from, to, wardName));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recomputes the rollups for a date range from the raw orders, e.g. after an import or
+     * for history from before the rollups existed.
+     * POST {@code /analytics/rollups/backfill?from=2025-01-01&to=2025-03-31}
+     *
+     * @param from first order date ({@code yyyy-MM-dd})
+     * @param to   last order date ({@code yyyy-MM-dd})
+     * @return {@code 200 OK} with the number of rollup rows written
+     */
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<Map<String, Object>> backfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int rows = orderRollupService.backfill(from, to);
+        return ResponseEntity.ok(Map.of(
+                "from", from.toString(),
+                "to", to.toString(),
+                "rows", rows));
+    }
+
+    /**
+     * Handles {@link IllegalArgumentException}, mapping it to {@code 400 Bad Request}.
+     *
+     * @param ex the exception
+     * @return {@code 400 Bad Request} with an error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
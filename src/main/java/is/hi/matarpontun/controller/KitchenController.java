@@ -1,9 +1,12 @@
 package is.hi.matarpontun.controller;
 
+import is.hi.matarpontun.service.IngredientRollupService;
 import is.hi.matarpontun.service.KitchenService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 /**
@@ -14,14 +17,17 @@ import java.util.Map;
 public class KitchenController {
 
     private final KitchenService kitchenService;
+    private final IngredientRollupService ingredientRollupService;
 
     /**
-     * Constructs a new {@code KitchenController} with the specified {@link KitchenService}.
+     * Constructs a new {@code KitchenController} with the specified services.
      *
-     * @param kitchenService the service responsible for business logic related to kitchen operations
+     * @param kitchenService          the service responsible for business logic related to kitchen operations
+     * @param ingredientRollupService the service responsible for ingredient counts for procurement
      */
-    public KitchenController(KitchenService kitchenService) {
+    public KitchenController(KitchenService kitchenService, IngredientRollupService ingredientRollupService) {
         this.kitchenService = kitchenService;
+        this.ingredientRollupService = ingredientRollupService;
     }
 
     /**
@@ -38,4 +44,49 @@ public class KitchenController {
         Map<String, Object> summary = kitchenService.getTodaysOrdersSummary();
         return ResponseEntity.ok(summary);
     }
+
+    /**
+     * Handles HTTP GET requests to {@code /kitchen/forecast?days=N}.
+     *
+     * Projects meal counts per day, meal category and food type for the next {@code days}
+     * days from the current patients and the planned menus, so ingredients can be
+     * purchased ahead of time.
+     *
+     * @param days number of days to forecast, starting tomorrow (default 7)
+     * @return {@code 200 OK} with the forecast or {@code 400 Bad Request} if {@code days} is out of range
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<Map<String, Object>> getForecast(@RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(kitchenService.getForecast(days));
+    }
+
+    /**
+     * Handles HTTP GET requests to {@code /kitchen/ingredients?from=yyyy-MM-dd&to=yyyy-MM-dd}.
+     *
+     * Rolls the ordered meals in the date range up into ingredient portions per ward and for
+     * the whole hospital.
+     *
+     * @param from first order date (default today)
+     * @param to   last order date (default {@code from})
+     * @return {@code 200 OK} with the rollup or {@code 400 Bad Request} if the range is invalid
+     */
+    @GetMapping("/ingredients")
+    public ResponseEntity<Map<String, Object>> getIngredients(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start;
+        return ResponseEntity.ok(ingredientRollupService.rollup(start, end));
+    }
+
+    /**
+     * Handles {@link IllegalArgumentException}, mapping it to {@code 400 Bad Request}.
+     *
+     * @param ex the exception
+     * @return {@code 400 Bad Request} with an error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
 }
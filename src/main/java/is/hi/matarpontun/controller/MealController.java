@@ -7,6 +7,7 @@ import is.hi.matarpontun.model.Menu;
 import is.hi.matarpontun.repository.FoodTypeRepository;
 import is.hi.matarpontun.repository.MealRepository;
 import is.hi.matarpontun.repository.MenuRepository;
+import is.hi.matarpontun.service.DailyOrderService;
 import is.hi.matarpontun.service.FoodTypeService;
 import is.hi.matarpontun.service.MealService;
 import is.hi.matarpontun.service.MenuService;
@@ -103,10 +104,13 @@ public class MealController {
      * 
      * Changes the ingredients of an existing meal.
      *
+     * Today's and future orders serving the meal are re-checked straight away; the
+     * response lists the patients whose orders conflict with the new ingredients.
+     *
      * @param mealId the id of the meal to update
      * @param body   JSON body containing an {@code "ingredients"} field
-     * @return {@code 200 OK} with a confirmation message or {@code 400 Bad Request}
-     *         if the {@code "ingredients"} field is missing
+     * @return {@code 200 OK} with a confirmation message and the newly conflicting
+     *         patients, or {@code 400 Bad Request} if the {@code "ingredients"} field is missing
      */
     @PutMapping("/modifyMealIngredients/{mealId}")
     public ResponseEntity<?> modifyMeal(@PathVariable Long mealId, @RequestBody Map<String, String> body) {
@@ -115,11 +119,13 @@ public class MealController {
             return ResponseEntity.badRequest().body(Map.of("error", "Missing or empty 'ingredients' field"));
         }
 
-        Meal updatedMeal = mealService.modifyMealIngredients(mealId, newIngredients);
+        MealService.IngredientChangeResult result = mealService.modifyMealIngredients(mealId, newIngredients);
+        Meal updatedMeal = result.meal();
         return ResponseEntity.ok(Map.of(
                 "message", "Meal ingredients updated successfully",
                 "mealId", updatedMeal.getId(),
-                "newIngredients", updatedMeal.getIngredients()));
+                "newIngredients", updatedMeal.getIngredients(),
+                "newConflicts", result.newConflicts()));
     }
 
     /**
@@ -165,20 +171,13 @@ public class MealController {
                 .orElseThrow(() -> new RuntimeException("Meal with ID " + mealId + " not found"));
 
         // Check if this meal is used in any menu
-        List<Menu> menus = menuRepository.findAll();
-        for (Menu menu : menus) {
-            if ((menu.getBreakfast() != null && menu.getBreakfast().equals(meal)) ||
-                    (menu.getLunch() != null && menu.getLunch().equals(meal)) ||
-                    (menu.getAfternoonSnack() != null && menu.getAfternoonSnack().equals(meal)) ||
-                    (menu.getDinner() != null && menu.getDinner().equals(meal)) ||
-                    (menu.getNightSnack() != null && menu.getNightSnack().equals(meal))) {
-
-                // Meal is still referenced → stop deletion
-                return ResponseEntity.status(409).body(
-                        Map.of(
-                                "error", "Meal with ID " + mealId + " is currently used in Menu " + menu.getId() +
-                                        ". Modify or remove it from that menu before deleting the meal."));
-            }
+        List<Long> menuIds = menuRepository.findMenuIdsUsingMeal(mealId);
+        if (!menuIds.isEmpty()) {
+            // Meal is still referenced → stop deletion
+            return ResponseEntity.status(409).body(
+                    Map.of(
+                            "error", "Meal with ID " + mealId + " is currently used in Menu " + menuIds.get(0) +
+                                    ". Modify or remove it from that menu before deleting the meal."));
         }
 
         // If it’s not in any menu, delete it safely
@@ -218,16 +217,22 @@ public class MealController {
     /**
      * PUT {@code /meals/assignMenuOfTheDay}
      * 
-     * Assigns the “menu of the day” for each food type.
+     * Assigns the “menu of the day” for each food type. Today's orders on an older menu
+     * are moved onto the new one in bulk.
      *
-     * @return {@code 200 OK} with a confirmation message or {@code 500 Internal Server Error}
+     * @return {@code 200 OK} with a confirmation message, the number of moved orders, a diff
+     *         of the replaced meals and the resulting conflicts, or {@code 500 Internal Server Error}
      *         if an unexpected error occurs
      */
     @PutMapping("/assignMenuOfTheDay")
     public ResponseEntity<?> assignMenuOfTheDay() {
         try {
-            menuService.assignMenuOfTheDay();
-            return ResponseEntity.ok(Map.of("message", "Menus of the day successfully assigned to each FoodType"));
+            DailyOrderService.MenuPropagationResult result = menuService.assignMenuOfTheDay();
+            return ResponseEntity.ok(Map.of(
+                    "message", "Menus of the day successfully assigned to each FoodType",
+                    "ordersMoved", result.ordersMoved(),
+                    "changes", result.changes(),
+                    "conflicts", result.conflicts()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
@@ -265,8 +270,10 @@ public class MealController {
         if (ftOpt.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 
         FoodType ft = ftOpt.get();
-        Menu menu = ft.getMenuOfTheDay();
-        if (menu == null) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        // Items and meals are fetched with the menu: there is no session left to load them lazily
+        Optional<Menu> menuOpt = menuRepository.findMenuOfTheDayWithMeals(foodTypeId);
+        if (menuOpt.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        Menu menu = menuOpt.get();
 
         return ResponseEntity.ok(new MenuDetail(
                 ft.getId(),
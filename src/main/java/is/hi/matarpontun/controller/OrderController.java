@@ -0,0 +1,135 @@
+package is.hi.matarpontun.controller;
+
+import is.hi.matarpontun.dto.WorklistEntryDTO;
+import is.hi.matarpontun.model.OrderStatus;
+import is.hi.matarpontun.service.DailyOrderService;
+import is.hi.matarpontun.service.OrderExportService;
+import is.hi.matarpontun.service.WardService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller responsible for handling requests related to order history.
+ */
+@RestController
+@RequestMapping("/orders")
+public class OrderController {
+
+    private final OrderExportService orderExportService;
+    private final WardService wardService;
+    private final DailyOrderService dailyOrderService;
+
+    /**
+     * Constructs a new {@code OrderController} with the required services.
+     *
+     * @param orderExportService the service responsible for writing order history exports
+     * @param wardService        the service used to look up the ward to filter by
+     * @param dailyOrderService  the service responsible for daily orders
+     */
+    public OrderController(OrderExportService orderExportService, WardService wardService,
+            DailyOrderService dailyOrderService) {
+        this.orderExportService = orderExportService;
+        this.wardService = wardService;
+        this.dailyOrderService = dailyOrderService;
+    }
+
+    /**
+     * Returns the dietitian worklist: orders that need a manual change, hospital-wide.
+     * GET {@code /orders/worklist?date=2025-01-31}
+     *
+     * @param date the order date ({@code yyyy-MM-dd}); today if omitted
+     * @return {@code 200 OK} with the date, the number of orders and the orders
+     */
+    @GetMapping("/worklist")
+    public ResponseEntity<?> getManualChangeWorklist(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        List<WorklistEntryDTO> orders = dailyOrderService.getManualChangeWorklist(day);
+        return ResponseEntity.ok(Map.of(
+                "date", day,
+                "count", orders.size(),
+                "orders", orders));
+    }
+
+    /**
+     * Streams the order history as CSV or newline-delimited JSON.
+     * GET {@code /orders/export?format=csv&from=2025-01-01&to=2025-03-31&wardId=1}
+     *
+     * Every filter is optional. Rows are written as they are read from the database, so
+     * exports of several months do not have to fit in memory.
+     *
+     * @param format   {@code csv} (default) or {@code ndjson}
+     * @param from     first order date ({@code yyyy-MM-dd}), inclusive
+     * @param to       last order date ({@code yyyy-MM-dd}), inclusive
+     * @param wardId   only orders from this ward
+     * @param foodType only orders with this food type
+     * @param status   only orders with this status
+     * @return {@code 200 OK} with the streamed export, {@code 400 Bad Request} for an unknown
+     *         format or status, or {@code 404 Not Found} if the ward does not exist
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long wardId,
+            @RequestParam(required = false) String foodType,
+            @RequestParam(required = false) String status) {
+
+        OrderExportService.Format exportFormat = parseFormat(format);
+        OrderStatus statusFilter = status != null ? OrderStatus.fromLabel(status) : null;
+        if (wardId != null) {
+            wardService.findById(wardId); // 404 for an unknown ward rather than an empty export
+        }
+
+        // Runs on the async request thread, which also holds the export's transaction
+        StreamingResponseBody body = out ->
+                orderExportService.export(exportFormat, from, to, wardId, foodType, statusFilter, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private static OrderExportService.Format parseFormat(String format) {
+        for (OrderExportService.Format candidate : OrderExportService.Format.values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format '" + format + "'. Use csv or ndjson");
+    }
+
+    /**
+     * Handles {@link IllegalArgumentException}, mapping it to {@code 400 Bad Request}.
+     *
+     * @param ex the exception
+     * @return {@code 400 Bad Request} with an error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    /**
+     * Handles {@link EntityNotFoundException}, mapping it to {@code 404 Not Found}.
+     *
+     * @param ex the exception
+     * @return {@code 404 Not Found} with an error message
+     */
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<?> handleNotFound(EntityNotFoundException ex) {
+        return ResponseEntity.status(404).body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -2,10 +2,13 @@ package is.hi.matarpontun.controller;
 
 import is.hi.matarpontun.dto.*;
 import is.hi.matarpontun.model.DailyOrder;
-import is.hi.matarpontun.model.Patient;
 import is.hi.matarpontun.service.DailyOrderService;
+import is.hi.matarpontun.service.OrderReevaluationService;
 import is.hi.matarpontun.service.PatientService;
 import is.hi.matarpontun.service.WardService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,19 +24,22 @@ public class PatientController {
     private final WardService wardService;
     private final PatientService patientService;
     private final DailyOrderService dailyOrderService;
+    private final OrderReevaluationService orderReevaluationService;
 
     /**
      * Constructs a new {@code PatientController} with required services.
      *
-     * @param wardService       the service responsible for business logic related to ward authentication and data access.
-     * @param patientService    the service responsible for business logic related to patient updates.
-     * @param dailyOrderService the service responsible for managing {@link DailyOrder}s.
+     * @param wardService              the service responsible for business logic related to ward authentication and data access.
+     * @param patientService           the service responsible for business logic related to patient updates.
+     * @param dailyOrderService        the service responsible for managing {@link DailyOrder}s.
+     * @param orderReevaluationService the service that re-checks orders after diet changes.
      */
     public PatientController(WardService wardService, PatientService patientService,
-            DailyOrderService dailyOrderService) {
+            DailyOrderService dailyOrderService, OrderReevaluationService orderReevaluationService) {
         this.wardService = wardService;
         this.patientService = patientService;
         this.dailyOrderService = dailyOrderService;
+        this.orderReevaluationService = orderReevaluationService;
     }
 
     /**
@@ -77,6 +83,25 @@ public class PatientController {
         }
     }
 
+    /**
+     * Finds every patient, across wards, who is restricted from or allergic to an ingredient,
+     * e.g. for a recall. Terms above the ingredient in the taxonomy count ("dairy" matches
+     * "yogurt").
+     * GET {@code /patients/search?ingredient=yogurt}
+     *
+     * @param ingredient the ingredient to search for
+     * @return {@code 200 OK} with the terms searched for and the matching patients, or
+     *         {@code 400 Bad Request} if the ingredient is blank
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchByIngredient(@RequestParam String ingredient) {
+        try {
+            return ResponseEntity.ok(patientService.findPatientsRestrictedFrom(ingredient));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * UC3 - Adds a restriction and reassigns the patient's food type if a conflict arises.
      *
@@ -96,15 +121,15 @@ public class PatientController {
         }
 
         // Add the restriction to the patient
-        Patient updated = patientService.addRestriction(id, restriction);
+        patientService.addRestriction(id, restriction);
 
-        // Recheck today's daily order for conflicts
-        DailyOrder order = dailyOrderService.checkForConflicts(id);
+        // Apply the pending diet change to today's order right away instead of waiting
+        // for the batching window
+        orderReevaluationService.flush(id);
 
         // Return a detailed result
         return ResponseEntity.ok(new RestrictionCheckResultDTO(
-                updated,
-                order,
+                patientService.getTodaysOrder(id),
                 "Restriction added and daily order rechecked."));
     }
 
@@ -114,7 +139,7 @@ public class PatientController {
      *
      * @param id      patient id
      * @param request JSON body containing {@code "restriction"}
-     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @PostMapping("/{id}/restrictions/add")
     public ResponseEntity<PatientDailyOrderDTO> addRestriction(
@@ -122,15 +147,10 @@ public class PatientController {
             @RequestBody Map<String, String> request) {
 
         String restriction = request.get("restriction");
-        Patient updatedPatient = patientService.addRestriction(id, restriction);
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updatedPatient);
-
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(
-                updatedPatient,
-                updatedPatient.getWard(),
-                order);
+        patientService.addRestriction(id, restriction);
+        orderReevaluationService.flush(id);
 
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
     }
 
     /**
@@ -138,7 +158,7 @@ public class PatientController {
      *
      * @param id   patient id
      * @param body JSON body with {@code "remove"} as a list of restrictions.
-     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @PatchMapping("/{id}/restrictions/remove")
     public ResponseEntity<PatientDailyOrderDTO> removeRestrictions(
@@ -146,28 +166,24 @@ public class PatientController {
             @RequestBody Map<String, java.util.List<String>> body) {
 
         java.util.List<String> toRemove = body.get("remove");
-        Patient updated = patientService.removeRestrictions(id, toRemove);
+        patientService.removeRestrictions(id, toRemove);
+        orderReevaluationService.flush(id);
 
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updated);
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(updated, updated.getWard(), order);
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
     }
 
     /**
      * Removes all restrictions from a patient's restriction list.
      *
      * @param id patient id
-     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @DeleteMapping("/{id}/restrictions")
     public ResponseEntity<PatientDailyOrderDTO> clearAllRestrictions(@PathVariable Long id) {
-        Patient updated = patientService.clearAllRestrictions(id);
-
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updated);
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(updated, updated.getWard(), order);
+        patientService.clearAllRestrictions(id);
+        orderReevaluationService.flush(id);
 
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
     }
 
     /**
@@ -175,7 +191,7 @@ public class PatientController {
      *
      * @param id   patient id
      * @param body JSON body with {@code "remove"} as a list of allergies.
-     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @PatchMapping("/{id}/allergies/remove")
     public ResponseEntity<PatientDailyOrderDTO> removeAllergy(
@@ -183,28 +199,50 @@ public class PatientController {
             @RequestBody Map<String, java.util.List<String>> body) {
 
         java.util.List<String> toRemove = body.get("remove");
-        Patient updated = patientService.removeAllergies(id, toRemove);
+        patientService.removeAllergies(id, toRemove);
+        orderReevaluationService.flush(id);
+
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
+    }
 
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updated);
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(updated, updated.getWard(), order);
+    /**
+     * Applies many restriction and allergy edits at once, e.g. after a dietitian's round,
+     * then re-evaluates today's order once for every patient whose diet changed.
+     * POST {@code /patients/diet/batch}
+     *
+     * @param edits the edits, in the order they were made
+     * @return {@code 200 OK} with the changed patients and term counts, {@code 400 Bad Request}
+     *         for an invalid edit, or {@code 404 Not Found} if a patient does not exist
+     */
+    @PostMapping("/diet/batch")
+    public ResponseEntity<?> applyDietEdits(@RequestBody java.util.List<DietEditDTO> edits) {
+        PatientService.DietEditResult result;
+        try {
+            result = patientService.applyDietEdits(edits);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
 
-        return ResponseEntity.ok(dto);
+        // The edits are committed and marked per patient; apply them now instead of
+        // waiting for the batching window
+        result.patientIds().forEach(orderReevaluationService::flush);
+        return ResponseEntity.ok(result);
     }
 
     /**
      * Removes all allergies from a patient's allergy list.
      *
      * @param id patient id
-     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @DeleteMapping("/{id}/allergies")
     public ResponseEntity<PatientDailyOrderDTO> clearAllAllergies(@PathVariable Long id) {
-        Patient updated = patientService.clearAllAllergies(id);
+        patientService.clearAllAllergies(id);
+        orderReevaluationService.flush(id);
 
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updated);
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(updated, updated.getWard(), order);
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
     }
 
     /**
@@ -245,22 +283,42 @@ public class PatientController {
                 "conflicts", result.conflicts()));
     }
 
+    /**
+     * Orders a food type for a group of patients at once, e.g. fasting before surgery or
+     * a whole ward moving to a new diet. Updates their food type and regenerates today's
+     * orders; a food type without a menu of the day removes their orders instead.
+     * POST {@code /patients/order}
+     *
+     * @param request the food type and the patient ids, room ids and/or ward id
+     * @return {@code 200 OK} with counts and conflicts, {@code 400 Bad Request} if the food
+     *         type or every selector is missing, or {@code 404 Not Found} for an unknown food type
+     */
+    @PostMapping("/order")
+    public ResponseEntity<?> orderFoodForPatients(@RequestBody BulkFoodTypeChangeDTO request) {
+        try {
+            return ResponseEntity.ok(dailyOrderService.orderFoodTypeForPatients(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Updates a patient's name, food type, and restrictions.
      *
      * @param id      patient id
      * @param request updated fields
-     * @return {@code 200 OK} with updated {@link PatientDailyOrderDTO}
+     * @return {@code 200 OK} with updated {@link PatientDailyOrderDTO}, today's order already re-evaluated
      */
     @PatchMapping("/{id}")
     public ResponseEntity<?> updatePatient(
             @PathVariable Long id,
             @RequestBody PatientUpdateRequestDTO request) {
-        Patient updated = patientService.updatePatient(
+        patientService.updatePatient(
                 id, request.name(), request.foodTypeName(), request.restrictions());
-        DailyOrder order = dailyOrderService.findTodayOrderForPatient(updated);
-        PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(updated, updated.getWard(), order);
-        return ResponseEntity.ok(dto);
+        orderReevaluationService.flush(id);
+        return ResponseEntity.ok(patientService.getTodaysOrder(id));
     }
 
     /**
@@ -268,8 +326,9 @@ public class PatientController {
      * automatically replacing meals when possible.
      *
      * @param id patient id
-     * @return {@code 200 OK} with a message, status and {@link PatientDailyOrderDTO} or
-     *         {@code 400 Bad Request} if the check fails.
+     * @return {@code 200 OK} with a message, status and {@link PatientDailyOrderDTO},
+     *         {@code 400 Bad Request} if the patient or today's order does not exist, or
+     *         {@code 409 Conflict} if concurrent edits kept winning (see {@link #handleConcurrentEdit})
      */
     @PatchMapping("/{id}/fixConflicts")
     public ResponseEntity<?> fixConflicts(@PathVariable Long id) {
@@ -278,24 +337,20 @@ public class PatientController {
 
             String message;
             switch (updatedOrder.getStatus()) {
-                case "AUTO CHANGED" -> message = "Conflicts found and meals automatically adjusted.";
-                case "NEEDS MANUAL CHANGE" -> message = "Conflicts found — manual change required.";
+                case AUTO_CHANGED -> message = "Conflicts found and meals automatically adjusted.";
+                case NEEDS_MANUAL_CHANGE -> message = "Conflicts found — manual change required.";
                 default -> message = "No conflicts found.";
             }
 
             // Build DTO for clean structured response
-            Patient patient = updatedOrder.getPatient();
-            PatientDailyOrderDTO dto = PatientMapper.toDailyOrderDTO(
-                    patient,
-                    patient.getWard(),
-                    updatedOrder);
+            PatientDailyOrderDTO dto = patientService.getTodaysOrder(id);
 
             return ResponseEntity.ok(Map.of(
                     "message", message,
-                    "status", updatedOrder.getStatus(),
+                    "status", updatedOrder.getStatus().getLabel(),
                     "data", dto));
 
-        } catch (Exception e) {
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "error", "Unable to check conflicts: " + e.getMessage()));
         }
@@ -323,4 +378,17 @@ public class PatientController {
         }
     }
 
+    /**
+     * Handles edits that kept losing to concurrent edits of the same patient or order even
+     * after the services' retries, mapping them to {@code 409 Conflict}.
+     *
+     * @param ex the exception
+     * @return {@code 409 Conflict} with an error message; the client may simply try again
+     */
+    @ExceptionHandler({ConcurrencyFailureException.class, DuplicateKeyException.class})
+    public ResponseEntity<?> handleConcurrentEdit(RuntimeException ex) {
+        return ResponseEntity.status(409).body(Map.of(
+                "error", "The patient was changed by someone else at the same time, please try again"));
+    }
+
 }
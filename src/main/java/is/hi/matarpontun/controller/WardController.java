@@ -1,7 +1,7 @@
 package is.hi.matarpontun.controller;
 
 import is.hi.matarpontun.dto.*;
-import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.OrderStatus;
 import is.hi.matarpontun.model.Ward;
 import is.hi.matarpontun.repository.RoomRepository;
 import is.hi.matarpontun.service.DailyOrderService;
@@ -93,15 +93,15 @@ public class WardController {
      */
     @PostMapping("/signIn")
     public ResponseEntity<?> signIn(@RequestBody WardDTO request) {
-        return wardService.signInAndGetData(request.wardName(), request.password())
+        return wardService.signIn(request.wardName(), request.password())
                 .map(ward -> {
                     // Generate JWT for this session, it works for all endpoints
-                    String token = jwtTokenUtil.generateToken(ward.getWardName());
+                    String token = jwtTokenUtil.generateToken(ward.wardName());
 
                     return ResponseEntity.ok(Map.of(
                             "message", "Login successful",
-                            "wardId", ward.getWardId(),
-                            "wardName", ward.getWardName(),
+                            "wardId", ward.id(),
+                            "wardName", ward.wardName(),
                             "token", token));
                 })
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -176,26 +176,15 @@ public class WardController {
     public ResponseEntity<?> createRoom(
             @PathVariable Long wardId,
             @RequestBody RoomCreateRequestDTO request) {
-        var room = roomService.createRoomAndFillWithPatients(request.maxPatients(), wardId, request.roomNumber());
-
-        List<Map<String, Object>> patientList = new java.util.ArrayList<>();
-        for (Patient p : room.getPatients()) {
-            Map<String, Object> entry = new HashMap<>();
-            entry.put("id", p.getPatientID());
-            entry.put("name", p.getName());
-            entry.put("age", p.getAge());
-            entry.put("bedNumber", p.getBedNumber());
-            entry.put("foodType", p.getFoodType().getTypeName());
-            patientList.add(entry);
-        }
+        RoomDTO room = roomService.createRoomAndFillWithPatients(request.maxPatients(), wardId, request.roomNumber());
 
         return ResponseEntity.ok(Map.of(
                 "message", "Room created successfully",
-                "roomId", room.getId(),
-                "roomNumber", room.getRoomNumber(),
-                "maxPatients", room.getMaxPatients(),
-                "qrCode", room.getQrCode(),
-                "patients", patientList));
+                "roomId", room.roomId(),
+                "roomNumber", room.roomNumber(),
+                "maxPatients", room.maxPatients(),
+                "qrCode", room.qrCode(),
+                "patients", room.patients()));
     }
 
     /**
@@ -205,28 +194,8 @@ public class WardController {
      * @return {@code 200 OK} with a list of rooms and their patients
      */
     @GetMapping("/{wardId}/rooms")
-    public ResponseEntity<?> getRoomsForWard(@PathVariable Long wardId) {
-        List<Map<String, Object>> result = new java.util.ArrayList<>();
-        for (var room : roomRepository.findByWard_Id(wardId)) {
-            List<Map<String, Object>> patientList = new java.util.ArrayList<>();
-            for (Patient p : room.getPatients()) {
-                Map<String, Object> entry = new HashMap<>();
-                entry.put("id", p.getPatientID());
-                entry.put("name", p.getName());
-                entry.put("age", p.getAge());
-                entry.put("bedNumber", p.getBedNumber());
-                entry.put("foodType", p.getFoodType().getTypeName());
-                patientList.add(entry);
-            }
-            Map<String, Object> roomMap = new HashMap<>();
-            roomMap.put("roomId", room.getId());
-            roomMap.put("roomNumber", room.getRoomNumber());
-            roomMap.put("maxPatients", room.getMaxPatients());
-            roomMap.put("qrCode", room.getQrCode());
-            roomMap.put("patients", patientList);
-            result.add(roomMap);
-        }
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<RoomDTO>> getRoomsForWard(@PathVariable Long wardId) {
+        return ResponseEntity.ok(roomService.getRoomsForWard(wardId));
     }
 
     /**
@@ -330,13 +299,23 @@ public class WardController {
             }
         }
 
+        // Parse status
+        OrderStatus parsedStatus = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                parsedStatus = OrderStatus.fromLabel(status);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
+
         // Fetch ward
         Ward ward = wardService.findById(wardId);
         String wardName = ward.getWardName();
 
         // Fetch filtered orders via DTO method
         List<DailyOrderSummaryDTO> filteredOrders = dailyOrderService.getFilteredOrdersDTO(parsedDate, foodType,
-                wardName, status);
+                wardId, parsedStatus);
 
         // Build response
         Map<String, Object> filters = new HashMap<>();
@@ -0,0 +1,19 @@
+package is.hi.matarpontun.dto;
+
+import java.util.List;
+
+/**
+ * Request to put a group of patients on one food type, e.g. fasting before surgery or a
+ * whole ward moving to a new diet. The patients are the union of all given selectors.
+ *
+ * @param foodType   the name of the new food type
+ * @param patientIds individual patients, may be {@code null}
+ * @param roomIds    every patient in these rooms, may be {@code null}
+ * @param wardId     every patient on this ward, may be {@code null}
+ */
+public record BulkFoodTypeChangeDTO(
+        String foodType,
+        List<Long> patientIds,
+        List<Long> roomIds,
+        Long wardId
+) {}
@@ -1,5 +1,7 @@
 package is.hi.matarpontun.dto;
 
+import is.hi.matarpontun.model.OrderStatus;
+
 import java.time.LocalDate;
 
 public class DailyOrderSummaryDTO {
@@ -12,14 +14,14 @@ public class DailyOrderSummaryDTO {
     private String status;
 
     public DailyOrderSummaryDTO(Long orderId, LocalDate orderDate, String wardName, String roomNumber,
-                                String patientName, String foodType, String status) {
+                                String patientName, String foodType, OrderStatus status) {
         this.orderId = orderId;
         this.orderDate = orderDate;
         this.wardName = wardName;
         this.roomNumber = roomNumber;
         this.patientName = patientName;
         this.foodType = foodType;
-        this.status = status;
+        this.status = status.getLabel();
     }
 
     // --- Getters ---
@@ -0,0 +1,16 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * One restriction or allergy edit within a batch, e.g. from a dietitian's round.
+ *
+ * @param patientId the patient to edit
+ * @param action    {@code "add"} or {@code "remove"}
+ * @param type      {@code "restriction"} or {@code "allergy"}
+ * @param term      the term, or several separated by commas
+ */
+public record DietEditDTO(
+        Long patientId,
+        String action,
+        String type,
+        String term
+) {}
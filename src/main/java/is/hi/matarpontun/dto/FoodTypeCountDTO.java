@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * The number of patients with a food type.
+ */
+public record FoodTypeCountDTO(String foodType, Long patients) {}
@@ -0,0 +1,13 @@
+package is.hi.matarpontun.dto;
+
+import is.hi.matarpontun.model.MealSlot;
+
+/**
+ * One group in the kitchen summary query: how many meals of a food type a ward gets in a slot.
+ */
+public record KitchenMealCountDTO(
+        String wardName,
+        MealSlot slot,
+        String foodType,
+        Long meals
+) {}
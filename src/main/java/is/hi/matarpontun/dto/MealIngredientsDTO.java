@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * A meal's raw, comma-separated ingredient list.
+ */
+public record MealIngredientsDTO(Long mealId, String ingredients) {}
@@ -0,0 +1,19 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * One line of the diff report after orders were moved to a new menu of the day: how many
+ * orders of a food type had one meal in a slot replaced by another.
+ *
+ * @param foodType     the food type whose menu of the day changed
+ * @param slot         the meal slot name (e.g. "Breakfast")
+ * @param previousMeal the meal the orders held before, or {@code null} if the slot was empty
+ * @param newMeal      the meal from the new menu, or {@code null} if it has no meal in the slot
+ * @param orders       the number of orders with this change
+ */
+public record MenuChangeDiffDTO(
+        String foodType,
+        String slot,
+        String previousMeal,
+        String newMeal,
+        long orders
+) {}
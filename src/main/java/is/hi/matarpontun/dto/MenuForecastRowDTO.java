@@ -0,0 +1,19 @@
+package is.hi.matarpontun.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One planned menu in the kitchen forecast query: the meal of each slot and how many
+ * current patients have the menu's food type. A slot is {@code null} when the menu has no
+ * meal there.
+ */
+public record MenuForecastRowDTO(
+        LocalDate date,
+        String foodType,
+        String breakfast,
+        String lunch,
+        String afternoonSnack,
+        String dinner,
+        String nightSnack,
+        Long patients
+) {}
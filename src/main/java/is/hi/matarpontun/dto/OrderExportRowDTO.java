@@ -0,0 +1,24 @@
+package is.hi.matarpontun.dto;
+
+import is.hi.matarpontun.model.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * One order in the order history export, with the patient, food type and meal names joined in.
+ */
+public record OrderExportRowDTO(
+        Long orderId,
+        LocalDate orderDate,
+        String wardName,
+        String roomNumber,
+        Long patientId,
+        String patientName,
+        String foodType,
+        OrderStatus status,
+        String breakfast,
+        String lunch,
+        String afternoonSnack,
+        String dinner,
+        String nightSnack
+) {}
@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * Summed rollup counts for one group (a day, ward or food type) and status.
+ */
+public record OrderRollupCountDTO(String groupKey, String status, Long orders, Long swappedSlots) {}
@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * The version of a patient's stored order, as read before the order is rewritten.
+ */
+public record OrderVersionDTO(Long patientId, long version) {}
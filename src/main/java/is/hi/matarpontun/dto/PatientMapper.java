@@ -2,6 +2,9 @@ package is.hi.matarpontun.dto;
 
 import is.hi.matarpontun.model.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 public class PatientMapper {
 
     private PatientMapper() {
@@ -25,7 +28,7 @@ public class PatientMapper {
                 patient.getRestriction(),
                 patient.getAllergies(),
                 order.getOrderDate(),
-                order.getStatus(),
+                order.getStatus().getLabel(),
                 new PatientDailyOrderDTO.MealDTO(
                         safeMealName(order.getBreakfast()),
                         safeIngredients(order.getBreakfast()),
@@ -41,7 +44,46 @@ public class PatientMapper {
         );
     }
 
+    /**
+     * Converts a row of the patient screen query, plus the patient's restrictions and
+     * allergies, into the same DTO. A patient without an order gets status "N/A".
+     */
+    public static PatientDailyOrderDTO toDailyOrderDTO(PatientOrderRowDTO row, List<String> restrictions,
+            List<String> allergies, LocalDate date) {
+        boolean hasOrder = row.orderDate() != null;
+        return new PatientDailyOrderDTO(
+                row.patientId(),
+                row.name(),
+                row.age(),
+                row.wardName(),
+                row.roomNumber(),
+                row.roomQrCode(),
+                row.bedNumber(),
+                row.foodType(),
+                restrictions,
+                allergies,
+                hasOrder ? row.orderDate() : date,
+                hasOrder ? row.status().getLabel() : "N/A",
+                new PatientDailyOrderDTO.MealDTO(
+                        orNA(row.breakfastName()),
+                        orNA(row.breakfastIngredients()),
+                        orNA(row.lunchName()),
+                        orNA(row.lunchIngredients()),
+                        orNA(row.afternoonSnackName()),
+                        orNA(row.afternoonSnackIngredients()),
+                        orNA(row.dinnerName()),
+                        orNA(row.dinnerIngredients()),
+                        orNA(row.nightSnackName()),
+                        orNA(row.nightSnackIngredients())
+                )
+        );
+    }
+
     // --- Helper Methods ---
+    private static String orNA(String value) {
+        return value != null ? value : "N/A";
+    }
+
     private static String safeMealName(Meal meal) {
         return (meal != null && meal.getName() != null) ? meal.getName() : "N/A";
     }
@@ -0,0 +1,33 @@
+package is.hi.matarpontun.dto;
+
+import is.hi.matarpontun.model.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the patient screen query: a patient with ward, room, food type and the
+ * meal names and ingredients of the order for the requested date.
+ * The order columns are {@code null} when the patient has no order that day.
+ */
+public record PatientOrderRowDTO(
+        Long patientId,
+        String name,
+        int age,
+        String wardName,
+        String roomNumber,
+        String roomQrCode,
+        int bedNumber,
+        String foodType,
+        LocalDate orderDate,
+        OrderStatus status,
+        String breakfastName,
+        String breakfastIngredients,
+        String lunchName,
+        String lunchIngredients,
+        String afternoonSnackName,
+        String afternoonSnackIngredients,
+        String dinnerName,
+        String dinnerIngredients,
+        String nightSnackName,
+        String nightSnackIngredients
+) {}
@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * A single restriction or allergy of a patient.
+ */
+public record PatientTermDTO(Long patientId, String term) {}
@@ -0,0 +1,15 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * A patient with one restriction or allergy term that matched a search, with where the
+ * patient is.
+ */
+public record PatientTermMatchDTO(
+        Long patientId,
+        String name,
+        Long wardId,
+        String wardName,
+        String roomNumber,
+        int bedNumber,
+        String term
+) {}
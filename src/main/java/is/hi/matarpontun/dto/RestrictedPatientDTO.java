@@ -0,0 +1,33 @@
+package is.hi.matarpontun.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A patient found by a restriction/allergy search, with where the patient is and which of
+ * the patient's restrictions and allergies matched.
+ */
+public record RestrictedPatientDTO(
+        Long patientId,
+        String name,
+        Long wardId,
+        String wardName,
+        String roomNumber,
+        int bedNumber,
+        List<String> restrictions,
+        List<String> allergies
+) {
+    /** By ward, room and bed; patients without a ward or room come last. */
+    public static final Comparator<RestrictedPatientDTO> BY_LOCATION = Comparator
+            .comparing(RestrictedPatientDTO::wardName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(RestrictedPatientDTO::roomNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingInt(RestrictedPatientDTO::bedNumber)
+            .thenComparing(RestrictedPatientDTO::patientId);
+
+    /** Starts an entry for the match's patient, with no matched terms yet. */
+    public static RestrictedPatientDTO of(PatientTermMatchDTO match) {
+        return new RestrictedPatientDTO(match.patientId(), match.name(), match.wardId(), match.wardName(),
+                match.roomNumber(), match.bedNumber(), new ArrayList<>(), new ArrayList<>());
+    }
+}
@@ -1,9 +1,5 @@
 package is.hi.matarpontun.dto;
 
-import is.hi.matarpontun.model.DailyOrder;
-import is.hi.matarpontun.model.Meal;
-import is.hi.matarpontun.model.Patient;
-
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,14 +16,9 @@ public class RestrictionCheckResultDTO {
         private String name;
         private String ingredients;
 
-        public MealInfo(Meal meal) {
-            if (meal == null) {
-                this.name = "N/A";
-                this.ingredients = "N/A";
-            } else {
-                this.name = meal.getName() != null ? meal.getName() : "N/A";
-                this.ingredients = meal.getIngredients() != null ? meal.getIngredients() : "N/A";
-            }
+        public MealInfo(String name, String ingredients) {
+            this.name = name;
+            this.ingredients = ingredients;
         }
 
         public String getName() {
@@ -39,19 +30,20 @@ public class RestrictionCheckResultDTO {
         }
     }
 
-    // Constructor that builds itself
-    public RestrictionCheckResultDTO(Patient patient, DailyOrder order, String message) {
+    // Constructor that builds itself from the patient's order of the day
+    public RestrictionCheckResultDTO(PatientDailyOrderDTO order, String message) {
         this.message = message;
-        this.patient = patient.getName();
+        this.patient = order.getName();
         this.status = order.getStatus();
-        this.restrictions = patient.getRestriction();
+        this.restrictions = order.getRestrictions();
 
         // Add meals in a logical order
-        meals.put("breakfast", new MealInfo(order.getBreakfast()));
-        meals.put("lunch", new MealInfo(order.getLunch()));
-        meals.put("afternoonSnack", new MealInfo(order.getAfternoonSnack()));
-        meals.put("dinner", new MealInfo(order.getDinner()));
-        meals.put("nightSnack", new MealInfo(order.getNightSnack()));
+        PatientDailyOrderDTO.MealDTO m = order.getMeals();
+        meals.put("breakfast", new MealInfo(m.getBreakfastName(), m.getBreakfastIngredients()));
+        meals.put("lunch", new MealInfo(m.getLunchName(), m.getLunchIngredients()));
+        meals.put("afternoonSnack", new MealInfo(m.getAfternoonSnackName(), m.getAfternoonSnackIngredients()));
+        meals.put("dinner", new MealInfo(m.getDinnerName(), m.getDinnerIngredients()));
+        meals.put("nightSnack", new MealInfo(m.getNightSnackName(), m.getNightSnackIngredients()));
     }
 
     // --- Getters ---
@@ -0,0 +1,22 @@
+package is.hi.matarpontun.dto;
+
+import java.util.List;
+
+/**
+ * A room and its patients, as shown on the ward's room screen.
+ */
+public record RoomDTO(
+        Long roomId,
+        String roomNumber,
+        int maxPatients,
+        String qrCode,
+        List<PatientInfo> patients
+) {
+    public record PatientInfo(
+            Long id,
+            String name,
+            int age,
+            int bedNumber,
+            String foodType
+    ) {}
+}
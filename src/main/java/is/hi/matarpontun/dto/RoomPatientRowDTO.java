@@ -0,0 +1,17 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * One row of the room screen query: a room joined with one of its patients.
+ * The patient columns are {@code null} for an empty room.
+ */
+public record RoomPatientRowDTO(
+        Long roomId,
+        String roomNumber,
+        int maxPatients,
+        String qrCode,
+        Long patientId,
+        String name,
+        Integer age,
+        Integer bedNumber,
+        String foodType
+) {}
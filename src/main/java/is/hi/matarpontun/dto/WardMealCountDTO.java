@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * How many portions of a meal a ward has ordered, for the ingredient rollup.
+ */
+public record WardMealCountDTO(String wardName, Long mealId, Long portions) {}
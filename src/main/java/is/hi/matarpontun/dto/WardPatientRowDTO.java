@@ -0,0 +1,6 @@
+package is.hi.matarpontun.dto;
+
+/**
+ * One patient of a ward order run, with the room the patient is in.
+ */
+public record WardPatientRowDTO(Long patientId, String name, String roomNumber) {}
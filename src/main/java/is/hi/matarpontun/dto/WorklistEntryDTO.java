@@ -0,0 +1,18 @@
+package is.hi.matarpontun.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One order on the dietitian worklist: an order that needs a manual change, with where
+ * the patient is and which food type they are on.
+ */
+public record WorklistEntryDTO(
+        Long orderId,
+        LocalDate orderDate,
+        Long wardId,
+        String wardName,
+        String roomNumber,
+        Long patientId,
+        String patientName,
+        String foodType
+) {}
@@ -0,0 +1,59 @@
+package is.hi.matarpontun.event;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Published whenever a patient's restrictions or allergies change.
+ *
+ * Terms are normalised (trimmed, lower case, comma-separated entries split) so that
+ * listeners can compare them directly against ingredient text.
+ *
+ * @param patientId the patient whose diet changed
+ * @param added     terms that were added
+ * @param removed   terms that were removed
+ */
+public record PatientDietChangedEvent(Long patientId, Set<String> added, Set<String> removed) {
+
+    public PatientDietChangedEvent {
+        added = Set.copyOf(added);
+        removed = Set.copyOf(removed);
+    }
+
+    /**
+     * Builds an event from a before/after snapshot of a restriction or allergy list.
+     */
+    public static PatientDietChangedEvent between(Long patientId, Collection<String> before, Collection<String> after) {
+        Set<String> oldTerms = normalize(before);
+        Set<String> newTerms = normalize(after);
+
+        Set<String> added = new HashSet<>(newTerms);
+        added.removeAll(oldTerms);
+        Set<String> removed = new HashSet<>(oldTerms);
+        removed.removeAll(newTerms);
+
+        return new PatientDietChangedEvent(patientId, added, removed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Splits, trims and lower-cases a list of restriction or allergy entries.
+     */
+    public static Set<String> normalize(Collection<String> entries) {
+        Set<String> terms = new HashSet<>();
+        if (entries == null) return terms;
+        for (String entry : entries) {
+            if (entry == null) continue;
+            for (String part : entry.split(",")) {
+                String term = part.trim().toLowerCase(Locale.ROOT);
+                if (!term.isEmpty()) terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
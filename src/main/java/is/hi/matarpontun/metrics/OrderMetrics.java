@@ -0,0 +1,151 @@
+package is.hi.matarpontun.metrics;
+
+import is.hi.matarpontun.model.ConflictSeverity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the order pipeline and the kitchen, exposed on
+ * {@code /actuator/prometheus}.
+ *
+ * Meter names use dots ({@code matarpontun.orders.ward}); the Prometheus registry renders
+ * them as {@code matarpontun_orders_ward_seconds} etc.
+ */
+@Component
+public class OrderMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer patientOrderTimer;
+    private final Timer kitchenSummaryTimer;
+    private final Timer mealImpactTimer;
+
+    /**
+     * Constructs a new {@code OrderMetrics}.
+     *
+     * @param registry the registry the meters are registered with
+     */
+    public OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.patientOrderTimer = Timer.builder("matarpontun.orders.patient")
+                .description("Time to generate one patient's daily order")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.kitchenSummaryTimer = Timer.builder("matarpontun.kitchen.summary")
+                .description("Time to build the kitchen's summary of today's orders")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.mealImpactTimer = Timer.builder("matarpontun.orders.meal-impact")
+                .description("Time to re-check the orders serving a meal after its ingredients changed")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Times the generation of all orders in a ward.
+     */
+    public <T> T timeWardOrder(String wardName, Supplier<T> work) {
+        return Timer.builder("matarpontun.orders.ward")
+                .description("Time to generate the daily orders of a whole ward")
+                .tag("ward", wardName != null ? wardName : "unknown")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(work);
+    }
+
+    /**
+     * Times the generation of a single patient's order.
+     */
+    public <T> T timePatientOrder(Supplier<T> work) {
+        return patientOrderTimer.record(work);
+    }
+
+    /**
+     * Counts a generated order by its resulting status.
+     *
+     * @param status the order's status after restriction checking
+     */
+    public void recordOrderOutcome(String status) {
+        Counter.builder("matarpontun.orders.outcomes")
+                .description("Generated orders by resulting status")
+                .tag("status", status)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts a slot conflict found while generating an order.
+     *
+     * @param status   the status the order ended up with
+     * @param severity whether a restriction or an allergy matched
+     */
+    public void recordConflict(String status, ConflictSeverity severity) {
+        Counter.builder("matarpontun.orders.conflicts")
+                .description("Slot conflicts found during order generation")
+                .tag("status", status)
+                .tag("severity", severity.name())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts a search for a safe alternative meal.
+     *
+     * @param result {@code found}, {@code none} (no safe meal in the group) or
+     *               {@code no_group} (the food type belongs to no group)
+     */
+    public void recordAlternativeSearch(String result) {
+        Counter.builder("matarpontun.orders.alternative.searches")
+                .description("Searches for a safe alternative meal")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts an incremental re-evaluation of an order after a diet change.
+     *
+     * @param updated whether the order had to be changed
+     */
+    public void recordReevaluation(boolean updated) {
+        Counter.builder("matarpontun.orders.reevaluations")
+                .description("Incremental order re-evaluations after diet changes")
+                .tag("result", updated ? "updated" : "unchanged")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Times building the kitchen summary.
+     */
+    public <T> T timeKitchenSummary(Supplier<T> work) {
+        return kitchenSummaryTimer.record(work);
+    }
+
+    /**
+     * Times re-checking the orders affected by a meal's ingredient change.
+     */
+    public <T> T timeMealImpact(Supplier<T> work) {
+        return mealImpactTimer.record(work);
+    }
+
+    /**
+     * Records how many repository methods one HTTP request invoked.
+     *
+     * @param method the HTTP method
+     * @param uri    the matched URI pattern, e.g. {@code /wards/{wardId}/rooms}
+     * @param calls  the number of repository invocations
+     */
+    public void recordRepositoryCalls(String method, String uri, int calls) {
+        DistributionSummary.builder("matarpontun.http.repository.calls")
+                .description("Repository invocations per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry)
+                .record(calls);
+    }
+}
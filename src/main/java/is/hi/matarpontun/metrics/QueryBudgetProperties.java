@@ -0,0 +1,31 @@
+package is.hi.matarpontun.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint SQL statement budgets, checked by {@link QueryCountFilter}.
+ *
+ * Keys are the HTTP method and the matched URI pattern. In a {@code .properties} file the
+ * space has to be escaped, since an unescaped one ends the key:
+ * <pre>
+ *   matarpontun.query-budget.limits[GET\ /wards/{wardId}/rooms]=6
+ * </pre>
+ */
+@ConfigurationProperties("matarpontun.query-budget")
+public class QueryBudgetProperties {
+
+    /** Whether requests over budget fail with 500 instead of only being logged. */
+    private boolean failOnExceed = false;
+
+    /** Maximum SQL statements per request, by "METHOD /uri/{pattern}". */
+    private Map<String, Integer> limits = new HashMap<>();
+
+    public boolean isFailOnExceed() { return failOnExceed; }
+    public void setFailOnExceed(boolean failOnExceed) { this.failOnExceed = failOnExceed; }
+
+    public Map<String, Integer> getLimits() { return limits; }
+    public void setLimits(Map<String, Integer> limits) { this.limits = limits; }
+}
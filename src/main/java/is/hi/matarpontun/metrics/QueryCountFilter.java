@@ -0,0 +1,88 @@
+package is.hi.matarpontun.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counts SQL statements, lazy loads and loaded entities per HTTP request and reports them in
+ * the {@code X-Query-Count}, {@code X-Lazy-Load-Count} and {@code X-Entity-Load-Count}
+ * response headers. Not active in the {@code prod} profile.
+ *
+ * Requests whose statement count exceeds their budget in {@link QueryBudgetProperties} are
+ * logged, or fail with 500 when {@code fail-on-exceed} is set (used by the load test to
+ * catch N+1 regressions).
+ *
+ * The response body is buffered so that the headers can still be set after the controller
+ * has written it. Streamed exports are skipped, since buffering them would defeat streaming.
+ */
+@Component
+@Profile("!prod")
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final QueryBudgetProperties budget;
+
+    public QueryCountFilter(QueryBudgetProperties budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/actuator") || uri.startsWith("/orders/export");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        QueryStats stats = QueryStats.start();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            QueryStats.stop();
+        }
+
+        wrapper.setHeader("X-Query-Count", String.valueOf(stats.statements()));
+        wrapper.setHeader("X-Lazy-Load-Count", String.valueOf(stats.lazyLoads()));
+        wrapper.setHeader("X-Entity-Load-Count", String.valueOf(stats.entityLoads()));
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            String endpoint = request.getMethod() + " " + pattern;
+            Integer limit = budget.getLimits().get(endpoint);
+            if (limit != null && stats.statements() > limit) {
+                log.warn("Query budget exceeded for {}: {} statements (budget {}), {} lazy loads, {} entities",
+                        endpoint, stats.statements(), limit, stats.lazyLoads(), stats.entityLoads());
+                if (budget.isFailOnExceed()) {
+                    wrapper.resetBuffer();
+                    wrapper.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    wrapper.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    wrapper.getOutputStream().write(("{\"error\":\"Query budget exceeded for " + endpoint + ": "
+                            + stats.statements() + " statements, budget " + limit + "\"}")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+}
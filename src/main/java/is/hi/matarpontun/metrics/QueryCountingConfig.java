@@ -0,0 +1,66 @@
+package is.hi.matarpontun.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Hooks {@link QueryStats} into Hibernate: a statement inspector counts every SQL statement,
+ * and event listeners count lazy initialisations and loaded entities.
+ */
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryCountingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingCustomizer() {
+        StatementInspector inspector = sql -> {
+            QueryStats.statementPrepared();
+            return sql;
+        };
+        IntegratorProvider integrators = () -> List.of(new QueryCountingIntegrator());
+
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+            properties.put("hibernate.integrator_provider", integrators);
+        };
+    }
+
+    /** Appends the counting listeners to Hibernate's default ones. */
+    static class QueryCountingIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+
+            // A lazy collection being initialised on first access
+            listeners.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> QueryStats.lazyLoaded());
+            // An uninitialised entity proxy (e.g. DailyOrder.breakfast) being loaded on first access
+            listeners.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+                if (loadType == LoadEventListener.IMMEDIATE_LOAD) QueryStats.lazyLoaded();
+            });
+            listeners.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> QueryStats.entityLoaded());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
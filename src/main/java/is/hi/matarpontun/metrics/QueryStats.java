@@ -0,0 +1,59 @@
+package is.hi.matarpontun.metrics;
+
+/**
+ * Per-thread counters of Hibernate activity, collected between {@link #start()} and
+ * {@link #stop()}; {@link QueryCountFilter} brackets every HTTP request with them.
+ *
+ * Outside a bracketed request (scheduled jobs, startup) nothing is counted.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int lazyLoads;
+    private int entityLoads;
+
+    private QueryStats() {
+    }
+
+    static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static void statementPrepared() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.statements++;
+    }
+
+    static void lazyLoaded() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.lazyLoads++;
+    }
+
+    static void entityLoaded() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.entityLoads++;
+    }
+
+    /** SQL statements sent to the database. */
+    public int statements() {
+        return statements;
+    }
+
+    /** Lazy collections and entity proxies initialised on access, the usual N+1 source. */
+    public int lazyLoads() {
+        return lazyLoads;
+    }
+
+    /** Entity instances materialised from result set rows. */
+    public int entityLoads() {
+        return entityLoads;
+    }
+}
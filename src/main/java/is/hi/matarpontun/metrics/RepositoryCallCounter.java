@@ -0,0 +1,35 @@
+package is.hi.matarpontun.metrics;
+
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+/**
+ * Counts Spring Data repository invocations made by the current thread.
+ *
+ * Counting is only active between {@link #start()} and {@link #stop()}, which
+ * {@link RepositoryCallMetricsFilter} calls around each HTTP request.
+ */
+public class RepositoryCallCounter implements RepositoryMethodInvocationListener {
+
+    private static final ThreadLocal<int[]> CALLS = new ThreadLocal<>();
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        int[] calls = CALLS.get();
+        if (calls != null) {
+            calls[0]++;
+        }
+    }
+
+    static void start() {
+        CALLS.set(new int[1]);
+    }
+
+    /**
+     * @return the number of invocations since {@link #start()}
+     */
+    static int stop() {
+        int[] calls = CALLS.get();
+        CALLS.remove();
+        return calls != null ? calls[0] : 0;
+    }
+}
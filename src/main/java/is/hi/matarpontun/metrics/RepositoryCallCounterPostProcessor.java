@@ -0,0 +1,23 @@
+package is.hi.matarpontun.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the {@link RepositoryCallCounter} with every repository factory before the
+ * repositories are created.
+ */
+@Component
+public class RepositoryCallCounterPostProcessor implements BeanPostProcessor {
+
+    private final RepositoryCallCounter counter = new RepositoryCallCounter();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(counter));
+        }
+        return bean;
+    }
+}
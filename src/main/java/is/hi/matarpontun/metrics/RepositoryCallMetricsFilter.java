@@ -0,0 +1,51 @@
+package is.hi.matarpontun.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the number of repository invocations per HTTP request, tagged with the matched
+ * URI pattern so that e.g. every {@code /wards/{wardId}/rooms} request ends up in one series.
+ */
+@Component
+public class RepositoryCallMetricsFilter extends OncePerRequestFilter {
+
+    private final OrderMetrics orderMetrics;
+
+    public RepositoryCallMetricsFilter(OrderMetrics orderMetrics) {
+        this.orderMetrics = orderMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RepositoryCallCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int calls = RepositoryCallCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            // Requests that matched no handler (404s) are not interesting here
+            if (pattern != null) {
+                orderMetrics.recordRepositoryCalls(request.getMethod(), pattern.toString(), calls);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package is.hi.matarpontun.migration;
+
+import is.hi.matarpontun.model.DailyOrderLine;
+import is.hi.matarpontun.model.MealSlot;
+import is.hi.matarpontun.model.MenuItem;
+import is.hi.matarpontun.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Data migrations that {@code spring.jpa.hibernate.ddl-auto=update} cannot do by itself:
+ * it creates new tables and columns but never moves data or drops old columns.
+ *
+ * Runs once Hibernate has updated the schema and before the web server accepts requests.
+ * Every step first checks whether it still has work to do, so running it on every start
+ * is safe, and each step runs in its own transaction.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+
+    // Slot -> the daily_orders column and menus column that held its meal before order lines
+    private static final Map<MealSlot, String[]> LEGACY_SLOT_COLUMNS = Map.of(
+            MealSlot.BREAKFAST, new String[] {"breakfast_meal_id", "breakfast_id"},
+            MealSlot.LUNCH, new String[] {"lunch_meal_id", "lunch_id"},
+            MealSlot.AFTERNOON_SNACK, new String[] {"afternoon_snack_meal_id", "afternoon_snack_id"},
+            MealSlot.DINNER, new String[] {"dinner_meal_id", "dinner_id"},
+            MealSlot.NIGHT_SNACK, new String[] {"night_snack_meal_id", "midnight_snack_id"});
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Order lines compare against the legacy menu columns, so they go first
+        migrateMealSlotsToOrderLines();
+        migrateMenuMealsToMenuItems();
+        backfillOrderWardAndRoom();
+        migrateOrderStatusToCode();
+        keyRollupsByWardId();
+        createManualChangeIndex();
+        createDietChangedIndex();
+        splitCommaSeparatedTerms("patient_restrictions", "restriction");
+        splitCommaSeparatedTerms("patient_allergies", "allergy");
+        createTermIndexes();
+        dropSupersededIndexes();
+    }
+
+    /**
+     * Moves the five meal columns of {@code daily_orders} into {@link DailyOrderLine} rows and
+     * drops the columns. Slots whose meal differs from the order's menu get a swap reason,
+     * since the original reason was never stored.
+     */
+    private void migrateMealSlotsToOrderLines() {
+        if (!columnExists("daily_orders", "breakfast_meal_id")) return;
+
+        int lines = transactionTemplate.execute(status -> {
+            int copied = 0;
+            for (Map.Entry<MealSlot, String[]> slot : LEGACY_SLOT_COLUMNS.entrySet()) {
+                String orderColumn = slot.getValue()[0];
+                String menuColumn = slot.getValue()[1];
+                copied += jdbcTemplate.update("""
+                        INSERT INTO daily_order_lines (order_id, slot, order_date, meal_id, swap_reason)
+                        SELECT o.id, ?, o.order_date, o.%1$s,
+                               CASE WHEN m.id IS NOT NULL AND o.%1$s IS DISTINCT FROM m.%2$s
+                                    THEN 'migrated: differs from menu' END
+                        FROM daily_orders o
+                        LEFT JOIN menus m ON m.id = o.menu_id
+                        WHERE o.%1$s IS NOT NULL
+                        ON CONFLICT (order_id, slot) DO NOTHING
+                        """.formatted(orderColumn, menuColumn), slot.getKey().name());
+            }
+            for (String[] columns : LEGACY_SLOT_COLUMNS.values()) {
+                jdbcTemplate.execute("ALTER TABLE daily_orders DROP COLUMN IF EXISTS " + columns[0]);
+            }
+            return copied;
+        });
+        log.info("Migrated daily order meal slots into {} order lines", lines);
+    }
+
+    /**
+     * Moves the five meal columns of {@code menus} into {@link MenuItem} rows and drops the
+     * columns, together with their unique constraints left over from the old one-to-one mapping.
+     */
+    private void migrateMenuMealsToMenuItems() {
+        if (!columnExists("menus", "breakfast_id")) return;
+
+        int items = transactionTemplate.execute(status -> {
+            int copied = 0;
+            for (Map.Entry<MealSlot, String[]> slot : LEGACY_SLOT_COLUMNS.entrySet()) {
+                copied += jdbcTemplate.update("""
+                        INSERT INTO menu_items (menu_id, slot, meal_id)
+                        SELECT m.id, ?, m.%1$s FROM menus m
+                        WHERE m.%1$s IS NOT NULL
+                        ON CONFLICT (menu_id, slot) DO NOTHING
+                        """.formatted(slot.getValue()[1]), slot.getKey().name());
+            }
+            for (String[] columns : LEGACY_SLOT_COLUMNS.values()) {
+                jdbcTemplate.execute("ALTER TABLE menus DROP COLUMN IF EXISTS " + columns[1]);
+            }
+            return copied;
+        });
+        log.info("Migrated menu meal slots into {} menu items", items);
+    }
+
+    /**
+     * Fills {@code ward_id} and {@code room_id} of orders placed before they existed, by
+     * matching the name snapshot against the current wards and rooms. Orders whose ward was
+     * renamed or deleted since keep only the snapshot.
+     */
+    private void backfillOrderWardAndRoom() {
+        Boolean pending = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM daily_orders o JOIN wards w ON w.ward_name = o.ward_name
+                               WHERE o.ward_id IS NULL)
+                """, Boolean.class);
+        if (!Boolean.TRUE.equals(pending)) return;
+
+        int[] updated = transactionTemplate.execute(status -> new int[] {
+                jdbcTemplate.update("""
+                        UPDATE daily_orders o SET ward_id = w.id
+                        FROM wards w
+                        WHERE o.ward_id IS NULL AND w.ward_name = o.ward_name
+                        """),
+                jdbcTemplate.update("""
+                        UPDATE daily_orders o SET room_id = r.id
+                        FROM rooms r
+                        WHERE o.room_id IS NULL AND r.ward_id = o.ward_id AND r.room_number = o.room_number
+                        """)
+        });
+        log.info("Backfilled the ward of {} and the room of {} daily orders", updated[0], updated[1]);
+    }
+
+    /**
+     * Converts the free-text {@code status} column of {@code daily_orders} into the
+     * {@link OrderStatus} code and drops it. Unknown texts become {@link OrderStatus#SUBMITTED}.
+     */
+    private void migrateOrderStatusToCode() {
+        if (!columnExists("daily_orders", "status")) return;
+
+        String toCode = Arrays.stream(OrderStatus.values())
+                .map(status -> "WHEN '" + status.getLabel() + "' THEN " + status.getCode())
+                .collect(Collectors.joining(" ", "CASE status ", " ELSE " + OrderStatus.SUBMITTED.getCode() + " END"));
+        int orders = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update("UPDATE daily_orders SET status_code = " + toCode);
+            jdbcTemplate.execute("ALTER TABLE daily_orders DROP COLUMN status");
+            return updated;
+        });
+        log.info("Migrated the status of {} daily orders to status codes", orders);
+    }
+
+    /**
+     * Moves {@code order_daily_rollups} from the ward's name to its id. The name column becomes
+     * optional and loses its unique constraint, and rollups of a ward that still exists under
+     * that name get its id instead. The rest keep the name, as the refresh does for orders
+     * without a ward.
+     */
+    private void keyRollupsByWardId() {
+        if (!columnExists("order_daily_rollups", "ward_id")) return;
+
+        List<String> nameConstraints = jdbcTemplate.queryForList("""
+                SELECT c.conname FROM pg_constraint c
+                WHERE c.conrelid = 'order_daily_rollups'::regclass AND c.contype = 'u'
+                  AND NOT EXISTS (SELECT 1 FROM pg_attribute a
+                                  WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+                                    AND a.attname = 'ward_id')
+                """, String.class);
+        Boolean pending = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM order_daily_rollups r JOIN wards w ON w.ward_name = r.ward_name
+                               WHERE r.ward_id IS NULL)
+                """, Boolean.class);
+        if (nameConstraints.isEmpty() && !Boolean.TRUE.equals(pending)) return;
+
+        int rollups = transactionTemplate.execute(status -> {
+            for (String constraint : nameConstraints) {
+                jdbcTemplate.execute("ALTER TABLE order_daily_rollups DROP CONSTRAINT " + constraint);
+            }
+            jdbcTemplate.execute("ALTER TABLE order_daily_rollups ALTER COLUMN ward_name DROP NOT NULL");
+            return jdbcTemplate.update("""
+                    UPDATE order_daily_rollups r SET ward_id = w.id, ward_name = NULL
+                    FROM wards w
+                    WHERE r.ward_id IS NULL AND w.ward_name = r.ward_name
+                    """);
+        });
+        log.info("Keyed {} order rollups by ward id", rollups);
+    }
+
+    /**
+     * Partial index for the dietitian worklist. JPA cannot declare partial indexes, and the
+     * queue is a small slice of all orders, so only those rows are indexed.
+     */
+    private void createManualChangeIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_daily_orders_needs_manual_change"
+                + " ON daily_orders (order_date, ward_id) WHERE status_code = "
+                + OrderStatus.NEEDS_MANUAL_CHANGE.getCode());
+    }
+
+    /**
+     * Partial index for the sweep of pending order re-evaluations: at any time only the few
+     * patients whose diet changed in the last seconds carry a marker.
+     */
+    private void createDietChangedIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patients_diet_changed"
+                + " ON patients (diet_changed_at) WHERE diet_changed_at IS NOT NULL");
+    }
+
+    /**
+     * Splits restriction or allergy rows holding a comma-separated list ("milk, eggs") into
+     * one row per term, as they are stored now.
+     */
+    private void splitCommaSeparatedTerms(String table, String column) {
+        Boolean pending = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + table + " WHERE " + column + " LIKE '%,%')", Boolean.class);
+        if (!Boolean.TRUE.equals(pending)) return;
+
+        int rows = transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update("""
+                    INSERT INTO %1$s (patient_id, %2$s)
+                    SELECT t.patient_id, trim(part)
+                    FROM %1$s t, unnest(string_to_array(t.%2$s, ',')) AS part
+                    WHERE t.%2$s LIKE '%%,%%' AND trim(part) <> ''
+                    """.formatted(table, column));
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE " + column + " LIKE '%,%'");
+            return inserted;
+        });
+        log.info("Split comma-separated entries of {} into {} rows", table, rows);
+    }
+
+    /**
+     * Case-insensitive term indexes for the restriction/allergy search. JPA cannot declare
+     * expression indexes.
+     */
+    private void createTermIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patient_restrictions_term"
+                + " ON patient_restrictions (lower(restriction))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_patient_allergies_term"
+                + " ON patient_allergies (lower(allergy))");
+    }
+
+    /**
+     * Drops indexes that a wider index now covers. Hibernate's schema update only ever adds
+     * indexes, so these would otherwise stay and slow down every order write.
+     */
+    private void dropSupersededIndexes() {
+        // Covered by idx_daily_order_lines_meal_date (meal_id, order_date)
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_daily_order_lines_meal");
+        // Replaced by idx_order_daily_rollups_ward_id_date (ward_id, rollup_date)
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_order_daily_rollups_ward_date");
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?
+                """, Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
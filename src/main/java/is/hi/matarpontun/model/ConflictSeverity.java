@@ -0,0 +1,14 @@
+package is.hi.matarpontun.model;
+
+/**
+ * How serious a meal conflict is.
+ *
+ * A restriction is a dietary rule (e.g. no pork, low sodium) while an allergy is a
+ * medical risk, so allergy conflicts always outrank restriction conflicts.
+ */
+public enum ConflictSeverity {
+    /** The meal breaks one of the patient's dietary restrictions. */
+    MODERATE,
+    /** The meal contains something the patient is allergic to. */
+    SEVERE
+}
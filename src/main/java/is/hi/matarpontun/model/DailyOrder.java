@@ -1,13 +1,22 @@
 package is.hi.matarpontun.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Entity
 @Table(
         name = "daily_orders",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"patient_id", "order_date"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"patient_id", "order_date"}),
+        indexes = {
+                @Index(name = "idx_daily_orders_order_date", columnList = "order_date"),
+                @Index(name = "idx_daily_orders_ward_date", columnList = "ward_id, order_date"),
+                @Index(name = "idx_daily_orders_room", columnList = "room_id")
+        }
 )
 public class DailyOrder {
 
@@ -18,7 +27,15 @@ public class DailyOrder {
     @Column(name = "order_date", nullable = false)
     private LocalDate orderDate;
 
-    private String status = "SUBMITTED";
+    // Optimistic lock: every update bumps it, the native upsert and bulk rewrites included,
+    // so saving a stale copy fails instead of silently overwriting a concurrent edit
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    private long version;
+
+    @Convert(converter = OrderStatusConverter.class)
+    @Column(name = "status_code", columnDefinition = "smallint not null default 0")
+    private OrderStatus status = OrderStatus.SUBMITTED;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
@@ -32,26 +49,24 @@ public class DailyOrder {
     @JoinColumn(name = "food_type_id")
     private FoodType foodType;
 
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "breakfast_meal_id")
-    private Meal breakfast;
-
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "lunch_meal_id")
-    private Meal lunch;
-
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "afternoon_snack_meal_id")
-    private Meal afternoonSnack;
+    // One line per slot that has a meal; see getMeal/setMeal
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @MapKey(name = "slot")
+    private Map<MealSlot, DailyOrderLine> lines = new EnumMap<>(MealSlot.class);
 
+    // Where the patient was when the order was placed. Deleting the ward or room keeps the
+    // order as history, so the database nulls the reference instead of refusing the delete.
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "dinner_meal_id")
-    private Meal dinner;
+    @JoinColumn(name = "ward_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Ward ward;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "night_snack_meal_id")
-    private Meal nightSnack;
+    @JoinColumn(name = "room_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Room room;
 
+    // Snapshot of the names at order time, for display once the ward or room is gone
     private String wardName;
     private String roomNumber;
 
@@ -71,23 +86,27 @@ public class DailyOrder {
         this.patient = patient;
         this.menu = menu;
         this.foodType = foodType;
-        this.breakfast = breakfast;
-        this.lunch = lunch;
-        this.afternoonSnack = afternoonSnack;
-        this.dinner = dinner;
-        this.nightSnack = nightSnack;
-        if (patient.getWard() != null) {
-            this.wardName = patient.getWard().getWardName();
-        }
-        if (patient.getRoom() != null) {
-            this.roomNumber = patient.getRoom().getRoomNumber();
-        }
+        setMeal(MealSlot.BREAKFAST, breakfast);
+        setMeal(MealSlot.LUNCH, lunch);
+        setMeal(MealSlot.AFTERNOON_SNACK, afternoonSnack);
+        setMeal(MealSlot.DINNER, dinner);
+        setMeal(MealSlot.NIGHT_SNACK, nightSnack);
+        setWard(patient.getWard());
+        setRoom(patient.getRoom());
     }
 
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -98,13 +117,14 @@ public class DailyOrder {
 
     public void setOrderDate(LocalDate orderDate) {
         this.orderDate = orderDate;
+        lines.values().forEach(line -> line.setOrderDate(orderDate));
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
@@ -133,43 +153,84 @@ public class DailyOrder {
     }
 
     public Meal getBreakfast() {
-        return breakfast;
+        return getMeal(MealSlot.BREAKFAST);
     }
 
-    public void setBreakfast(Meal breakfast) {
-        this.breakfast = breakfast;
+    public Meal getLunch() {
+        return getMeal(MealSlot.LUNCH);
     }
 
-    public Meal getLunch() {
-        return lunch;
+    public Meal getAfternoonSnack() {
+        return getMeal(MealSlot.AFTERNOON_SNACK);
     }
 
-    public void setLunch(Meal lunch) {
-        this.lunch = lunch;
+    public Meal getDinner() {
+        return getMeal(MealSlot.DINNER);
     }
 
-    public Meal getAfternoonSnack() {
-        return afternoonSnack;
+    public Meal getNightSnack() {
+        return getMeal(MealSlot.NIGHT_SNACK);
     }
 
-    public void setAfternoonSnack(Meal afternoonSnack) {
-        this.afternoonSnack = afternoonSnack;
+    public Map<MealSlot, DailyOrderLine> getLines() {
+        return lines;
     }
 
-    public Meal getDinner() {
-        return dinner;
+    public Meal getMeal(MealSlot slot) {
+        DailyOrderLine line = lines.get(slot);
+        return line != null ? line.getMeal() : null;
     }
 
-    public void setDinner(Meal dinner) {
-        this.dinner = dinner;
+    /**
+     * @return why the slot's meal replaced the planned one, or {@code null} if it did not
+     */
+    public String getSwapReason(MealSlot slot) {
+        DailyOrderLine line = lines.get(slot);
+        return line != null ? line.getSwapReason() : null;
     }
 
-    public Meal getNightSnack() {
-        return nightSnack;
+    /**
+     * Puts the planned meal in a slot, or empties the slot if {@code meal} is {@code null}.
+     */
+    public void setMeal(MealSlot slot, Meal meal) {
+        swapMeal(slot, meal, null);
+    }
+
+    /**
+     * Puts a replacement meal in a slot and records why the planned meal was replaced.
+     */
+    public void swapMeal(MealSlot slot, Meal meal, String reason) {
+        if (meal == null) {
+            lines.remove(slot);
+            return;
+        }
+        DailyOrderLine line = lines.get(slot);
+        if (line == null) {
+            lines.put(slot, new DailyOrderLine(this, slot, meal, reason));
+        } else {
+            line.setMeal(meal);
+            line.setSwapReason(reason);
+        }
+    }
+
+    public Ward getWard() {
+        return ward;
+    }
+
+    /** Sets the ward and the ward name snapshot. */
+    public void setWard(Ward ward) {
+        this.ward = ward;
+        this.wardName = ward != null ? ward.getWardName() : null;
+    }
+
+    public Room getRoom() {
+        return room;
     }
 
-    public void setNightSnack(Meal nightSnack) {
-        this.nightSnack = nightSnack;
+    /** Sets the room and the room number snapshot. */
+    public void setRoom(Room room) {
+        this.room = room;
+        this.roomNumber = room != null ? room.getRoomNumber() : null;
     }
 
     public String getWardName() {
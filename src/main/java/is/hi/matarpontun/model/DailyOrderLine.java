@@ -0,0 +1,99 @@
+package is.hi.matarpontun.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * One meal slot of a {@link DailyOrder}: which meal the patient gets in that slot and, if
+ * it is not the planned meal, why it was swapped.
+ *
+ * The order date is copied onto the line so that "all lines of a day", "who gets meal X"
+ * and per-slot kitchen counts are answered from the (order_date, slot, meal_id) index
+ * without touching {@code daily_orders}, and "which of today's and later orders serve meal X"
+ * from the (meal_id, order_date) index when a meal's ingredients change.
+ */
+@Entity
+@Table(
+        name = "daily_order_lines",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "slot"}),
+        indexes = {
+                @Index(name = "idx_daily_order_lines_date_slot_meal", columnList = "order_date, slot, meal_id"),
+                @Index(name = "idx_daily_order_lines_meal_date", columnList = "meal_id, order_date")
+        }
+)
+public class DailyOrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private DailyOrder order;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MealSlot slot;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "meal_id", nullable = false)
+    private Meal meal;
+
+    // null while the slot holds the planned meal
+    @Column(name = "swap_reason")
+    private String swapReason;
+
+    public DailyOrderLine() {
+    }
+
+    public DailyOrderLine(DailyOrder order, MealSlot slot, Meal meal, String swapReason) {
+        this.order = order;
+        this.slot = slot;
+        this.orderDate = order.getOrderDate();
+        this.meal = meal;
+        this.swapReason = swapReason;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public DailyOrder getOrder() {
+        return order;
+    }
+
+    public MealSlot getSlot() {
+        return slot;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public Meal getMeal() {
+        return meal;
+    }
+
+    public void setMeal(Meal meal) {
+        this.meal = meal;
+    }
+
+    public String getSwapReason() {
+        return swapReason;
+    }
+
+    public void setSwapReason(String swapReason) {
+        this.swapReason = swapReason;
+    }
+}
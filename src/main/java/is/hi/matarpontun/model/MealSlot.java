@@ -0,0 +1,26 @@
+package is.hi.matarpontun.model;
+
+/**
+ * The five meal slots of a hospital day, in serving order.
+ *
+ * Each slot carries the display name used in conflict reports (e.g. "Afternoon Snack")
+ * and the lower-case category key used when searching menus for alternatives.
+ */
+public enum MealSlot {
+    BREAKFAST("Breakfast", "breakfast"),
+    LUNCH("Lunch", "lunch"),
+    AFTERNOON_SNACK("Afternoon Snack", "afternoonsnack"),
+    DINNER("Dinner", "dinner"),
+    NIGHT_SNACK("Night Snack", "nightsnack");
+
+    private final String displayName;
+    private final String key;
+
+    MealSlot(String displayName, String key) {
+        this.displayName = displayName;
+        this.key = key;
+    }
+
+    public String getDisplayName() { return displayName; }
+    public String getKey() { return key; }
+}
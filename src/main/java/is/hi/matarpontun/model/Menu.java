@@ -3,11 +3,14 @@ package is.hi.matarpontun.model;
 import jakarta.persistence.*;
 
 import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Entity
 @Table( //Because there is only one menu per diet per day
         name = "menus",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"food_type_id", "date"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"food_type_id", "date"}),
+        indexes = @Index(name = "idx_menus_date_food_type", columnList = "date, food_type_id")
 )
 public class Menu {
 
@@ -21,25 +24,9 @@ public class Menu {
     @JoinColumn(name = "food_type_id")
     private FoodType foodType;
 
-    @OneToOne
-    @JoinColumn(name = "breakfast_id")
-    private Meal breakfast;
-
-    @OneToOne
-    @JoinColumn(name = "lunch_id")
-    private Meal lunch;
-
-    @OneToOne
-    @JoinColumn(name = "afternoon_snack_id")
-    private Meal afternoonSnack;
-
-    @OneToOne
-    @JoinColumn(name = "dinner_id")
-    private Meal dinner;
-
-    @OneToOne
-    @JoinColumn(name = "midnight_snack_id")
-    private Meal nightSnack;
+    @OneToMany(mappedBy = "menu", cascade = CascadeType.ALL, orphanRemoval = true)
+    @MapKey(name = "slot")
+    private Map<MealSlot, MenuItem> items = new EnumMap<>(MealSlot.class);
 
     public Menu() {}
 
@@ -57,38 +44,38 @@ public class Menu {
     }
 
     public Meal getBreakfast() {
-        return breakfast;
+        return getMeal(MealSlot.BREAKFAST);
     }
     public void setBreakfast(Meal breakfast) {
-        this.breakfast = breakfast;
+        setMeal(MealSlot.BREAKFAST, breakfast);
     }
 
     public Meal getLunch() {
-        return lunch;
+        return getMeal(MealSlot.LUNCH);
     }
     public void setLunch(Meal lunch) {
-        this.lunch = lunch;
+        setMeal(MealSlot.LUNCH, lunch);
     }
 
     public Meal getAfternoonSnack() {
-        return afternoonSnack;
+        return getMeal(MealSlot.AFTERNOON_SNACK);
     }
     public void setAfternoonSnack(Meal afternoonSnack) {
-        this.afternoonSnack = afternoonSnack;
+        setMeal(MealSlot.AFTERNOON_SNACK, afternoonSnack);
     }
 
     public Meal getDinner() {
-        return dinner;
+        return getMeal(MealSlot.DINNER);
     }
     public void setDinner(Meal dinner) {
-        this.dinner = dinner;
+        setMeal(MealSlot.DINNER, dinner);
     }
 
     public Meal getNightSnack() {
-        return nightSnack;
+        return getMeal(MealSlot.NIGHT_SNACK);
     }
     public void setNightSnack(Meal nightSnack) {
-        this.nightSnack = nightSnack;
+        setMeal(MealSlot.NIGHT_SNACK, nightSnack);
     }
 
     public LocalDate getDate() {
@@ -105,13 +92,36 @@ public class Menu {
         this.foodType = foodType;
     }
 
+    public Meal getMeal(MealSlot slot) {
+        MenuItem item = items.get(slot);
+        return item != null ? item.getMeal() : null;
+    }
+
+    /** Plans {@code meal} for the slot, or clears the slot when {@code meal} is null. */
+    public void setMeal(MealSlot slot, Meal meal) {
+        if (meal == null) {
+            items.remove(slot);
+            return;
+        }
+        MenuItem item = items.get(slot);
+        if (item != null) {
+            item.setMeal(meal);
+        } else {
+            items.put(slot, new MenuItem(this, slot, meal));
+        }
+    }
+
+    public Map<MealSlot, MenuItem> getItems() {
+        return items;
+    }
+
     public Meal getMealByCategory(String category) {
         return switch (category.toLowerCase()) {
-            case "breakfast" -> breakfast;
-            case "lunch" -> lunch;
-            case "afternoon" -> afternoonSnack;
-            case "dinner" -> dinner;
-            case "night" -> nightSnack;
+            case "breakfast" -> getMeal(MealSlot.BREAKFAST);
+            case "lunch" -> getMeal(MealSlot.LUNCH);
+            case "afternoon" -> getMeal(MealSlot.AFTERNOON_SNACK);
+            case "dinner" -> getMeal(MealSlot.DINNER);
+            case "night" -> getMeal(MealSlot.NIGHT_SNACK);
             default -> null;
         };
     }
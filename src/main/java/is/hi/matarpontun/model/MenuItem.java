@@ -0,0 +1,66 @@
+package is.hi.matarpontun.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One meal slot of a {@link Menu}: the meal planned for that slot.
+ *
+ * The same meal is planned on many menus, so "which menus use meal X" is answered from the
+ * meal_id index instead of loading every menu.
+ */
+@Entity
+@Table(
+        name = "menu_items",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"menu_id", "slot"}),
+        indexes = @Index(name = "idx_menu_items_meal", columnList = "meal_id")
+)
+public class MenuItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "menu_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Menu menu;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MealSlot slot;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "meal_id", nullable = false)
+    private Meal meal;
+
+    public MenuItem() {
+    }
+
+    public MenuItem(Menu menu, MealSlot slot, Meal meal) {
+        this.menu = menu;
+        this.slot = slot;
+        this.meal = meal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Menu getMenu() {
+        return menu;
+    }
+
+    public MealSlot getSlot() {
+        return slot;
+    }
+
+    public Meal getMeal() {
+        return meal;
+    }
+
+    public void setMeal(Meal meal) {
+        this.meal = meal;
+    }
+}
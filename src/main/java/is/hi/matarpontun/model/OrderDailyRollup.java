@@ -0,0 +1,98 @@
+package is.hi.matarpontun.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated order counts for one day, ward, food type and status.
+ *
+ * Rows are derived from {@code daily_orders} by
+ * {@link is.hi.matarpontun.service.OrderRollupService} and can be rebuilt for any date
+ * range at any time, so the table never holds anything that cannot be recomputed.
+ *
+ * Rows are keyed by the ward's id and read with its current name, so renaming a ward keeps
+ * its history together.
+ */
+@Entity
+@Table(
+        name = "order_daily_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"rollup_date", "ward_id", "ward_name", "food_type", "status"}),
+        indexes = @Index(name = "idx_order_daily_rollups_ward_id_date", columnList = "ward_id, rollup_date")
+)
+public class OrderDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    // No foreign key: the history outlives the ward
+    @Column(name = "ward_id")
+    private Long wardId;
+
+    // Only for orders without a ward, e.g. placed before orders referenced their ward and
+    // whose ward was renamed or deleted since: the name the order was placed under
+    @Column(name = "ward_name")
+    private String wardName;
+
+    @Column(name = "food_type", nullable = false)
+    private String foodType;
+
+    @Column(nullable = false)
+    private String status;
+
+    // Number of orders in the group
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    // Meal slots in those orders whose planned meal was swapped for another
+    @Column(name = "swapped_slots", nullable = false)
+    private long swappedSlots;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    public OrderDailyRollup() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public Long getWardId() {
+        return wardId;
+    }
+
+    public String getWardName() {
+        return wardName;
+    }
+
+    public String getFoodType() {
+        return foodType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getSwappedSlots() {
+        return swappedSlots;
+    }
+
+    public LocalDateTime getRefreshedAt() {
+        return refreshedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package is.hi.matarpontun.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of restriction checking for a {@link DailyOrder}.
+ *
+ * Each status carries the label shown in the API and the reports (e.g. "NEEDS MANUAL
+ * CHANGE") and the code stored in {@code daily_orders.status_code}. JSON uses the label.
+ * Codes are persisted, so existing ones must never be renumbered.
+ */
+public enum OrderStatus {
+    SUBMITTED(0, "SUBMITTED"),
+    AUTO_CHANGED(1, "AUTO CHANGED"),
+    NEEDS_MANUAL_CHANGE(2, "NEEDS MANUAL CHANGE");
+
+    private final short code;
+    private final String label;
+
+    OrderStatus(int code, String label) {
+        this.code = (short) code;
+        this.label = label;
+    }
+
+    public short getCode() { return code; }
+    @JsonValue
+    public String getLabel() { return label; }
+
+    public static OrderStatus fromCode(short code) {
+        return Arrays.stream(values())
+                .filter(status -> status.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order status code: " + code));
+    }
+
+    /**
+     * Parses a status as clients send it: either the label ("AUTO CHANGED") or the
+     * constant name ("AUTO_CHANGED"), in any case.
+     *
+     * @throws IllegalArgumentException if it is neither
+     */
+    public static OrderStatus fromLabel(String label) {
+        return Arrays.stream(values())
+                .filter(status -> status.label.equalsIgnoreCase(label) || status.name().equalsIgnoreCase(label))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order status: '" + label + "'"));
+    }
+}
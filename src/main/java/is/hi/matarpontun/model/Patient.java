@@ -2,7 +2,9 @@ package is.hi.matarpontun.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +24,12 @@ public class Patient {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long patientID;
 
+    // Optimistic lock: bumped by every change, including edits of the restriction and allergy
+    // lists, so concurrent edits of the same patient cannot overwrite each other
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    private long version;
+
     private String name;
     private int age;
     private int bedNumber;
@@ -43,11 +51,15 @@ public class Patient {
     @JsonBackReference("room-patients")
     private Room room;
 
+    // Both term lists are loaded for up to 50 patients at a time when a ward's patients
+    // are checked one by one
     @ElementCollection
     @CollectionTable(
             name = "patient_allergies",
-            joinColumns = @JoinColumn(name = "patient_id")
+            joinColumns = @JoinColumn(name = "patient_id"),
+            indexes = @Index(name = "idx_patient_allergies_patient", columnList = "patient_id")
     )
+    @BatchSize(size = 50)
     @Column(name = "allergy")
     private List<String> allergies = new ArrayList<>();
 
@@ -61,11 +73,24 @@ public class Patient {
     @ElementCollection
     @CollectionTable(
             name = "patient_restrictions",
-            joinColumns = @JoinColumn(name = "patient_id")
+            joinColumns = @JoinColumn(name = "patient_id"),
+            indexes = @Index(name = "idx_patient_restrictions_patient", columnList = "patient_id")
     )
+    @BatchSize(size = 50)
     @Column(name = "restriction")
     private List<String> restriction = new ArrayList<>();
 
+    // Set when the restrictions or allergies change and cleared once today's order has been
+    // re-evaluated, so pending re-evaluations survive a restart and are shared by every
+    // instance. Written only with update statements (see PatientRepository#markDietChanged),
+    // never by saving the patient.
+    @Column(name = "diet_changed_at", insertable = false, updatable = false)
+    private Instant dietChangedAt;
+
+    // Correlation id of the request that made the latest diet change, for the deferred re-evaluation's logs
+    @Column(name = "diet_change_correlation_id", insertable = false, updatable = false)
+    private String dietChangeCorrelationId;
+
     public Patient() {}
 
     public Patient(String name, int age, int bedNumber, Ward ward) {
@@ -88,6 +113,16 @@ public class Patient {
     public Long getPatientID() {
         return patientID;
     }
+
+    public long getVersion() {
+        return version;
+    }
+    public Instant getDietChangedAt() {
+        return dietChangedAt;
+    }
+    public String getDietChangeCorrelationId() {
+        return dietChangeCorrelationId;
+    }
     public void setPatientID(Long patientID) {
         this.patientID = patientID;
     }
@@ -1,29 +1,180 @@
 package is.hi.matarpontun.repository;
 
+import is.hi.matarpontun.dto.DailyOrderSummaryDTO;
+import is.hi.matarpontun.dto.KitchenMealCountDTO;
+import is.hi.matarpontun.dto.OrderExportRowDTO;
+import is.hi.matarpontun.dto.OrderVersionDTO;
+import is.hi.matarpontun.dto.WardMealCountDTO;
+import is.hi.matarpontun.dto.WorklistEntryDTO;
 import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.OrderStatus;
 import is.hi.matarpontun.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DailyOrderRepository extends JpaRepository<DailyOrder, Long> {
+public interface DailyOrderRepository extends JpaRepository<DailyOrder, Long>, DailyOrderRepositoryCustom {
+    // Pivots the lines of order o back into one meal per slot: b, l, a, d and n
+    String SLOT_MEAL_JOINS = """
+            LEFT JOIN DailyOrderLine bl ON bl.order = o AND bl.slot = is.hi.matarpontun.model.MealSlot.BREAKFAST
+            LEFT JOIN bl.meal b
+            LEFT JOIN DailyOrderLine ll ON ll.order = o AND ll.slot = is.hi.matarpontun.model.MealSlot.LUNCH
+            LEFT JOIN ll.meal l
+            LEFT JOIN DailyOrderLine al ON al.order = o AND al.slot = is.hi.matarpontun.model.MealSlot.AFTERNOON_SNACK
+            LEFT JOIN al.meal a
+            LEFT JOIN DailyOrderLine dl ON dl.order = o AND dl.slot = is.hi.matarpontun.model.MealSlot.DINNER
+            LEFT JOIN dl.meal d
+            LEFT JOIN DailyOrderLine nl ON nl.order = o AND nl.slot = is.hi.matarpontun.model.MealSlot.NIGHT_SNACK
+            LEFT JOIN nl.meal n
+            """;
+
     Optional<DailyOrder> findByPatientAndOrderDate(Patient patient, LocalDate orderDate);
 
-    // UC10 filters
     List<DailyOrder> findAllByPatient(Patient patient);
-    List<DailyOrder> findByOrderDate(LocalDate orderDate);
-    List<DailyOrder> findByFoodType_TypeName(String typeName);
-    List<DailyOrder> findByOrderDateAndFoodType_TypeName(LocalDate orderDate, String typeName);
-    List<DailyOrder> findByWardName(String wardName);
-    List<DailyOrder> findByWardNameAndOrderDate(String wardName, LocalDate orderDate);
-    List<DailyOrder> findByWardNameAndFoodType_TypeName(String wardName, String foodType);
-    List<DailyOrder> findByWardNameAndOrderDateAndFoodType_TypeName(String wardName, LocalDate orderDate, String foodType);
-    List<DailyOrder> findByWardNameAndStatus(String wardName, String status);
-    List<DailyOrder> findByWardNameAndOrderDateAndStatus(String wardName, LocalDate orderDate, String status);
-    List<DailyOrder> findByWardNameAndFoodType_TypeNameAndStatus(String wardName, String foodType, String status);
-    List<DailyOrder> findByWardNameAndOrderDateAndFoodType_TypeNameAndStatus(String wardName, LocalDate orderDate, String foodType, String status);
-}
\ No newline at end of file
+
+    // The versions the native upsert expects to overwrite (see DailyOrderRepositoryCustom#upsertAll)
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.OrderVersionDTO(o.patient.patientID, o.version)
+            FROM DailyOrder o
+            WHERE o.patient.patientID IN :patientIds AND o.orderDate = :orderDate
+            """)
+    List<OrderVersionDTO> findVersions(Collection<Long> patientIds, LocalDate orderDate);
+
+    // Current ward and room names, falling back to the snapshot taken when the order was placed
+    String WARD_AND_ROOM_JOINS = """
+            LEFT JOIN o.ward w
+            LEFT JOIN o.room r
+            """;
+
+    // UC10 read model: every filter is optional, patient and food type names are joined in.
+    // The JDBC driver sends dates untyped, so a date is cast before its IS NULL check.
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.DailyOrderSummaryDTO(o.id, o.orderDate,
+                    COALESCE(w.wardName, o.wardName), COALESCE(r.roomNumber, o.roomNumber),
+                    COALESCE(p.name, 'Unknown'), COALESCE(ft.typeName, 'N/A'), o.status)
+            FROM DailyOrder o
+            LEFT JOIN o.patient p
+            LEFT JOIN o.foodType ft
+            """ + WARD_AND_ROOM_JOINS + """
+            WHERE (:wardId IS NULL OR o.ward.id = :wardId)
+              AND (CAST(:orderDate AS LocalDate) IS NULL OR o.orderDate = :orderDate)
+              AND (:foodType IS NULL OR ft.typeName = :foodType)
+              AND (:status IS NULL OR o.status = :status)
+            ORDER BY o.orderDate, o.roomNumber, o.id
+            """)
+    List<DailyOrderSummaryDTO> findSummaries(Long wardId, LocalDate orderDate, String foodType, OrderStatus status);
+
+    // Dietitian worklist: the day's orders that need a manual change, hospital-wide. The status
+    // is a literal so PostgreSQL can use the partial index on status_code (see SchemaMigration).
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.WorklistEntryDTO(o.id, o.orderDate, o.ward.id,
+                    COALESCE(w.wardName, o.wardName), COALESCE(r.roomNumber, o.roomNumber),
+                    p.patientID, p.name, ft.typeName)
+            FROM DailyOrder o
+            LEFT JOIN o.patient p
+            LEFT JOIN o.foodType ft
+            """ + WARD_AND_ROOM_JOINS + """
+            WHERE o.status = is.hi.matarpontun.model.OrderStatus.NEEDS_MANUAL_CHANGE
+              AND o.orderDate = :orderDate
+            ORDER BY COALESCE(w.wardName, o.wardName), COALESCE(r.roomNumber, o.roomNumber), o.id
+            """)
+    List<WorklistEntryDTO> findManualChangeWorklist(LocalDate orderDate);
+
+    // Reverse index for meal changes: orders from the given day on that serve the meal, or whose
+    // menu plans it in a slot that was swapped away. Patient, lines and their meals are fetched
+    // in the same query so the caller can re-check them without loading anything per order.
+    @Query("""
+            SELECT DISTINCT o FROM DailyOrder o
+            JOIN FETCH o.patient
+            LEFT JOIN FETCH o.lines l
+            LEFT JOIN FETCH l.meal
+            WHERE o.orderDate >= :fromDate
+              AND (o.id IN (SELECT x.order.id FROM DailyOrderLine x
+                            WHERE x.meal.id = :mealId AND x.orderDate >= :fromDate)
+                   OR o.menu.id IN (SELECT i.menu.id FROM MenuItem i WHERE i.meal.id = :mealId))
+            """)
+    List<DailyOrder> findOrdersAffectedByMeal(Long mealId, LocalDate fromDate);
+
+    // The orders among the given ids that can conflict at all, i.e. whose patient has a
+    // restriction or allergy, fetched ready to be re-checked
+    @Query("""
+            SELECT DISTINCT o FROM DailyOrder o
+            JOIN FETCH o.patient p
+            LEFT JOIN FETCH o.lines l
+            LEFT JOIN FETCH l.meal
+            WHERE o.id IN :orderIds
+              AND (p.restriction IS NOT EMPTY OR p.allergies IS NOT EMPTY)
+            """)
+    List<DailyOrder> findRestrictedOrdersByIds(Collection<Long> orderIds);
+
+    // Lines go with their orders through the ON DELETE CASCADE foreign key
+    @Modifying
+    @Query("DELETE FROM DailyOrder o WHERE o.patient.patientID IN :patientIds AND o.orderDate = :orderDate")
+    int deleteByPatientIdsAndOrderDate(Collection<Long> patientIds, LocalDate orderDate);
+
+    // Kitchen read model: meals per ward, slot and food type, counted from the order lines
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.KitchenMealCountDTO(COALESCE(w.wardName, o.wardName), l.slot,
+                    ft.typeName, COUNT(l))
+            FROM DailyOrderLine l
+            JOIN l.order o
+            LEFT JOIN o.ward w
+            JOIN l.meal m
+            JOIN m.foodType ft
+            WHERE l.orderDate = :orderDate
+            GROUP BY COALESCE(w.wardName, o.wardName), l.slot, ft.typeName
+            """)
+    List<KitchenMealCountDTO> countKitchenMealsByOrderDate(LocalDate orderDate);
+
+    long countByOrderDate(LocalDate orderDate);
+
+    long countByOrderDateBetween(LocalDate from, LocalDate to);
+
+    // Ingredient rollup: portions of every meal per ward, counted from the order lines
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.WardMealCountDTO(COALESCE(w.wardName, o.wardName), l.meal.id, COUNT(l))
+            FROM DailyOrderLine l
+            JOIN l.order o
+            LEFT JOIN o.ward w
+            WHERE l.orderDate BETWEEN :from AND :to
+            GROUP BY COALESCE(w.wardName, o.wardName), l.meal.id
+            """)
+    List<WardMealCountDTO> countMealsByWardAndOrderDateRange(LocalDate from, LocalDate to);
+
+    // Order history export: streamed through a server-side cursor (needs a transaction),
+    // so only one fetch of rows is in memory at a time. Dates are cast like in findSummaries.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.OrderExportRowDTO(o.id, o.orderDate,
+                    COALESCE(w.wardName, o.wardName), COALESCE(r.roomNumber, o.roomNumber),
+                    p.patientID, p.name, ft.typeName, o.status,
+                    b.name, l.name, a.name, d.name, n.name)
+            FROM DailyOrder o
+            LEFT JOIN o.patient p
+            LEFT JOIN o.foodType ft
+            """ + WARD_AND_ROOM_JOINS + SLOT_MEAL_JOINS + """
+            WHERE (CAST(:from AS LocalDate) IS NULL OR o.orderDate >= :from)
+              AND (CAST(:to AS LocalDate) IS NULL OR o.orderDate <= :to)
+              AND (:wardId IS NULL OR o.ward.id = :wardId)
+              AND (:foodType IS NULL OR ft.typeName = :foodType)
+              AND (:status IS NULL OR o.status = :status)
+            ORDER BY o.orderDate, o.ward.id, o.roomNumber, o.id
+            """)
+    Stream<OrderExportRowDTO> streamForExport(LocalDate from, LocalDate to, Long wardId, String foodType,
+            OrderStatus status);
+}
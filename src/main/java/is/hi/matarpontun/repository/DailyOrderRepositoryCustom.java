@@ -0,0 +1,64 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.dto.MenuChangeDiffDTO;
+import is.hi.matarpontun.model.DailyOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom {@link DailyOrder} persistence operations that Spring Data cannot derive.
+ */
+public interface DailyOrderRepositoryCustom {
+
+    /**
+     * Inserts the order, or overwrites the existing order for the same patient and date,
+     * with a single {@code INSERT ... ON CONFLICT (patient_id, order_date) DO UPDATE}
+     * statement, then replaces its meal lines with one multi-row insert. The order's
+     * version is the version of the stored order it replaces (0 if there is none): the
+     * existing row is only overwritten while it still has that version, and then gets a new
+     * one, so concurrent holders of the old order fail on save.
+     *
+     * @param order the fully computed order (meals already swapped, status set)
+     * @return the id of the inserted or updated row
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the stored
+     *         order was changed since its version was read
+     */
+    Long upsert(DailyOrder order);
+
+    /**
+     * Batched form of {@link #upsert(DailyOrder)}: the orders and then all their lines are
+     * written with multi-row statements, a few hundred rows at a time.
+     *
+     * @param orders fully computed orders, at most one per patient and date
+     * @return the id of each written order, keyed by patient id
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if any of the
+     *         stored orders was changed since its version was read
+     */
+    Map<Long, Long> upsertAll(List<DailyOrder> orders);
+
+    /**
+     * Compares the lines of a food type's orders on a date with a menu, slot by slot, for
+     * the orders that are not on that menu yet.
+     *
+     * @param foodTypeId the food type
+     * @param menuId     the food type's new menu of the day
+     * @param orderDate  the order date
+     * @return per slot and meal pair, how many orders would change
+     */
+    List<MenuChangeDiffDTO> diffOrdersAgainstMenu(Long foodTypeId, Long menuId, LocalDate orderDate);
+
+    /**
+     * Moves a food type's orders on a date to a menu with set-based statements: their lines
+     * are rewritten to the menu's meals (swap reasons cleared) and the orders are marked
+     * submitted. Conflict checks are left to the caller. The persistence context is cleared,
+     * since loaded orders and lines no longer match the database.
+     *
+     * @param foodTypeId the food type
+     * @param menuId     the food type's new menu of the day
+     * @param orderDate  the order date
+     * @return the ids of the orders that were moved
+     */
+    List<Long> rewriteOrdersToMenu(Long foodTypeId, Long menuId, LocalDate orderDate);
+}
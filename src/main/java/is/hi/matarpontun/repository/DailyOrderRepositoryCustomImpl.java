@@ -0,0 +1,244 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.dto.MenuChangeDiffDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.DailyOrderLine;
+import is.hi.matarpontun.model.MealSlot;
+import is.hi.matarpontun.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Native-SQL implementation of {@link DailyOrderRepositoryCustom}.
+ */
+public class DailyOrderRepositoryCustomImpl implements DailyOrderRepositoryCustom {
+
+    // Rows per multi-row statement, well below PostgreSQL's limit of 32767 bind parameters
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    // The version inserted is the one the caller expects to overwrite: a row that has moved on
+    // since fails the WHERE and is left out of RETURNING
+    private static final String UPSERT_SQL = """
+            INSERT INTO daily_orders (order_date, version, status_code, patient_id, menu_id, food_type_id,
+                    ward_id, room_id, ward_name, room_number)
+            VALUES %s
+            ON CONFLICT (patient_id, order_date) DO UPDATE SET
+                    version = daily_orders.version + 1,
+                    status_code = EXCLUDED.status_code,
+                    menu_id = EXCLUDED.menu_id,
+                    food_type_id = EXCLUDED.food_type_id,
+                    ward_id = EXCLUDED.ward_id,
+                    room_id = EXCLUDED.room_id,
+                    ward_name = EXCLUDED.ward_name,
+                    room_number = EXCLUDED.room_number
+            WHERE daily_orders.version = EXCLUDED.version
+            RETURNING patient_id, id
+            """;
+
+    // Nullable parameters are cast explicitly so PostgreSQL can type untyped NULL binds
+    private static final String ORDER_VALUES_SQL = """
+            (:orderDate%1$d, :version%1$d, :statusCode%1$d, :patientId%1$d, CAST(:menuId%1$d AS bigint),
+                    CAST(:foodTypeId%1$d AS bigint), CAST(:wardId%1$d AS bigint), CAST(:roomId%1$d AS bigint),
+                    CAST(:wardName%1$d AS varchar), CAST(:roomNumber%1$d AS varchar))""";
+
+    private static final String DELETE_LINES_SQL = """
+            DELETE FROM daily_order_lines WHERE order_id IN (:orderIds)
+            """;
+
+    private static final String INSERT_LINES_SQL = """
+            INSERT INTO daily_order_lines (order_id, slot, order_date, meal_id, swap_reason) VALUES
+            """;
+
+    private static final String LINE_VALUES_SQL =
+            "(:orderId%1$d, :slot%1$d, :orderDate%1$d, :meal%1$d, CAST(:reason%1$d AS varchar))";
+
+    // The orders of a food type and day that are not on the given menu yet
+    private static final String MOVED_ORDERS =
+            "o.food_type_id = :foodTypeId AND o.order_date = :orderDate AND o.menu_id IS DISTINCT FROM :menuId";
+
+    // Changed and removed slots come from the lines, slots the old menu did not fill from the menu
+    private static final String DIFF_SQL = """
+            SELECT ft.type_name, d.slot, pm.name, nm.name, COUNT(*)
+            FROM (
+                SELECT o.food_type_id, l.slot, l.meal_id AS previous_meal_id, mi.meal_id AS new_meal_id
+                FROM daily_orders o
+                JOIN daily_order_lines l ON l.order_id = o.id
+                LEFT JOIN menu_items mi ON mi.menu_id = :menuId AND mi.slot = l.slot
+                WHERE %1$s AND l.meal_id IS DISTINCT FROM mi.meal_id
+                UNION ALL
+                SELECT o.food_type_id, mi.slot, NULL, mi.meal_id
+                FROM daily_orders o
+                JOIN menu_items mi ON mi.menu_id = :menuId
+                WHERE %1$s
+                  AND NOT EXISTS (SELECT 1 FROM daily_order_lines l WHERE l.order_id = o.id AND l.slot = mi.slot)
+            ) d
+            JOIN food_types ft ON ft.id = d.food_type_id
+            LEFT JOIN meals pm ON pm.id = d.previous_meal_id
+            LEFT JOIN meals nm ON nm.id = d.new_meal_id
+            GROUP BY ft.type_name, d.slot, pm.name, nm.name
+            ORDER BY d.slot, pm.name
+            """.formatted(MOVED_ORDERS);
+
+    private static final String DELETE_STALE_LINES_SQL = """
+            DELETE FROM daily_order_lines l
+            USING daily_orders o
+            WHERE l.order_id = o.id AND %s
+              AND NOT EXISTS (SELECT 1 FROM menu_items mi WHERE mi.menu_id = :menuId AND mi.slot = l.slot)
+            """.formatted(MOVED_ORDERS);
+
+    private static final String REWRITE_LINES_SQL = """
+            UPDATE daily_order_lines l SET meal_id = mi.meal_id, swap_reason = NULL
+            FROM daily_orders o, menu_items mi
+            WHERE l.order_id = o.id AND %s
+              AND mi.menu_id = :menuId AND mi.slot = l.slot
+              AND (l.meal_id <> mi.meal_id OR l.swap_reason IS NOT NULL)
+            """.formatted(MOVED_ORDERS);
+
+    private static final String INSERT_MISSING_LINES_SQL = """
+            INSERT INTO daily_order_lines (order_id, slot, order_date, meal_id, swap_reason)
+            SELECT o.id, mi.slot, o.order_date, mi.meal_id, NULL
+            FROM daily_orders o
+            JOIN menu_items mi ON mi.menu_id = :menuId
+            WHERE %s
+              AND NOT EXISTS (SELECT 1 FROM daily_order_lines l WHERE l.order_id = o.id AND l.slot = mi.slot)
+            """.formatted(MOVED_ORDERS);
+
+    // Runs last, since the statements above find the orders by their old menu
+    private static final String MOVE_ORDERS_SQL = """
+            UPDATE daily_orders o SET menu_id = :menuId, status_code = :statusCode, version = o.version + 1
+            WHERE %s
+            RETURNING o.id
+            """.formatted(MOVED_ORDERS);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Long upsert(DailyOrder order) {
+        return upsertAll(List.of(order)).get(order.getPatient().getPatientID());
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, Long> upsertAll(List<DailyOrder> orders) {
+        Map<Long, Long> orderIds = new HashMap<>();
+        for (int from = 0; from < orders.size(); from += ROWS_PER_STATEMENT) {
+            List<DailyOrder> chunk = orders.subList(from, Math.min(from + ROWS_PER_STATEMENT, orders.size()));
+            StringJoiner values = new StringJoiner(", ");
+            for (int i = 0; i < chunk.size(); i++) {
+                values.add(String.format(ORDER_VALUES_SQL, i));
+            }
+            Query upsert = entityManager.createNativeQuery(String.format(UPSERT_SQL, values));
+            for (int i = 0; i < chunk.size(); i++) {
+                DailyOrder order = chunk.get(i);
+                upsert.setParameter("orderDate" + i, order.getOrderDate())
+                        .setParameter("version" + i, order.getVersion())
+                        .setParameter("statusCode" + i, order.getStatus().getCode())
+                        .setParameter("patientId" + i, order.getPatient().getPatientID())
+                        .setParameter("menuId" + i, order.getMenu() != null ? order.getMenu().getId() : null)
+                        .setParameter("foodTypeId" + i, order.getFoodType() != null ? order.getFoodType().getId() : null)
+                        .setParameter("wardId" + i, order.getWard() != null ? order.getWard().getId() : null)
+                        .setParameter("roomId" + i, order.getRoom() != null ? order.getRoom().getId() : null)
+                        .setParameter("wardName" + i, order.getWardName())
+                        .setParameter("roomNumber" + i, order.getRoomNumber());
+            }
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = upsert.getResultList();
+            for (Object[] row : rows) {
+                orderIds.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+            if (rows.size() < chunk.size()) {
+                List<Long> stale = chunk.stream()
+                        .map(order -> order.getPatient().getPatientID())
+                        .filter(patientId -> !orderIds.containsKey(patientId))
+                        .toList();
+                throw new ObjectOptimisticLockingFailureException(
+                        "Orders of patients " + stale + " were changed concurrently", null);
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return orderIds;
+        }
+
+        // Replace the orders' lines, many slots per multi-row insert
+        entityManager.createNativeQuery(DELETE_LINES_SQL)
+                .setParameter("orderIds", orderIds.values())
+                .executeUpdate();
+        List<DailyOrderLine> lines = new ArrayList<>();
+        for (DailyOrder order : orders) {
+            lines.addAll(order.getLines().values());
+        }
+        for (int from = 0; from < lines.size(); from += ROWS_PER_STATEMENT) {
+            List<DailyOrderLine> chunk = lines.subList(from, Math.min(from + ROWS_PER_STATEMENT, lines.size()));
+            StringJoiner values = new StringJoiner(", ", INSERT_LINES_SQL, "");
+            for (int i = 0; i < chunk.size(); i++) {
+                values.add(String.format(LINE_VALUES_SQL, i));
+            }
+            Query insert = entityManager.createNativeQuery(values.toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                DailyOrderLine line = chunk.get(i);
+                DailyOrder order = line.getOrder();
+                insert.setParameter("orderId" + i, orderIds.get(order.getPatient().getPatientID()))
+                        .setParameter("slot" + i, line.getSlot().name())
+                        .setParameter("orderDate" + i, order.getOrderDate())
+                        .setParameter("meal" + i, line.getMeal().getId())
+                        .setParameter("reason" + i, line.getSwapReason());
+            }
+            insert.executeUpdate();
+        }
+        return orderIds;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MenuChangeDiffDTO> diffOrdersAgainstMenu(Long foodTypeId, Long menuId, LocalDate orderDate) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(DIFF_SQL)
+                .setParameter("foodTypeId", foodTypeId)
+                .setParameter("menuId", menuId)
+                .setParameter("orderDate", orderDate)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new MenuChangeDiffDTO(
+                        (String) row[0],
+                        MealSlot.valueOf((String) row[1]).getDisplayName(),
+                        (String) row[2],
+                        (String) row[3],
+                        ((Number) row[4]).longValue()))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> rewriteOrdersToMenu(Long foodTypeId, Long menuId, LocalDate orderDate) {
+        // Pending changes must reach the database before it is rewritten underneath them
+        entityManager.flush();
+        for (String sql : List.of(DELETE_STALE_LINES_SQL, REWRITE_LINES_SQL, INSERT_MISSING_LINES_SQL)) {
+            entityManager.createNativeQuery(sql)
+                    .setParameter("foodTypeId", foodTypeId)
+                    .setParameter("menuId", menuId)
+                    .setParameter("orderDate", orderDate)
+                    .executeUpdate();
+        }
+        @SuppressWarnings("unchecked")
+        List<Number> ids = entityManager.createNativeQuery(MOVE_ORDERS_SQL)
+                .setParameter("foodTypeId", foodTypeId)
+                .setParameter("menuId", menuId)
+                .setParameter("orderDate", orderDate)
+                .setParameter("statusCode", OrderStatus.SUBMITTED.getCode())
+                .getResultList();
+        entityManager.clear();
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
@@ -2,7 +2,10 @@ package is.hi.matarpontun.repository;
 
 import is.hi.matarpontun.model.FoodType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface FoodTypeRepository extends JpaRepository<FoodType, Long> {
@@ -12,4 +15,17 @@ public interface FoodTypeRepository extends JpaRepository<FoodType, Long> {
      */
     Optional<FoodType> findByTypeName(String typeName);
     Optional<FoodType> findByTypeNameIgnoreCase(String typeName);
+
+    /**
+     * Finds the food types with the given names together with their menu of the day and its
+     * meals, in one query. Used to look for safe alternatives within a substitution group.
+     */
+    @Query("""
+            SELECT DISTINCT ft FROM FoodType ft
+            LEFT JOIN FETCH ft.menuOfTheDay m
+            LEFT JOIN FETCH m.items i
+            LEFT JOIN FETCH i.meal
+            WHERE ft.typeName IN :typeNames
+            """)
+    List<FoodType> findWithMenuOfTheDayByTypeNameIn(Collection<String> typeNames);
 }
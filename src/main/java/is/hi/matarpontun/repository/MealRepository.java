@@ -1,13 +1,19 @@
 package is.hi.matarpontun.repository;
 
+import is.hi.matarpontun.dto.MealIngredientsDTO;
 import is.hi.matarpontun.model.Meal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 
 @Repository
 public interface MealRepository extends JpaRepository<Meal, Long> {
     List<Meal> findByFoodTypeId(Long foodTypeId);
+
+    @Query("SELECT new is.hi.matarpontun.dto.MealIngredientsDTO(m.id, m.ingredients) FROM Meal m WHERE m.id IN :mealIds")
+    List<MealIngredientsDTO> findIngredientsByIds(Collection<Long> mealIds);
 }
\ No newline at end of file
@@ -1,14 +1,62 @@
 package is.hi.matarpontun.repository;
 
+import is.hi.matarpontun.dto.MenuForecastRowDTO;
 import is.hi.matarpontun.model.FoodType;
 import is.hi.matarpontun.model.Menu;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MenuRepository extends JpaRepository<Menu, Long> {
+
+    // Pivots the menu items of menu m back into one meal alias per slot: b, l, a, d, n
+    String SLOT_MEAL_JOINS = """
+            LEFT JOIN MenuItem bi ON bi.menu = m AND bi.slot = is.hi.matarpontun.model.MealSlot.BREAKFAST
+            LEFT JOIN bi.meal b
+            LEFT JOIN MenuItem li ON li.menu = m AND li.slot = is.hi.matarpontun.model.MealSlot.LUNCH
+            LEFT JOIN li.meal l
+            LEFT JOIN MenuItem ai ON ai.menu = m AND ai.slot = is.hi.matarpontun.model.MealSlot.AFTERNOON_SNACK
+            LEFT JOIN ai.meal a
+            LEFT JOIN MenuItem di ON di.menu = m AND di.slot = is.hi.matarpontun.model.MealSlot.DINNER
+            LEFT JOIN di.meal d
+            LEFT JOIN MenuItem ni ON ni.menu = m AND ni.slot = is.hi.matarpontun.model.MealSlot.NIGHT_SNACK
+            LEFT JOIN ni.meal n
+            """;
+
     Optional<Menu> findByFoodTypeAndDate(FoodType foodType, LocalDate date);
     Collection<Menu> findAllByDate(LocalDate today);
+
+    // A food type's menu of the day with its items and their meals, ready to be read
+    // outside a transaction
+    @Query("""
+            SELECT m FROM FoodType ft
+            JOIN ft.menuOfTheDay m
+            LEFT JOIN FETCH m.items i
+            LEFT JOIN FETCH i.meal
+            WHERE ft.id = :foodTypeId
+            """)
+    Optional<Menu> findMenuOfTheDayWithMeals(Long foodTypeId);
+
+    // Menus that plan the meal in any slot, from the menu_items meal_id index
+    @Query("SELECT DISTINCT i.menu.id FROM MenuItem i WHERE i.meal.id = :mealId ORDER BY i.menu.id")
+    List<Long> findMenuIdsUsingMeal(Long mealId);
+
+    // Kitchen forecast: planned menus in the date range × patients currently on a ward with
+    // the menu's food type, counted per menu
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.MenuForecastRowDTO(m.date, ft.typeName,
+                    b.name, l.name, a.name, d.name, n.name, COUNT(p))
+            FROM Menu m
+            JOIN m.foodType ft
+            JOIN Patient p ON p.foodType = ft AND p.ward IS NOT NULL
+            """ + SLOT_MEAL_JOINS + """
+            WHERE m.date BETWEEN :from AND :to
+            GROUP BY m.date, ft.typeName, b.name, l.name, a.name, d.name, n.name
+            ORDER BY m.date, ft.typeName
+            """)
+    List<MenuForecastRowDTO> forecastByDateRange(LocalDate from, LocalDate to);
 }
@@ -0,0 +1,49 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.dto.OrderRollupCountDTO;
+import is.hi.matarpontun.model.OrderDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface OrderDailyRollupRepository extends JpaRepository<OrderDailyRollup, Long>,
+        OrderDailyRollupRepositoryCustom {
+
+    // Dashboard reads: rollups summed per group and status, the ward filter is optional.
+    // Rollups are keyed by ward id, so they are read, filtered and grouped by the ward's
+    // current name; orders without a ward keep the name they were placed under.
+    String WARD_LABEL = "COALESCE(w.wardName, r.wardName, 'Unassigned')";
+
+    String IN_RANGE = """
+            FROM OrderDailyRollup r LEFT JOIN Ward w ON w.id = r.wardId
+            WHERE r.rollupDate BETWEEN :from AND :to
+              AND (:wardName IS NULL OR COALESCE(w.wardName, r.wardName) = :wardName)
+            """;
+
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.OrderRollupCountDTO(CAST(r.rollupDate AS String), r.status,
+                    SUM(r.orderCount), SUM(r.swappedSlots))
+            """ + IN_RANGE + """
+            GROUP BY r.rollupDate, r.status
+            ORDER BY r.rollupDate
+            """)
+    List<OrderRollupCountDTO> countByDay(LocalDate from, LocalDate to, String wardName);
+
+    @Query("SELECT new is.hi.matarpontun.dto.OrderRollupCountDTO(" + WARD_LABEL + ", r.status,"
+            + " SUM(r.orderCount), SUM(r.swappedSlots)) " + IN_RANGE
+            + " GROUP BY " + WARD_LABEL + ", r.status ORDER BY " + WARD_LABEL)
+    List<OrderRollupCountDTO> countByWard(LocalDate from, LocalDate to, String wardName);
+
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.OrderRollupCountDTO(r.foodType, r.status,
+                    SUM(r.orderCount), SUM(r.swappedSlots))
+            """ + IN_RANGE + """
+            GROUP BY r.foodType, r.status
+            ORDER BY r.foodType
+            """)
+    List<OrderRollupCountDTO> countByFoodType(LocalDate from, LocalDate to, String wardName);
+}
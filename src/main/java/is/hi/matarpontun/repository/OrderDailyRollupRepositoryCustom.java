@@ -0,0 +1,22 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.model.OrderDailyRollup;
+
+import java.time.LocalDate;
+
+/**
+ * Custom {@link OrderDailyRollup} persistence operations that Spring Data cannot derive.
+ */
+public interface OrderDailyRollupRepositoryCustom {
+
+    /**
+     * Recomputes the rollups for every day from {@code from} to {@code to}, inclusive, from
+     * {@code daily_orders}. The days are replaced in one transaction, so readers see either
+     * the old or the new counts, and groups that no longer have any orders disappear.
+     *
+     * @param from first order date
+     * @param to   last order date
+     * @return the number of rollup rows written
+     */
+    int refresh(LocalDate from, LocalDate to);
+}
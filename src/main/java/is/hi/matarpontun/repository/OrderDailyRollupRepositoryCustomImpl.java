@@ -0,0 +1,65 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Native-SQL implementation of {@link OrderDailyRollupRepositoryCustom}.
+ */
+public class OrderDailyRollupRepositoryCustomImpl implements OrderDailyRollupRepositoryCustom {
+
+    // Rollups keep the status label, so they read the same as the API and the export
+    private static final String STATUS_LABEL = Arrays.stream(OrderStatus.values())
+            .map(status -> "WHEN " + status.getCode() + " THEN '" + status.getLabel() + "'")
+            .collect(Collectors.joining(" ", "CASE o.status_code ", " ELSE 'UNKNOWN' END"));
+
+    private static final String DELETE_SQL = """
+            DELETE FROM order_daily_rollups WHERE rollup_date BETWEEN :from AND :to
+            """;
+
+    // A slot counts as swapped when its order line records why the planned meal was replaced.
+    // Orders are counted under their ward's id; the name snapshot is only kept for orders
+    // without one.
+    private static final String INSERT_SQL = """
+            INSERT INTO order_daily_rollups (rollup_date, ward_id, ward_name, food_type, status,
+                    order_count, swapped_slots, refreshed_at)
+            SELECT o.order_date,
+                   o.ward_id,
+                   CASE WHEN o.ward_id IS NULL THEN o.ward_name END,
+                   COALESCE(ft.type_name, 'N/A'),
+                   %s,
+                   COUNT(*),
+                   COALESCE(SUM(s.swapped), 0),
+                   now()
+            FROM daily_orders o
+            LEFT JOIN food_types ft ON ft.id = o.food_type_id
+            LEFT JOIN (SELECT order_id, COUNT(*) AS swapped
+                       FROM daily_order_lines
+                       WHERE order_date BETWEEN :from AND :to AND swap_reason IS NOT NULL
+                       GROUP BY order_id) s ON s.order_id = o.id
+            WHERE o.order_date BETWEEN :from AND :to
+            GROUP BY 1, 2, 3, 4, 5
+            """.formatted(STATUS_LABEL);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int refresh(LocalDate from, LocalDate to) {
+        entityManager.createNativeQuery(DELETE_SQL)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+        return entityManager.createNativeQuery(INSERT_SQL)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+    }
+}
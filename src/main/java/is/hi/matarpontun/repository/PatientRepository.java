@@ -1,15 +1,147 @@
 package is.hi.matarpontun.repository;
 
+import is.hi.matarpontun.dto.FoodTypeCountDTO;
+import is.hi.matarpontun.dto.PatientOrderRowDTO;
+import is.hi.matarpontun.dto.PatientTermDTO;
+import is.hi.matarpontun.dto.PatientTermMatchDTO;
+import is.hi.matarpontun.dto.WardPatientRowDTO;
 import is.hi.matarpontun.model.Patient;
 import is.hi.matarpontun.model.Room;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientRepositoryCustom {
     Optional<Patient> findByPatientID(Long patientID);
     List<Patient> findByRoom(Room room);
     long countByWard_Id(Long wardId);
+
+    // Bulk food type change: the union of individual patients, rooms and a ward. Empty id
+    // lists and a null ward simply match nothing.
+    @Query("""
+            SELECT DISTINCT p FROM Patient p
+            LEFT JOIN FETCH p.ward
+            LEFT JOIN FETCH p.room r
+            WHERE p.patientID IN :patientIds OR r.id IN :roomIds OR p.ward.id = :wardId
+            """)
+    List<Patient> findByIdsRoomsOrWard(Collection<Long> patientIds, Collection<Long> roomIds, Long wardId);
+
+    // Row locks on the same patients, taken before they are read, so two bulk edits of
+    // overlapping groups queue behind each other. Locked in id order to rule out deadlocks,
+    // and without joins, since Hibernate would otherwise lock row by row after the select.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT p FROM Patient p
+            WHERE p.patientID IN :patientIds OR p.room.id IN :roomIds OR p.ward.id = :wardId
+            ORDER BY p.patientID
+            """)
+    List<Patient> lockByIdsRoomsOrWard(Collection<Long> patientIds, Collection<Long> roomIds, Long wardId);
+
+    // Ward order run: the patients of the ward's rooms, grouped by room. Read up front, so
+    // every patient's order can then run in a transaction of its own.
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.WardPatientRowDTO(p.patientID, p.name, r.roomNumber)
+            FROM Patient p JOIN p.room r
+            WHERE r.ward.id = :wardId
+            ORDER BY r.id, p.patientID
+            """)
+    List<WardPatientRowDTO> findWardOrderRows(Long wardId);
+
+    // Patient screen read model: patients with their order of the given date and its meals, in one statement
+    String ORDER_ROWS = """
+            SELECT new is.hi.matarpontun.dto.PatientOrderRowDTO(
+                    p.patientID, p.name, p.age, w.wardName, r.roomNumber, r.qrCode, p.bedNumber, ft.typeName,
+                    o.orderDate, o.status,
+                    b.name, b.ingredients, l.name, l.ingredients, a.name, a.ingredients,
+                    d.name, d.ingredients, n.name, n.ingredients)
+            FROM Patient p
+            LEFT JOIN p.ward w
+            LEFT JOIN p.room r
+            LEFT JOIN p.foodType ft
+            LEFT JOIN DailyOrder o ON o.patient = p AND o.orderDate = :date
+            """ + DailyOrderRepository.SLOT_MEAL_JOINS;
+
+    @Query(ORDER_ROWS + "WHERE w.id = :wardId ORDER BY p.patientID")
+    List<PatientOrderRowDTO> findOrderRowsByWardId(Long wardId, LocalDate date);
+
+    @Query(ORDER_ROWS + "WHERE p.patientID = :patientId")
+    Optional<PatientOrderRowDTO> findOrderRowByPatientId(Long patientId, LocalDate date);
+
+    @Query("SELECT new is.hi.matarpontun.dto.PatientTermDTO(p.patientID, t) FROM Patient p JOIN p.restriction t WHERE p.patientID IN :patientIds")
+    List<PatientTermDTO> findRestrictionsByPatientIds(Collection<Long> patientIds);
+
+    @Query("SELECT new is.hi.matarpontun.dto.PatientTermDTO(p.patientID, t) FROM Patient p JOIN p.allergies t WHERE p.patientID IN :patientIds")
+    List<PatientTermDTO> findAllergiesByPatientIds(Collection<Long> patientIds);
+
+    // Row locks for a batch of edits, taken in id order like lockByIdsRoomsOrWard
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Patient p WHERE p.patientID IN :patientIds ORDER BY p.patientID")
+    List<Patient> findAllByIdForUpdate(Collection<Long> patientIds);
+
+    // Native edits of the term tables bypass Hibernate, so they bump the version themselves
+    @Modifying
+    @Query("UPDATE Patient p SET p.version = p.version + 1 WHERE p.patientID IN :patientIds")
+    int incrementVersions(Collection<Long> patientIds);
+
+    // Row lock for edits that must not interleave with a concurrent edit of the same patient
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Patient p WHERE p.patientID = :patientId")
+    Optional<Patient> findByIdForUpdate(Long patientId);
+
+    // Pending re-evaluations of today's order after a diet change (see OrderReevaluationService).
+    // Plain updates that leave the version alone: the diet edit itself already bumped it.
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Patient p SET p.dietChangedAt = :changedAt, p.dietChangeCorrelationId = :correlationId
+            WHERE p.patientID = :patientId
+            """)
+    int markDietChanged(Long patientId, Instant changedAt, String correlationId);
+
+    @Modifying
+    @Query("UPDATE Patient p SET p.dietChangedAt = NULL, p.dietChangeCorrelationId = NULL WHERE p.patientID = :patientId")
+    int clearDietChanged(Long patientId);
+
+    // Served by the partial index idx_patients_diet_changed (see SchemaMigration)
+    @Query("SELECT p.patientID FROM Patient p WHERE p.dietChangedAt <= :cutoff ORDER BY p.dietChangedAt")
+    List<Long> findDietChangedBefore(Instant cutoff, Limit limit);
+
+    // Restriction/allergy search: exact, case-insensitive match on a list of terms, served by
+    // the lower(term) indexes (see SchemaMigration)
+    String TERM_MATCHES = """
+            SELECT new is.hi.matarpontun.dto.PatientTermMatchDTO(p.patientID, p.name, w.id, w.wardName,
+                    r.roomNumber, p.bedNumber, t)
+            """;
+
+    @Query(TERM_MATCHES + """
+            FROM Patient p JOIN p.restriction t LEFT JOIN p.ward w LEFT JOIN p.room r
+            WHERE lower(t) IN :terms
+            """)
+    List<PatientTermMatchDTO> findByRestrictionTerms(Collection<String> terms);
+
+    @Query(TERM_MATCHES + """
+            FROM Patient p JOIN p.allergies t LEFT JOIN p.ward w LEFT JOIN p.room r
+            WHERE lower(t) IN :terms
+            """)
+    List<PatientTermMatchDTO> findByAllergyTerms(Collection<String> terms);
+
+    // Current census per food type, for patients on a ward
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.FoodTypeCountDTO(ft.typeName, COUNT(p))
+            FROM Patient p JOIN p.foodType ft
+            WHERE p.ward IS NOT NULL
+            GROUP BY ft.typeName
+            """)
+    List<FoodTypeCountDTO> countOnWardsByFoodType();
 }
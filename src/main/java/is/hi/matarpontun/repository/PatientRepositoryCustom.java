@@ -0,0 +1,54 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.dto.PatientTermDTO;
+import is.hi.matarpontun.model.Patient;
+
+import java.util.Collection;
+
+/**
+ * Custom {@link Patient} persistence operations that Spring Data cannot derive.
+ */
+public interface PatientRepositoryCustom {
+
+    /** The element-collection tables holding a patient's diet terms. */
+    enum DietTermTable {
+        RESTRICTIONS("patient_restrictions", "restriction"),
+        ALLERGIES("patient_allergies", "allergy");
+
+        private final String table;
+        private final String column;
+
+        DietTermTable(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+
+        public String table() {
+            return table;
+        }
+
+        public String column() {
+            return column;
+        }
+    }
+
+    /**
+     * Inserts terms straight into a collection table with multi-row statements, skipping
+     * terms the patient already has. Loaded {@link Patient} collections are not updated.
+     *
+     * @param table the restriction or allergy table
+     * @param terms the (patient, term) pairs to add
+     * @return the number of rows inserted
+     */
+    int insertTerms(DietTermTable table, Collection<PatientTermDTO> terms);
+
+    /**
+     * Deletes terms straight from a collection table with multi-row statements. Loaded
+     * {@link Patient} collections are not updated.
+     *
+     * @param table the restriction or allergy table
+     * @param terms the (patient, term) pairs to remove
+     * @return the number of rows deleted
+     */
+    int deleteTerms(DietTermTable table, Collection<PatientTermDTO> terms);
+}
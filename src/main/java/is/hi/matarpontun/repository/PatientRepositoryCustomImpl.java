@@ -0,0 +1,70 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.dto.PatientTermDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Native-SQL implementation of {@link PatientRepositoryCustom}.
+ */
+public class PatientRepositoryCustomImpl implements PatientRepositoryCustom {
+
+    // Rows per multi-row statement, well below PostgreSQL's limit of 32767 bind parameters
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO %1$s (patient_id, %2$s)
+            SELECT DISTINCT v.patient_id, v.term
+            FROM (VALUES %3$s) AS v(patient_id, term)
+            WHERE NOT EXISTS (SELECT 1 FROM %1$s t WHERE t.patient_id = v.patient_id AND t.%2$s = v.term)
+            """;
+
+    // Stored terms are compared trimmed, like the single-patient removal in PatientService
+    private static final String DELETE_SQL = """
+            DELETE FROM %1$s t
+            USING (VALUES %3$s) AS v(patient_id, term)
+            WHERE t.patient_id = v.patient_id AND trim(t.%2$s) = v.term
+            """;
+
+    private static final String TERM_VALUES_SQL = "(CAST(:patient%1$d AS bigint), CAST(:term%1$d AS varchar))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int insertTerms(DietTermTable table, Collection<PatientTermDTO> terms) {
+        return execute(INSERT_SQL, table, List.copyOf(terms));
+    }
+
+    @Override
+    @Transactional
+    public int deleteTerms(DietTermTable table, Collection<PatientTermDTO> terms) {
+        return execute(DELETE_SQL, table, List.copyOf(terms));
+    }
+
+    private int execute(String sql, DietTermTable table, List<PatientTermDTO> terms) {
+        int rows = 0;
+        for (int from = 0; from < terms.size(); from += ROWS_PER_STATEMENT) {
+            List<PatientTermDTO> chunk = terms.subList(from, Math.min(from + ROWS_PER_STATEMENT, terms.size()));
+            StringJoiner values = new StringJoiner(", ");
+            for (int i = 0; i < chunk.size(); i++) {
+                values.add(String.format(TERM_VALUES_SQL, i));
+            }
+            Query statement = entityManager.createNativeQuery(
+                    String.format(sql, table.table(), table.column(), values));
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setParameter("patient" + i, chunk.get(i).patientId())
+                        .setParameter("term" + i, chunk.get(i).term());
+            }
+            rows += statement.executeUpdate();
+        }
+        return rows;
+    }
+}
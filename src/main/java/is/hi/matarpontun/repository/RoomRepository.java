@@ -1,10 +1,24 @@
 package is.hi.matarpontun.repository;
+import is.hi.matarpontun.dto.RoomPatientRowDTO;
 import is.hi.matarpontun.model.Room;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
     long countByWard_Id(Long wardId);
     Optional<Room> findByQrCode(String qrCode);
     java.util.List<Room> findByWard_Id(Long wardId);
+
+    // Room screen read model: every room of the ward joined with its patients, in one statement
+    @Query("""
+            SELECT new is.hi.matarpontun.dto.RoomPatientRowDTO(r.id, r.roomNumber, r.maxPatients, r.qrCode,
+                    p.patientID, p.name, p.age, p.bedNumber, ft.typeName)
+            FROM Room r
+            LEFT JOIN r.patients p
+            LEFT JOIN p.foodType ft
+            WHERE r.ward.id = :wardId
+            ORDER BY r.id, p.bedNumber
+            """)
+    java.util.List<RoomPatientRowDTO> findPatientRowsByWardId(Long wardId);
 }
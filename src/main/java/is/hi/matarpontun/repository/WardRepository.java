@@ -2,11 +2,16 @@ package is.hi.matarpontun.repository;
 
 import is.hi.matarpontun.model.Ward;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 public interface WardRepository extends JpaRepository<Ward, Long> {
     Optional<Ward> findByWardName(String wardName);
     Optional<Ward> findByWardNameAndPassword(String wardName, String password);
 
+    // Sign-in only needs to know which ward the credentials belong to
+    @Query("SELECT w.id FROM Ward w WHERE w.wardName = :wardName AND w.password = :password")
+    Optional<Long> findIdByWardNameAndPassword(String wardName, String password);
+
     boolean existsByWardNameAndIdNot(String wardName, Long id);
-}
\ No newline at end of file
+}
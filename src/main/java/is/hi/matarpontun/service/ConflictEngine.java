@@ -0,0 +1,102 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.event.PatientDietChangedEvent;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Patient;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared conflict evaluation for meals against a patient's restrictions and allergies.
+ *
+ * Profiles are compiled once per patient and cached until the patient's restrictions or
+ * allergies change, so ward order runs and per-patient checks reuse the same compiled rules.
+ * Terms are widened through the {@link IngredientTaxonomy}, so "dairy" also covers "cheese".
+ */
+@Service
+public class ConflictEngine {
+
+    private static final int MAX_CACHED_PROFILES = 10_000;
+
+    /** A compiled profile together with the lists it was compiled from. */
+    private record CachedProfile(List<String> restrictions, List<String> allergies, ConflictProfile profile) {}
+
+    private final IngredientTaxonomy taxonomy;
+    private final Map<Long, CachedProfile> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code ConflictEngine}.
+     *
+     * @param taxonomy the ingredient taxonomy used to expand restriction and allergy terms
+     */
+    public ConflictEngine(IngredientTaxonomy taxonomy) {
+        this.taxonomy = taxonomy;
+    }
+
+    /**
+     * Returns the compiled conflict profile for a patient, compiling it on first use.
+     *
+     * A cached profile is reused only while the patient's restriction and allergy lists are
+     * unchanged, so edits made outside {@link PatientService} are picked up as well.
+     *
+     * @param patient the patient
+     * @return the patient's {@link ConflictProfile}
+     */
+    public ConflictProfile profileFor(Patient patient) {
+        List<String> restrictions = List.copyOf(patient.getRestriction());
+        List<String> allergies = List.copyOf(patient.getAllergies());
+
+        if (patient.getPatientID() == null) {
+            return compile(restrictions, allergies);
+        }
+
+        CachedProfile cached = cache.get(patient.getPatientID());
+        if (cached != null && cached.restrictions().equals(restrictions) && cached.allergies().equals(allergies)) {
+            return cached.profile();
+        }
+
+        ConflictProfile profile = compile(restrictions, allergies);
+        if (cache.size() >= MAX_CACHED_PROFILES) {
+            cache.clear();
+        }
+        cache.put(patient.getPatientID(), new CachedProfile(restrictions, allergies, profile));
+        return profile;
+    }
+
+    /**
+     * Compiles an uncached profile from raw restriction and allergy entries.
+     *
+     * @param restrictions restriction entries (comma-separated entries are split)
+     * @param allergies    allergy entries (comma-separated entries are split)
+     * @return the compiled {@link ConflictProfile}
+     */
+    public ConflictProfile compile(List<String> restrictions, List<String> allergies) {
+        return ConflictProfile.of(
+                PatientDietChangedEvent.normalize(restrictions),
+                PatientDietChangedEvent.normalize(allergies),
+                taxonomy);
+    }
+
+    /**
+     * Convenience check of a single meal against a patient.
+     *
+     * @return the most severe conflict, or {@code null} if the meal is safe
+     */
+    public ConflictProfile.Conflict findConflict(Meal meal, Patient patient) {
+        return profileFor(patient).findConflict(meal);
+    }
+
+    /**
+     * Drops the cached profile of a patient whose diet changed.
+     *
+     * @param event the diet change
+     */
+    @EventListener
+    public void onDietChanged(PatientDietChangedEvent event) {
+        cache.remove(event.patientId());
+    }
+}
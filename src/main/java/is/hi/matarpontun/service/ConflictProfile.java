@@ -0,0 +1,129 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.model.ConflictSeverity;
+import is.hi.matarpontun.model.Meal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, precompiled set of conflict rules for one patient.
+ *
+ * Every restriction and allergy term is expanded through the {@link IngredientTaxonomy}
+ * once, when the profile is compiled, and all resulting spellings are stored in a single
+ * {@link TermTrie}. A meal's ingredient list is then scanned once no matter how many terms
+ * the patient has or how wide their expansions are: restriction "dairy" matches "cheese"
+ * and "skyr", allergy "nuts" matches "walnut".
+ *
+ * Terms match whole words only: restriction "milk" does not match "buttermilk".
+ */
+public final class ConflictProfile {
+
+    /** A matched term together with how serious the conflict is. */
+    public record Conflict(String term, ConflictSeverity severity) {}
+
+    private static final ConflictProfile EMPTY =
+            new ConflictProfile(new String[0], new ConflictSeverity[0], null, new int[0][]);
+
+    private final String[] ruleTerms;            // rule id -> the patient's own term
+    private final ConflictSeverity[] severities; // rule id -> severity
+    private final TermTrie spellings;            // expanded spelling -> payload id
+    private final int[][] payloadRules;          // payload id -> rule ids covering that spelling
+    private final Set<String> terms;
+
+    private ConflictProfile(String[] ruleTerms, ConflictSeverity[] severities, TermTrie spellings, int[][] payloadRules) {
+        this.ruleTerms = ruleTerms;
+        this.severities = severities;
+        this.spellings = spellings;
+        this.payloadRules = payloadRules;
+        this.terms = Set.of(ruleTerms);
+    }
+
+    /**
+     * Compiles a profile from normalised restriction and allergy terms.
+     * A term present in both lists is treated as an allergy.
+     */
+    static ConflictProfile of(Collection<String> restrictions, Collection<String> allergies, IngredientTaxonomy taxonomy) {
+        Map<String, ConflictSeverity> rules = new LinkedHashMap<>();
+        for (String r : restrictions) rules.put(r, ConflictSeverity.MODERATE);
+        for (String a : allergies) rules.put(a, ConflictSeverity.SEVERE);
+        if (rules.isEmpty()) return EMPTY;
+
+        String[] ruleTerms = new String[rules.size()];
+        ConflictSeverity[] severities = new ConflictSeverity[rules.size()];
+
+        // A spelling can be reached from several rules, e.g. "cheese" from both "dairy" and "cheese"
+        Map<String, List<Integer>> spellingRules = new HashMap<>();
+        int id = 0;
+        for (Map.Entry<String, ConflictSeverity> rule : rules.entrySet()) {
+            ruleTerms[id] = rule.getKey();
+            severities[id] = rule.getValue();
+            for (String spelling : taxonomy.expand(rule.getKey())) {
+                spellingRules.computeIfAbsent(spelling, s -> new ArrayList<>()).add(id);
+            }
+            id++;
+        }
+
+        TermTrie.Builder trie = TermTrie.builder();
+        int[][] payloadRules = new int[spellingRules.size()][];
+        int payload = 0;
+        for (Map.Entry<String, List<Integer>> entry : spellingRules.entrySet()) {
+            trie.put(entry.getKey(), payload);
+            payloadRules[payload] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            payload++;
+        }
+        return new ConflictProfile(ruleTerms, severities, trie.build(), payloadRules);
+    }
+
+    /**
+     * @return every term in the profile, as entered for the patient
+     */
+    public Set<String> terms() {
+        return terms;
+    }
+
+    public boolean isEmpty() {
+        return ruleTerms.length == 0;
+    }
+
+    /**
+     * Finds the most severe conflict between the meal's ingredients and this profile.
+     *
+     * @param meal the meal to check
+     * @return the conflict, or {@code null} if the meal is safe
+     */
+    public Conflict findConflict(Meal meal) {
+        return findConflict(meal, null);
+    }
+
+    /**
+     * Finds the most severe conflict, considering only the given terms.
+     *
+     * @param meal      the meal to check
+     * @param onlyTerms terms to consider, or {@code null} for all terms
+     * @return the conflict, or {@code null} if the meal is safe with respect to those terms.
+     *         The conflict names the patient's term ("dairy"), not the matched ingredient.
+     */
+    public Conflict findConflict(Meal meal, Set<String> onlyTerms) {
+        if (spellings == null || meal == null || meal.getIngredients() == null) return null;
+
+        int[] worst = { -1 };
+        spellings.scan(meal.getIngredients().toLowerCase(Locale.ROOT), (payload, start, end) -> {
+            for (int rule : payloadRules[payload]) {
+                if (onlyTerms != null && !onlyTerms.contains(ruleTerms[rule])) continue;
+                if (worst[0] < 0 || severities[rule].compareTo(severities[worst[0]]) > 0) {
+                    worst[0] = rule;
+                    if (severities[rule] == ConflictSeverity.SEVERE) return false;
+                }
+            }
+            return true;
+        });
+        return worst[0] < 0 ? null : new Conflict(ruleTerms[worst[0]], severities[worst[0]]);
+    }
+}
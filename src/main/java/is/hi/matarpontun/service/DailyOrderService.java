@@ -1,28 +1,50 @@
 package is.hi.matarpontun.service;
 
+import is.hi.matarpontun.dto.BulkFoodTypeChangeDTO;
 import is.hi.matarpontun.dto.DailyOrderSummaryDTO;
+import is.hi.matarpontun.dto.MenuChangeDiffDTO;
 import is.hi.matarpontun.dto.OrderDTO;
+import is.hi.matarpontun.dto.OrderVersionDTO;
 import is.hi.matarpontun.dto.PatientConflictSummaryDTO;
 import is.hi.matarpontun.dto.SlotConflictDTO;
+import is.hi.matarpontun.dto.WardPatientRowDTO;
+import is.hi.matarpontun.dto.WorklistEntryDTO;
+import is.hi.matarpontun.metrics.OrderMetrics;
 import is.hi.matarpontun.model.*;
 import is.hi.matarpontun.repository.DailyOrderRepository;
 import is.hi.matarpontun.repository.FoodTypeRepository;
 import is.hi.matarpontun.repository.PatientRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class DailyOrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(DailyOrderService.class);
+
+    // Per-candidate trace of the safe-alternative search; very chatty, so DEBUG and off by default
+    private static final Logger altLog = LoggerFactory.getLogger(DailyOrderService.class.getName() + ".alternatives");
+
     private final DailyOrderRepository dailyOrderRepository;
     private final PatientRepository patientRepository;
     private final FoodTypeRepository foodTypeRepository;
+    private final ConflictEngine conflictEngine;
+    private final OrderMetrics orderMetrics;
+    private final OptimisticRetry optimisticRetry;
 
     /** Wraps a saved order together with any slot conflicts found during restriction checking. */
     public record OrderResult(DailyOrder order, List<SlotConflictDTO> conflicts) {}
@@ -30,6 +52,14 @@ public class DailyOrderService {
     /** Wraps the ward-level OrderDTO together with per-patient conflict summaries. */
     public record WardOrderResult(OrderDTO orderDTO, List<PatientConflictSummaryDTO> conflicts) {}
 
+    /** Outcome of a bulk food type change: patients changed, orders written or deleted, and conflicts. */
+    public record BulkFoodTypeResult(String foodType, int patients, int ordersWritten, int ordersDeleted,
+            List<PatientConflictSummaryDTO> conflicts) {}
+
+    /** Outcome of moving existing orders to new menus of the day: what changed and what now conflicts. */
+    public record MenuPropagationResult(int ordersMoved, List<MenuChangeDiffDTO> changes,
+            List<PatientConflictSummaryDTO> conflicts) {}
+
     /**
      * Constructs a new {@code DailyOrderService} with required repositories.
      *
@@ -38,19 +68,31 @@ public class DailyOrderService {
      * @param patientRepository    repository for accessing {@link Patient} entities
      * @param foodTypeRepository   repository for accessing {@link FoodType}
      *                             entities
+     * @param conflictEngine       shared evaluator of meals against restrictions
+     *                             and allergies
+     * @param orderMetrics         timers and counters for order generation
+     * @param optimisticRetry      runs order edits in a transaction, retried when a
+     *                             concurrent edit wins the race
      */
     public DailyOrderService(DailyOrderRepository dailyOrderRepository,
             PatientRepository patientRepository,
-            FoodTypeRepository foodTypeRepository) {
+            FoodTypeRepository foodTypeRepository,
+            ConflictEngine conflictEngine,
+            OrderMetrics orderMetrics,
+            OptimisticRetry optimisticRetry) {
         this.dailyOrderRepository = dailyOrderRepository;
         this.patientRepository = patientRepository;
         this.foodTypeRepository = foodTypeRepository;
+        this.conflictEngine = conflictEngine;
+        this.orderMetrics = orderMetrics;
+        this.optimisticRetry = optimisticRetry;
     }
 
     /**
      * UC1 - Manually orders a food type for one patient for today.
      * 
      * Ensures that a {@link DailyOrder} exists for the patient on the current date.
+     * Runs in its own transaction, retried if a concurrent edit of the order wins the race.
      *
      * @param patientId the patient's id
      * @return the saved {@link DailyOrder} after restriction checks.
@@ -59,22 +101,18 @@ public class DailyOrderService {
      * @throws IllegalStateException   if the patient has no assigned
      *                                 {@link FoodType}.
      */
-    @Transactional
     public OrderResult orderFoodTypeForPatient(Long patientId) {
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        LocalDate today = LocalDate.now();
-
-        // if the patient already has an order today, delete it first and assign
-        // a new one in case food type/menu/restrictions changed
-        Optional<DailyOrder> existingOrderOpt = dailyOrderRepository.findByPatientAndOrderDate(patient, today);
-        if (existingOrderOpt.isPresent()) {
-            DailyOrder existingOrder = existingOrderOpt.get();
-            System.out
-                    .println("Existing DailyOrder found for " + patient.getName() + " on " + today + " — deleting it.");
-            dailyOrderRepository.delete(existingOrder);
+        // Log lines of this order carry the patient id next to the request's correlation id
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("patientId", String.valueOf(patientId))) {
+            return orderMetrics.timePatientOrder(() ->
+                    optimisticRetry.run("order for patient " + patientId, () -> placeOrder(patientId)));
         }
+    }
+
+    private OrderResult placeOrder(Long patientId) {
+        // Concurrent orders and diet edits of the patient wait here until this one commits
+        Patient patient = patientRepository.findByIdForUpdate(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
 
         FoodType foodType = patient.getFoodType();
         if (foodType == null) {
@@ -87,87 +125,145 @@ public class DailyOrderService {
                     "No menu of the day assigned for food type '" + foodType.getTypeName() + "'");
         }
 
-        // Create a new DailyOrder
-        DailyOrder order = new DailyOrder();
-        order.setPatient(patient);
-        order.setOrderDate(LocalDate.now());
-        order.setMenu(menuOfTheDay);
-        order.setFoodType(foodType);
-        order.setBreakfast(menuOfTheDay.getBreakfast());
-        order.setLunch(menuOfTheDay.getLunch());
-        order.setAfternoonSnack(menuOfTheDay.getAfternoonSnack());
-        order.setDinner(menuOfTheDay.getDinner());
-        order.setNightSnack(menuOfTheDay.getNightSnack());
-        order.setWardName(patient.getWard() != null ? patient.getWard().getWardName() : null);
-        order.setRoomNumber(patient.getRoom() != null ? patient.getRoom().getRoomNumber() : null);
-        order.setStatus("SUBMITTED");
-
-        // Save before restriction check so the entity is managed
-        dailyOrderRepository.save(order);
+        // Build today's order in memory; any existing order for today is overwritten
+        // by the upsert below in case food type/menu/restrictions changed
+        DailyOrder order = buildOrder(patient, foodType, menuOfTheDay, LocalDate.now());
 
         // Check restrictions — captures which slots conflicted and what was done
-        List<SlotConflictDTO> conflicts = checkForRestrictions(order);
+        List<SlotConflictDTO> conflicts = checkForRestrictions(order, new HashMap<>());
+
+        // Write the final order, including any meal swaps, exactly once
+        expectStoredVersions(List.of(order));
+        order.setId(dailyOrderRepository.upsert(order));
+        return new OrderResult(order, conflicts);
+    }
 
-        // Save again to persist any meal swaps and updated status
-        DailyOrder saved = dailyOrderRepository.save(order);
-        return new OrderResult(saved, conflicts);
+    /**
+     * Puts a group of patients on one food type and regenerates their orders for today, in
+     * one transaction.
+     *
+     * The patients are locked in id order and then loaded in one query, so concurrent orders
+     * and diet edits of any of them wait for this one; their food type is written with batched
+     * updates. The orders are computed in memory and written with {@link
+     * DailyOrderRepository#upsertAll}. If the food type has no menu of the day (e.g. fasting),
+     * the patients' orders for today are deleted instead. Retried as a whole if a concurrent
+     * edit of one of the patients wins the race.
+     *
+     * @param request the food type and the patients, rooms and ward it applies to
+     * @return how many patients changed and orders were written or deleted, with the conflicts
+     * @throws IllegalArgumentException if no food type or no patient selector is given
+     * @throws EntityNotFoundException  if the food type does not exist
+     */
+    public BulkFoodTypeResult orderFoodTypeForPatients(BulkFoodTypeChangeDTO request) {
+        return optimisticRetry.run("bulk order of " + request.foodType(), () -> placeBulkOrder(request));
+    }
+
+    private BulkFoodTypeResult placeBulkOrder(BulkFoodTypeChangeDTO request) {
+        if (request.foodType() == null || request.foodType().isBlank()) {
+            throw new IllegalArgumentException("Missing foodType");
+        }
+        List<Long> patientIds = request.patientIds() != null ? request.patientIds() : List.of();
+        List<Long> roomIds = request.roomIds() != null ? request.roomIds() : List.of();
+        if (patientIds.isEmpty() && roomIds.isEmpty() && request.wardId() == null) {
+            throw new IllegalArgumentException("Give patientIds, roomIds or wardId");
+        }
+
+        FoodType foodType = foodTypeRepository.findByTypeNameIgnoreCase(request.foodType())
+                .orElseThrow(() -> new EntityNotFoundException("Food type '" + request.foodType() + "' not found"));
+        // Concurrent orders and diet edits of these patients wait until this batch commits
+        patientRepository.lockByIdsRoomsOrWard(patientIds, roomIds, request.wardId());
+        List<Patient> patients = patientRepository.findByIdsRoomsOrWard(patientIds, roomIds, request.wardId());
+        for (Patient patient : patients) {
+            patient.setFoodType(foodType);
+        }
+
+        LocalDate today = LocalDate.now();
+        Menu menu = foodType.getMenuOfTheDay();
+        List<PatientConflictSummaryDTO> conflicts = new ArrayList<>();
+        int written = 0;
+        int deleted = 0;
+
+        if (menu == null) {
+            List<Long> ids = patients.stream().map(Patient::getPatientID).toList();
+            deleted = ids.isEmpty() ? 0 : dailyOrderRepository.deleteByPatientIdsAndOrderDate(ids, today);
+        } else {
+            List<DailyOrder> orders = new ArrayList<>(patients.size());
+            Map<List<String>, List<FoodType>> candidates = new HashMap<>();
+            for (Patient patient : patients) {
+                DailyOrder order = buildOrder(patient, foodType, menu, today);
+                List<SlotConflictDTO> slotConflicts = checkForRestrictions(order, candidates);
+                if (!slotConflicts.isEmpty()) {
+                    conflicts.add(new PatientConflictSummaryDTO(
+                            patient.getName(), patient.getPatientID(), slotConflicts, order.getStatus().getLabel()));
+                }
+                orders.add(order);
+            }
+            expectStoredVersions(orders);
+            written = dailyOrderRepository.upsertAll(orders).size();
+        }
+
+        log.info("Put {} patient(s) on {}: {} order(s) written, {} deleted, {} conflicting",
+                patients.size(), foodType.getTypeName(), written, deleted, conflicts.size());
+        return new BulkFoodTypeResult(foodType.getTypeName(), patients.size(), written, deleted, conflicts);
     }
 
     /**
      * Generates today's orders for all patients in a ward and maps the result into
-     * a structured DTO grouped by rooms and patients.
+     * a structured DTO grouped by rooms and patients. Must be called outside a transaction:
+     * every patient's order is placed in its own transaction and retried on its own, so one
+     * conflict or failure does not undo the rest of the ward.
      *
-     * @param ward the ward to process
+     * @param wardName the ward's name, for the result and the metrics
+     * @param patients the ward's patients, grouped by room
      * @return an {@link OrderDTO} containing patient orders based on rooms
      */
-    public WardOrderResult generateOrdersForWard(Ward ward) {
-        List<OrderDTO.RoomInfo> roomInfos = new ArrayList<>();
-        List<PatientConflictSummaryDTO> allConflicts = new ArrayList<>();
-
-        for (Room room : ward.getRooms()) {
-            List<OrderDTO.PatientInfo> patientInfos = new ArrayList<>();
+    public WardOrderResult generateOrdersForWard(String wardName, List<WardPatientRowDTO> patients) {
+        return orderMetrics.timeWardOrder(wardName, () -> placeWardOrders(wardName, patients));
+    }
 
-            for (Patient patient : room.getPatients()) {
-                Long id = patient.getPatientID();
-                if (id == null) continue;
+    private WardOrderResult placeWardOrders(String wardName, List<WardPatientRowDTO> patients) {
+        // Rooms in the order their patients come, only those with at least one order placed
+        Map<String, List<OrderDTO.PatientInfo>> patientsByRoom = new LinkedHashMap<>();
+        List<PatientConflictSummaryDTO> allConflicts = new ArrayList<>();
 
-                try {
-                    OrderResult result = orderFoodTypeForPatient(id);
-                    DailyOrder order = result.order();
+        for (WardPatientRowDTO patient : patients) {
+            Long id = patient.patientId();
 
-                    // Collect conflicts for patients that had any
-                    if (!result.conflicts().isEmpty()) {
-                        allConflicts.add(new PatientConflictSummaryDTO(
-                                patient.getName(), id, result.conflicts(), order.getStatus()));
-                    }
+            try {
+                OrderResult result = orderFoodTypeForPatient(id);
+                DailyOrder order = result.order();
 
-                    patientInfos.add(new OrderDTO.PatientInfo(
-                            patient.getName(),
-                            order.getFoodType() != null ? order.getFoodType().getTypeName() : "",
-                            new OrderDTO.MealPlan(
-                                    mealName(order.getBreakfast()),
-                                    mealName(order.getLunch()),
-                                    mealName(order.getAfternoonSnack()),
-                                    mealName(order.getDinner()),
-                                    mealName(order.getNightSnack()))));
-
-                } catch (Exception e) {
-                    System.err.println(
-                            "Could not generate order for patient " + patient.getName() + ": " + e.getMessage());
+                // Collect conflicts for patients that had any
+                if (!result.conflicts().isEmpty()) {
+                    allConflicts.add(new PatientConflictSummaryDTO(
+                            patient.name(), id, result.conflicts(), order.getStatus().getLabel()));
                 }
-            }
 
-            if (!patientInfos.isEmpty()) {
-                roomInfos.add(new OrderDTO.RoomInfo(room.getRoomNumber(), patientInfos));
+                patientsByRoom.computeIfAbsent(patient.roomNumber(), room -> new ArrayList<>())
+                        .add(new OrderDTO.PatientInfo(
+                                patient.name(),
+                                order.getFoodType() != null ? order.getFoodType().getTypeName() : "",
+                                new OrderDTO.MealPlan(
+                                        mealName(order.getBreakfast()),
+                                        mealName(order.getLunch()),
+                                        mealName(order.getAfternoonSnack()),
+                                        mealName(order.getDinner()),
+                                        mealName(order.getNightSnack()))));
+
+            } catch (Exception e) {
+                log.warn("Could not generate order for patient {}: {}", id, e.getMessage());
             }
         }
 
-        return new WardOrderResult(new OrderDTO(ward.getWardName(), roomInfos), allConflicts);
+        List<OrderDTO.RoomInfo> roomInfos = new ArrayList<>();
+        patientsByRoom.forEach((roomNumber, patientInfos) ->
+                roomInfos.add(new OrderDTO.RoomInfo(roomNumber, patientInfos)));
+        return new WardOrderResult(new OrderDTO(wardName, roomInfos), allConflicts);
     }
 
     /**
      * Checks a patient's order for conflicts against their restrictions and updates
-     * the order's meals and status as needed.
+     * the order's meals and status as needed. Retried if the order changed concurrently.
      *
      * @param patientId the patient's id
      * @return the updated {@link DailyOrder}
@@ -175,7 +271,11 @@ public class DailyOrderService {
      *                                 exist.
      */
     public DailyOrder checkForConflicts(Long patientId) {
-        Patient patient = patientRepository.findById(patientId)
+        return optimisticRetry.run("conflict check for patient " + patientId, () -> recheckOrder(patientId));
+    }
+
+    private DailyOrder recheckOrder(Long patientId) {
+        Patient patient = patientRepository.findByIdForUpdate(patientId)
                 .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
 
         LocalDate today = LocalDate.now();
@@ -183,10 +283,204 @@ public class DailyOrderService {
         DailyOrder order = dailyOrderRepository.findByPatientAndOrderDate(patient, today)
                 .orElseThrow(() -> new EntityNotFoundException("No daily order found for today"));
 
-        checkForRestrictions(order);
+        checkForRestrictions(order, new HashMap<>());
         return dailyOrderRepository.save(order);
     }
 
+    /**
+     * Re-checks today's order for a patient after their restrictions or allergies changed.
+     *
+     * The existing order is updated in place instead of being deleted and recreated: slots
+     * that had been swapped away from the menu are reverted if the planned meal is safe
+     * again, and slots whose meal conflicts with the patient's current diet are swapped for a
+     * safe alternative. If the order changed concurrently, the re-check is retried on the
+     * current order.
+     *
+     * @param patientId the patient's id
+     * @return the updated {@link DailyOrder}, or empty if the patient has no order today
+     * @throws EntityNotFoundException if the patient does not exist
+     */
+    public Optional<DailyOrder> reevaluateOrder(Long patientId) {
+        return optimisticRetry.run("re-evaluation for patient " + patientId, () -> reevaluate(patientId));
+    }
+
+    private Optional<DailyOrder> reevaluate(Long patientId) {
+        Patient patient = patientRepository.findByIdForUpdate(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
+
+        Optional<DailyOrder> orderOpt = dailyOrderRepository.findByPatientAndOrderDate(patient, LocalDate.now());
+        if (orderOpt.isEmpty()) {
+            return orderOpt;
+        }
+        DailyOrder order = orderOpt.get();
+
+        ConflictProfile profile = conflictEngine.profileFor(patient);
+        Menu menu = order.getMenu();
+        Map<List<String>, List<FoodType>> candidates = new HashMap<>();
+        boolean changed = false;
+
+        for (MealSlot slot : MealSlot.values()) {
+            Meal current = order.getMeal(slot);
+            Meal planned = menu != null ? menu.getMeal(slot) : null;
+
+            // A relaxed diet may make the originally planned meal safe again
+            if (order.getSwapReason(slot) != null && planned != null && !sameMeal(planned, current)
+                    && profile.findConflict(planned) == null) {
+                order.setMeal(slot, planned);
+                changed = true;
+                continue;
+            }
+
+            // A stricter diet may rule out the meal the slot holds now
+            ConflictProfile.Conflict conflict = profile.findConflict(current);
+            if (conflict != null) {
+                Meal replacement = findSafeAlternative(order.getFoodType(), slot, profile, candidates);
+                if (replacement != null) {
+                    order.swapMeal(slot, replacement, swapReason(conflict));
+                    changed = true;
+                }
+            }
+        }
+
+        OrderStatus status = deriveStatus(order, menu, profile);
+        if (status != order.getStatus()) {
+            order.setStatus(status);
+            changed = true;
+        }
+
+        if (changed) {
+            dailyOrderRepository.save(order);
+        }
+        orderMetrics.recordReevaluation(changed);
+        log.debug("Re-evaluated order for patient {} → {} ({})",
+                patientId, order.getStatus(), changed ? "updated" : "unchanged");
+        return Optional.of(order);
+    }
+
+    /**
+     * Re-checks today's and future orders after a meal's ingredients changed.
+     *
+     * The affected orders are found through the reverse index on order lines and loaded in
+     * one query. Only the slots involving the meal are touched: slots serving it that now
+     * conflict are swapped for a safe alternative, and slots that had been swapped away from
+     * it are reverted if it is safe for the patient again.
+     *
+     * @param meal                the meal, already holding its new ingredients
+     * @param previousIngredients the ingredients before the change
+     * @return one summary per patient whose order conflicts with the meal now but did not
+     *         before the change
+     */
+    @Transactional
+    public List<PatientConflictSummaryDTO> reevaluateOrdersForMeal(Meal meal, String previousIngredients) {
+        return orderMetrics.timeMealImpact(() -> {
+            Meal before = new Meal();
+            before.setIngredients(previousIngredients);
+
+            List<DailyOrder> orders = dailyOrderRepository.findOrdersAffectedByMeal(meal.getId(), LocalDate.now());
+            List<PatientConflictSummaryDTO> newConflicts = new ArrayList<>();
+            Map<List<String>, List<FoodType>> candidates = new HashMap<>();
+            int updated = 0;
+
+            for (DailyOrder order : orders) {
+                ConflictProfile profile = conflictEngine.profileFor(order.getPatient());
+                Menu menu = order.getMenu();
+                List<SlotConflictDTO> conflicts = new ArrayList<>();
+                boolean changed = false;
+
+                for (MealSlot slot : MealSlot.values()) {
+                    Meal current = order.getMeal(slot);
+                    Meal planned = menu != null ? menu.getMeal(slot) : null;
+
+                    if (sameMeal(planned, meal) && !sameMeal(current, meal)) {
+                        if (profile.findConflict(meal) == null) {
+                            order.setMeal(slot, meal);
+                            changed = true;
+                        }
+                        continue;
+                    }
+                    if (!sameMeal(current, meal)) continue;
+
+                    ConflictProfile.Conflict conflict = profile.findConflict(meal);
+                    if (conflict == null || profile.findConflict(before) != null) continue;
+
+                    Meal replacement = findSafeAlternative(order.getFoodType(), slot, profile, candidates);
+                    if (replacement != null) {
+                        order.swapMeal(slot, replacement, swapReason(conflict));
+                        changed = true;
+                    }
+                    conflicts.add(new SlotConflictDTO(slot.getDisplayName(), meal.getName(), conflict.term(),
+                            replacement != null ? replacement.getName() : null, conflict.severity()));
+                }
+
+                OrderStatus status = deriveStatus(order, menu, profile);
+                if (status != order.getStatus()) {
+                    order.setStatus(status);
+                    changed = true;
+                }
+                if (changed) {
+                    dailyOrderRepository.save(order);
+                    updated++;
+                }
+                if (!conflicts.isEmpty()) {
+                    Patient patient = order.getPatient();
+                    newConflicts.add(new PatientConflictSummaryDTO(
+                            patient.getName(), patient.getPatientID(), conflicts, status.getLabel()));
+                }
+            }
+
+            log.info("Ingredient change of meal {} affected {} order(s): {} updated, {} newly conflicting",
+                    meal.getId(), orders.size(), updated, newConflicts.size());
+            return newConflicts;
+        });
+    }
+
+    /**
+     * Moves the orders of a day onto their food type's new menu of the day.
+     *
+     * The orders are rewritten with set-based statements per food type rather than
+     * regenerated one patient at a time, and a diff of the replaced meals is taken first.
+     * Afterwards only the moved orders of patients with restrictions or allergies are
+     * loaded and re-checked, since every other order now simply matches its menu.
+     *
+     * @param menus the new menus of the day, each linked to its food type
+     * @param date  the order date the menus apply to
+     * @return the number of moved orders, the meal diff and the conflicts found
+     */
+    @Transactional
+    public MenuPropagationResult propagateMenusOfTheDay(List<Menu> menus, LocalDate date) {
+        // Ids only, since the rewrite clears the persistence context
+        Map<Long, Long> menuByFoodType = new LinkedHashMap<>();
+        for (Menu menu : menus) {
+            if (menu.getFoodType() != null) {
+                menuByFoodType.put(menu.getFoodType().getId(), menu.getId());
+            }
+        }
+
+        List<MenuChangeDiffDTO> changes = new ArrayList<>();
+        List<Long> moved = new ArrayList<>();
+        menuByFoodType.forEach((foodTypeId, menuId) -> {
+            changes.addAll(dailyOrderRepository.diffOrdersAgainstMenu(foodTypeId, menuId, date));
+            moved.addAll(dailyOrderRepository.rewriteOrdersToMenu(foodTypeId, menuId, date));
+        });
+
+        List<PatientConflictSummaryDTO> conflicts = new ArrayList<>();
+        if (!moved.isEmpty()) {
+            Map<List<String>, List<FoodType>> candidates = new HashMap<>();
+            for (DailyOrder order : dailyOrderRepository.findRestrictedOrdersByIds(moved)) {
+                List<SlotConflictDTO> slotConflicts = checkForRestrictions(order, candidates);
+                if (!slotConflicts.isEmpty()) {
+                    Patient patient = order.getPatient();
+                    conflicts.add(new PatientConflictSummaryDTO(
+                            patient.getName(), patient.getPatientID(), slotConflicts, order.getStatus().getLabel()));
+                }
+            }
+        }
+
+        log.info("Moved {} order(s) on {} to new menus of the day: {} slot change(s), {} conflicting",
+                moved.size(), date, changes.size(), conflicts.size());
+        return new MenuPropagationResult(moved.size(), changes, conflicts);
+    }
+
     private String mealName(Meal meal) {
         return meal != null ? meal.getName() : "N/A";
     }
@@ -209,7 +503,7 @@ public class DailyOrderService {
 
         if (existingOrderOpt.isPresent()) {
             dailyOrderRepository.delete(existingOrderOpt.get());
-            System.out.println("Deleted today's order for patient " + patient.getName());
+            log.info("Deleted today's order for patient {}", patientId);
             return true;
         } else {
             return false;
@@ -218,233 +512,195 @@ public class DailyOrderService {
 
     // --- HELPER FUNCTIONS ---
 
-    // Checks each meal slot for restriction conflicts, auto-replaces where possible,
+    // Builds a patient's order from the menu, before any restriction checks
+    private DailyOrder buildOrder(Patient patient, FoodType foodType, Menu menu, LocalDate date) {
+        DailyOrder order = new DailyOrder();
+        order.setPatient(patient);
+        order.setOrderDate(date);
+        order.setMenu(menu);
+        order.setFoodType(foodType);
+        for (MealSlot slot : MealSlot.values()) {
+            order.setMeal(slot, menu.getMeal(slot));
+        }
+        order.setWard(patient.getWard());
+        order.setRoom(patient.getRoom());
+        order.setStatus(OrderStatus.SUBMITTED);
+        return order;
+    }
+
+    // Sets each new order's version to that of the stored order it replaces, read while the
+    // patients are locked, so the upsert fails rather than overwrite a change made since
+    private void expectStoredVersions(List<DailyOrder> orders) {
+        if (orders.isEmpty()) return;
+        List<Long> patientIds = orders.stream().map(order -> order.getPatient().getPatientID()).toList();
+        Map<Long, Long> versions = new HashMap<>();
+        for (OrderVersionDTO stored : dailyOrderRepository.findVersions(patientIds, orders.get(0).getOrderDate())) {
+            versions.put(stored.patientId(), stored.version());
+        }
+        for (DailyOrder order : orders) {
+            order.setVersion(versions.getOrDefault(order.getPatient().getPatientID(), 0L));
+        }
+    }
+
+    // Checks each meal slot for restriction and allergy conflicts, auto-replaces where possible,
     // updates the order's status, and returns a list of SlotConflictDTOs for UI display.
-    private List<SlotConflictDTO> checkForRestrictions(DailyOrder order) {
+    // Alternatives are looked up in (and added to) the candidates of the caller's order or batch.
+    private List<SlotConflictDTO> checkForRestrictions(DailyOrder order,
+            Map<List<String>, List<FoodType>> candidates) {
         Patient patient = order.getPatient();
         List<SlotConflictDTO> conflicts = new ArrayList<>();
-
-        String restrictionString = String.join(",", patient.getRestriction());
-        List<String> restrictions = List.of(restrictionString.split(","))
-                .stream()
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(String::toLowerCase)
-                .toList();
+        ConflictProfile profile = conflictEngine.profileFor(patient);
 
         boolean autoChanged = false;
         boolean needsManual = false;
 
-        // Returns the first restriction that matches the meal's ingredients (word-boundary),
-        // or null if no conflict is found.
-        java.util.function.Function<Meal, String> findConflict = meal -> {
-            if (meal == null || meal.getIngredients() == null) return null;
-            String ingredients = meal.getIngredients().toLowerCase();
-            for (String r : restrictions) {
-                if (r == null || r.isBlank()) continue;
-                String regex = "(?<![a-z0-9])" + java.util.regex.Pattern.quote(r) + "(?![a-z0-9])";
-                if (java.util.regex.Pattern.compile(regex).matcher(ingredients).find()) {
-                    return r;
-                }
-            }
-            return null;
-        };
-
-        // Helper to process one slot: find conflict, attempt swap, record result.
-        String matched;
+        for (MealSlot slot : MealSlot.values()) {
+            Meal meal = order.getMeal(slot);
+            ConflictProfile.Conflict conflict = profile.findConflict(meal);
+            if (conflict == null) continue;
 
-        matched = findConflict.apply(order.getBreakfast());
-        if (matched != null) {
-            String original = order.getBreakfast().getName();
-            Meal replacement = findSafeAlternative(order.getFoodType(), "breakfast", restrictions);
-            if (replacement != null) { order.setBreakfast(replacement); autoChanged = true; }
+            Meal replacement = findSafeAlternative(order.getFoodType(), slot, profile, candidates);
+            if (replacement != null) { order.swapMeal(slot, replacement, swapReason(conflict)); autoChanged = true; }
             else needsManual = true;
-            conflicts.add(new SlotConflictDTO("Breakfast", original, matched,
-                    replacement != null ? replacement.getName() : null));
+            conflicts.add(new SlotConflictDTO(slot.getDisplayName(), meal.getName(), conflict.term(),
+                    replacement != null ? replacement.getName() : null, conflict.severity()));
         }
 
-        matched = findConflict.apply(order.getLunch());
-        if (matched != null) {
-            String original = order.getLunch().getName();
-            Meal replacement = findSafeAlternative(order.getFoodType(), "lunch", restrictions);
-            if (replacement != null) { order.setLunch(replacement); autoChanged = true; }
-            else needsManual = true;
-            conflicts.add(new SlotConflictDTO("Lunch", original, matched,
-                    replacement != null ? replacement.getName() : null));
+        if (needsManual) {
+            order.setStatus(OrderStatus.NEEDS_MANUAL_CHANGE);
+        } else if (autoChanged) {
+            order.setStatus(OrderStatus.AUTO_CHANGED);
+        } else {
+            order.setStatus(OrderStatus.SUBMITTED);
         }
 
-        matched = findConflict.apply(order.getAfternoonSnack());
-        if (matched != null) {
-            String original = order.getAfternoonSnack().getName();
-            Meal replacement = findSafeAlternative(order.getFoodType(), "afternoonsnack", restrictions);
-            if (replacement != null) { order.setAfternoonSnack(replacement); autoChanged = true; }
-            else needsManual = true;
-            conflicts.add(new SlotConflictDTO("Afternoon Snack", original, matched,
-                    replacement != null ? replacement.getName() : null));
+        orderMetrics.recordOrderOutcome(order.getStatus().getLabel());
+        for (SlotConflictDTO conflict : conflicts) {
+            orderMetrics.recordConflict(order.getStatus().getLabel(), conflict.severity());
         }
 
-        matched = findConflict.apply(order.getDinner());
-        if (matched != null) {
-            String original = order.getDinner().getName();
-            Meal replacement = findSafeAlternative(order.getFoodType(), "dinner", restrictions);
-            if (replacement != null) { order.setDinner(replacement); autoChanged = true; }
-            else needsManual = true;
-            conflicts.add(new SlotConflictDTO("Dinner", original, matched,
-                    replacement != null ? replacement.getName() : null));
-        }
+        log.debug("Checked restrictions for patient {} → {} ({} conflict(s))",
+                patient.getPatientID(), order.getStatus(), conflicts.size());
+        return conflicts;
+    }
 
-        matched = findConflict.apply(order.getNightSnack());
-        if (matched != null) {
-            String original = order.getNightSnack().getName();
-            Meal replacement = findSafeAlternative(order.getFoodType(), "nightsnack", restrictions);
-            if (replacement != null) { order.setNightSnack(replacement); autoChanged = true; }
-            else needsManual = true;
-            conflicts.add(new SlotConflictDTO("Night Snack", original, matched,
-                    replacement != null ? replacement.getName() : null));
+    // Derives an order's status from its current slots: any slot that still conflicts needs a
+    // manual change, any slot that differs from the planned menu was changed automatically.
+    private OrderStatus deriveStatus(DailyOrder order, Menu menu, ConflictProfile profile) {
+        boolean autoChanged = false;
+        for (MealSlot slot : MealSlot.values()) {
+            Meal current = order.getMeal(slot);
+            if (profile.findConflict(current) != null) {
+                return OrderStatus.NEEDS_MANUAL_CHANGE;
+            }
+            if (menu != null && !sameMeal(current, menu.getMeal(slot))) {
+                autoChanged = true;
+            }
         }
+        return autoChanged ? OrderStatus.AUTO_CHANGED : OrderStatus.SUBMITTED;
+    }
 
-        if (needsManual) {
-            order.setStatus("NEEDS MANUAL CHANGE");
-        } else if (autoChanged) {
-            order.setStatus("AUTO CHANGED");
-        } else {
-            order.setStatus("SUBMITTED");
-        }
+    // Stored on the order line, e.g. "allergy: peanut" or "restriction: dairy"
+    private String swapReason(ConflictProfile.Conflict conflict) {
+        String kind = conflict.severity() == ConflictSeverity.SEVERE ? "allergy" : "restriction";
+        return kind + ": " + conflict.term();
+    }
 
-        System.out.println("Checked restrictions for " + patient.getName()
-                + " → " + order.getStatus() + " (" + conflicts.size() + " conflict(s))");
-        return conflicts;
+    private boolean sameMeal(Meal a, Meal b) {
+        if (a == null || b == null) return a == b;
+        return Objects.equals(a.getId(), b.getId());
     }
 
-    // Tries to find a safe alternative meal from the same food-type group.
-    // Returns null if no conflict-free meal exists (manual change required).
-    private Meal findSafeAlternative(FoodType currentFoodType, String category, List<String> restrictions) {
-        List<List<String>> groups = List.of(
-                List.of("A1", "A2", "A3", "OP", "RDS-KF", "RDS-G"),
-                List.of("M1", "M2", "M3"),
-                List.of("F1", "F1-S", "F1-M", "F2", "F3", "F4", "F4-S", "F5"));
+    // Food types that may stand in for each other, in order of preference
+    private static final List<List<String>> SUBSTITUTION_GROUPS = List.of(
+            List.of("A1", "A2", "A3", "OP", "RDS-KF", "RDS-G"),
+            List.of("M1", "M2", "M3"),
+            List.of("F1", "F1-S", "F1-M", "F2", "F3", "F4", "F4-S", "F5"));
 
-        String currentTypeName = currentFoodType.getTypeName();
+    private static Optional<List<String>> substitutionGroup(String typeName) {
+        return SUBSTITUTION_GROUPS.stream().filter(g -> g.contains(typeName)).findFirst();
+    }
+
+    // The food types of a substitution group with their menus of the day, keyed by group.
+    // Loaded on the first conflict and shared by the rest of the order or batch.
+    private List<FoodType> candidatesFor(List<String> group, Map<List<String>, List<FoodType>> candidates) {
+        return candidates.computeIfAbsent(group, g -> foodTypeRepository.findWithMenuOfTheDayByTypeNameIn(g).stream()
+                .sorted(Comparator.comparingInt(ft -> g.indexOf(ft.getTypeName())))
+                .toList());
+    }
 
-        Optional<List<String>> currentGroupOpt = groups.stream()
-                .filter(g -> g.contains(currentTypeName))
-                .findFirst();
+    // Tries to find a safe alternative meal for the slot from the same food-type group.
+    // Returns null if no conflict-free meal exists (manual change required).
+    private Meal findSafeAlternative(FoodType currentFoodType, MealSlot slot, ConflictProfile profile,
+            Map<List<String>, List<FoodType>> candidates) {
+        String currentTypeName = currentFoodType.getTypeName();
+        Optional<List<String>> currentGroupOpt = substitutionGroup(currentTypeName);
 
         if (currentGroupOpt.isEmpty()) {
-            System.out.println("[ALT] " + currentTypeName + " not in any known group — manual change required for " + category);
+            orderMetrics.recordAlternativeSearch("no_group");
+            altLog.debug("{} not in any known group — manual change required for {}", currentTypeName, slot);
             return null;
         }
 
         List<String> currentGroup = currentGroupOpt.get();
-        System.out.println("[ALT] Looking for safe " + category + " alternative for " + currentTypeName
-                + " — searching group " + currentGroup + " with restrictions " + restrictions);
-
-        List<FoodType> foodTypesInGroup = foodTypeRepository.findAll().stream()
-                .filter(ft -> currentGroup.contains(ft.getTypeName()))
-                .toList();
+        altLog.debug("Looking for safe {} alternative for {} — searching group {} with restrictions {}",
+                slot, currentTypeName, currentGroup, profile.terms());
 
-        for (FoodType ft : foodTypesInGroup) {
+        for (FoodType ft : candidatesFor(currentGroup, candidates)) {
             Menu menu = ft.getMenuOfTheDay();
             if (menu == null) {
-                System.out.println("[ALT]   " + ft.getTypeName() + " → no menuOfTheDay assigned, skipping");
+                altLog.debug("  {} → no menuOfTheDay assigned, skipping", ft.getTypeName());
                 continue;
             }
 
-            Meal candidate = switch (category.toLowerCase()) {
-                case "breakfast"     -> menu.getBreakfast();
-                case "lunch"         -> menu.getLunch();
-                case "afternoonsnack"-> menu.getAfternoonSnack();
-                case "dinner"        -> menu.getDinner();
-                case "nightsnack"    -> menu.getNightSnack();
-                default              -> null;
-            };
-
+            Meal candidate = menu.getMeal(slot);
             if (candidate == null) {
-                System.out.println("[ALT]   " + ft.getTypeName() + " → no meal in slot '" + category + "', skipping");
+                altLog.debug("  {} → no meal in slot {}, skipping", ft.getTypeName(), slot);
                 continue;
             }
             if (candidate.getIngredients() == null) {
-                System.out.println("[ALT]   " + ft.getTypeName() + " → meal '" + candidate.getName()
-                        + "' has no ingredients listed, skipping");
+                altLog.debug("  {} → meal '{}' has no ingredients listed, skipping", ft.getTypeName(), candidate.getName());
                 continue;
             }
 
-            String ingredients = candidate.getIngredients().toLowerCase();
-
-            // Use the same word-boundary regex as checkForRestrictions so that e.g.
+            // Use the same conflict profile as checkForRestrictions so that e.g.
             // restriction "milk" does NOT falsely match "buttermilk"
-            boolean hasConflict = restrictions.stream().anyMatch(token -> {
-                String regex = "(?<![a-z0-9])" + java.util.regex.Pattern.quote(token) + "(?![a-z0-9])";
-                boolean matched = java.util.regex.Pattern.compile(regex).matcher(ingredients).find();
-                if (matched) {
-                    System.out.println("[ALT]   " + ft.getTypeName() + " → meal '" + candidate.getName()
-                            + "' rejected: restriction '" + token + "' matched in ingredients [" + ingredients + "]");
-                }
-                return matched;
-            });
+            ConflictProfile.Conflict conflict = profile.findConflict(candidate);
+            boolean hasConflict = conflict != null;
+            if (hasConflict) {
+                altLog.debug("  {} → meal '{}' rejected: '{}' matched in ingredients [{}]",
+                        ft.getTypeName(), candidate.getName(), conflict.term(), candidate.getIngredients());
+            }
 
             if (!hasConflict) {
-                System.out.println("[ALT]   " + ft.getTypeName() + " → meal '" + candidate.getName()
-                        + "' is safe — using as replacement for " + currentTypeName + " " + category);
+                altLog.debug("  {} → meal '{}' is safe — using as replacement for {} {}",
+                        ft.getTypeName(), candidate.getName(), currentTypeName, slot);
+                orderMetrics.recordAlternativeSearch("found");
                 return candidate;
             }
         }
 
-        System.out.println("[ALT] No safe alternative found for " + currentTypeName + " " + category
-                + " — manual change required");
+        altLog.debug("No safe alternative found for {} {} — manual change required", currentTypeName, slot);
+        orderMetrics.recordAlternativeSearch("none");
         return null;
     }
 
-    // Finds today's order for a patient, if any
-    public DailyOrder findTodayOrderForPatient(Patient patient) {
-        return dailyOrderRepository.findByPatientAndOrderDate(patient, LocalDate.now())
-                .orElseGet(() -> {
-                    DailyOrder emptyOrder = new DailyOrder();
-                    emptyOrder.setPatient(patient);
-                    emptyOrder.setOrderDate(LocalDate.now());
-                    emptyOrder.setStatus("N/A");
-                    return emptyOrder;
-                });
-    }
-
     // For UC10
-    public List<DailyOrder> getFilteredOrders(LocalDate date, String foodType, String wardName, String status) {
-
-        if (wardName != null && date != null && foodType != null && status != null) {
-            return dailyOrderRepository.findByWardNameAndOrderDateAndFoodType_TypeNameAndStatus(wardName, date,
-                    foodType, status);
-        } else if (wardName != null && date != null && status != null) {
-            return dailyOrderRepository.findByWardNameAndOrderDateAndStatus(wardName, date, status);
-        } else if (wardName != null && foodType != null && status != null) {
-            return dailyOrderRepository.findByWardNameAndFoodType_TypeNameAndStatus(wardName, foodType, status);
-        } else if (wardName != null && status != null) {
-            return dailyOrderRepository.findByWardNameAndStatus(wardName, status);
-        } else if (wardName != null && date != null && foodType != null) {
-            return dailyOrderRepository.findByWardNameAndOrderDateAndFoodType_TypeName(wardName, date, foodType);
-        } else if (wardName != null && date != null) {
-            return dailyOrderRepository.findByWardNameAndOrderDate(wardName, date);
-        } else if (wardName != null && foodType != null) {
-            return dailyOrderRepository.findByWardNameAndFoodType_TypeName(wardName, foodType);
-        } else if (wardName != null) {
-            return dailyOrderRepository.findByWardName(wardName);
-        } else {
-            return dailyOrderRepository.findAll();
-        }
+    @Transactional(readOnly = true)
+    public List<DailyOrderSummaryDTO> getFilteredOrdersDTO(LocalDate date, String foodType, Long wardId,
+            OrderStatus status) {
+        return dailyOrderRepository.findSummaries(wardId, date, foodType, status);
     }
 
-    public List<DailyOrderSummaryDTO> getFilteredOrdersDTO(LocalDate date, String foodType, String wardName,
-            String status) {
-        List<DailyOrder> orders = getFilteredOrders(date, foodType, wardName, status);
-
-        return orders.stream()
-                .map(order -> new DailyOrderSummaryDTO(
-                        order.getId(),
-                        order.getOrderDate(),
-                        order.getWardName(),
-                        order.getRoomNumber(),
-                        order.getPatient() != null ? order.getPatient().getName() : "Unknown",
-                        order.getFoodType() != null ? order.getFoodType().getTypeName() : "N/A",
-                        order.getStatus()))
-                .toList();
+    /**
+     * Returns the dietitian worklist: every order of the given day that needs a manual
+     * change, across all wards, ordered by ward and room.
+     *
+     * @param date the order date
+     * @return the orders that need a manual change
+     */
+    @Transactional(readOnly = true)
+    public List<WorklistEntryDTO> getManualChangeWorklist(LocalDate date) {
+        return dailyOrderRepository.findManualChangeWorklist(date);
     }
-}
\ No newline at end of file
+}
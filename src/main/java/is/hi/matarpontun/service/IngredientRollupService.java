@@ -0,0 +1,132 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.dto.MealIngredientsDTO;
+import is.hi.matarpontun.dto.WardMealCountDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.repository.DailyOrderRepository;
+import is.hi.matarpontun.repository.MealRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Service for rolling ordered meals up into ingredient counts for procurement.
+ *
+ * Every meal on an order counts as one portion of each of its ingredients. The database
+ * counts portions per ward and meal, meals are turned into ingredient id vectors by
+ * {@link MealIngredientIndex}, and portions are summed into one {@code long[]} per ward
+ * indexed by ingredient id.
+ */
+@Service
+public class IngredientRollupService {
+
+    /** Longest date range that can be rolled up in one request. */
+    public static final int MAX_ROLLUP_DAYS = 31;
+
+    private final DailyOrderRepository dailyOrderRepository;
+    private final MealRepository mealRepository;
+    private final MealIngredientIndex mealIngredientIndex;
+
+    /**
+     * Constructs a new {@code IngredientRollupService}.
+     *
+     * @param dailyOrderRepository repository used to read the meals on {@link DailyOrder}s
+     * @param mealRepository       repository used to read {@link Meal} ingredient lists
+     * @param mealIngredientIndex  tokenised ingredient vectors per ingredient list
+     */
+    public IngredientRollupService(DailyOrderRepository dailyOrderRepository, MealRepository mealRepository,
+            MealIngredientIndex mealIngredientIndex) {
+        this.dailyOrderRepository = dailyOrderRepository;
+        this.mealRepository = mealRepository;
+        this.mealIngredientIndex = mealIngredientIndex;
+    }
+
+    /**
+     * Counts ingredient portions in the orders from {@code from} to {@code to}, inclusive,
+     * per ward and for the whole hospital. Ingredients are listed most used first.
+     *
+     * @param from first order date
+     * @param to   last order date
+     * @return the rollup: {@code from}, {@code to}, {@code totalOrders}, {@code wards}
+     *         (Ward → Ingredient → Portions) and {@code total} (Ingredient → Portions)
+     * @throws IllegalArgumentException if the range is empty or longer than {@value #MAX_ROLLUP_DAYS} days
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> rollup(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_ROLLUP_DAYS) {
+            throw new IllegalArgumentException("The date range can be at most " + MAX_ROLLUP_DAYS + " days");
+        }
+
+        long totalOrders = dailyOrderRepository.countByOrderDateBetween(from, to);
+        List<WardMealCountDTO> mealCounts = dailyOrderRepository.countMealsByWardAndOrderDateRange(from, to);
+
+        Set<Long> mealIds = new HashSet<>();
+        for (WardMealCountDTO count : mealCounts) {
+            mealIds.add(count.mealId());
+        }
+        Map<Long, int[]> vectors = new HashMap<>();
+        if (!mealIds.isEmpty()) {
+            for (MealIngredientsDTO meal : mealRepository.findIngredientsByIds(mealIds)) {
+                vectors.put(meal.mealId(), mealIngredientIndex.vector(meal.ingredients()));
+            }
+        }
+
+        // Every id in the vectors above is below this
+        int ingredients = mealIngredientIndex.size();
+        Map<String, long[]> wardPortions = new TreeMap<>();
+        for (WardMealCountDTO count : mealCounts) {
+            String wardName = count.wardName() != null ? count.wardName() : "Unassigned";
+            long[] portions = wardPortions.computeIfAbsent(wardName, w -> new long[ingredients]);
+            addPortions(portions, vectors.get(count.mealId()), count.portions());
+        }
+
+        long[] total = new long[ingredients];
+        Map<String, Map<String, Long>> wards = new LinkedHashMap<>();
+        wardPortions.forEach((wardName, portions) -> {
+            for (int i = 0; i < ingredients; i++) total[i] += portions[i];
+            wards.put(wardName, toNamedCounts(portions));
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from.toString());
+        response.put("to", to.toString());
+        response.put("totalOrders", totalOrders);
+        response.put("wards", wards);
+        response.put("total", toNamedCounts(total));
+
+        return response;
+    }
+
+    private static void addPortions(long[] portions, int[] vector, long meals) {
+        if (vector == null) return;
+        for (int ingredient : vector) {
+            portions[ingredient] += meals;
+        }
+    }
+
+    /**
+     * Converts portions indexed by ingredient id into ingredient names, most used first.
+     */
+    private Map<String, Long> toNamedCounts(long[] portions) {
+        List<Integer> used = new ArrayList<>();
+        for (int i = 0; i < portions.length; i++) {
+            if (portions[i] > 0) used.add(i);
+        }
+        used.sort((a, b) -> portions[a] != portions[b]
+                ? Long.compare(portions[b], portions[a])
+                : mealIngredientIndex.name(a).compareTo(mealIngredientIndex.name(b)));
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int ingredient : used) {
+            counts.put(mealIngredientIndex.name(ingredient), portions[ingredient]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,288 @@
+package is.hi.matarpontun.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable ingredient taxonomy used to widen restriction and allergy matching.
+ *
+ * The taxonomy is a DAG of ingredients ("dairy" → "milk", "cheese", "butter") where every
+ * ingredient may have several spellings ("yogurt", "yoghurt", "jógúrt"). Expanding a term
+ * returns all spellings of the term and of every ingredient below it, so a restriction on
+ * "dairy" also matches a meal containing "cheese".
+ *
+ * Spellings are stored in a {@link TermTrie} and the DAG in primitive arrays. Expansions
+ * of terms in the taxonomy are computed once and memoised; any other term expands to itself.
+ *
+ * File format, one rule per line ({@code #} starts a comment):
+ * <pre>
+ *   dairy &gt; milk, cheese, butter    parent &gt; children
+ *   yogurt = yoghurt, jógúrt           term = synonyms
+ * </pre>
+ */
+@Component
+public class IngredientTaxonomy {
+
+    private final TermTrie lookup;       // spelling -> term id
+    private final String[] spellings;    // term id -> spelling
+    private final int[] canonical;       // term id -> canonical term id of its synonym group
+    private final int[][] aliases;       // canonical id -> every term id in its synonym group
+    private final int[][] children;      // canonical id -> canonical ids of its direct children
+    private final int[][] parents;       // canonical id -> canonical ids of its direct parents
+
+    // Keyed by terms of the taxonomy only, so they hold at most one entry per spelling no
+    // matter how many different terms users enter
+    private final Map<String, List<String>> expansions = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> generalizations = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the taxonomy from the configured resource.
+     *
+     * @param location the taxonomy file, {@code classpath:ingredient-taxonomy.txt} by default
+     */
+    @Autowired // the private constructor below would otherwise leave Spring without a pick
+    public IngredientTaxonomy(
+            @Value("${matarpontun.taxonomy.location:classpath:ingredient-taxonomy.txt}") Resource location) {
+        this(read(location));
+    }
+
+    private IngredientTaxonomy(Parsed parsed) {
+        this.lookup = parsed.lookup;
+        this.spellings = parsed.spellings;
+        this.canonical = parsed.canonical;
+        this.aliases = parsed.aliases;
+        this.children = parsed.children;
+        this.parents = parsed.parents;
+    }
+
+    /**
+     * Parses a taxonomy from a reader in the format described on the class.
+     *
+     * @param reader the taxonomy source
+     * @return the parsed taxonomy
+     */
+    public static IngredientTaxonomy parse(Reader reader) {
+        try {
+            return new IngredientTaxonomy(Parsed.from(new BufferedReader(reader)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ingredient taxonomy", e);
+        }
+    }
+
+    /**
+     * @return an empty taxonomy where every term only matches itself
+     */
+    public static IngredientTaxonomy empty() {
+        return parse(Reader.nullReader());
+    }
+
+    /**
+     * Returns every spelling covered by a normalised term: its synonyms and the synonyms of
+     * all of its descendants. Unknown terms expand to themselves.
+     *
+     * @param term a trimmed, lower-case restriction or allergy term
+     * @return the expansion, starting with the term itself
+     */
+    public List<String> expand(String term) {
+        return memoised(term, expansions, children);
+    }
+
+    /**
+     * The reverse of {@link #expand}: every spelling whose expansion covers the term, i.e.
+     * its synonyms and the synonyms of all of its ancestors. A patient restricted from any
+     * of these is restricted from the term. Unknown terms generalize to themselves.
+     *
+     * @param term a trimmed, lower-case ingredient term
+     * @return the generalization, starting with the term itself
+     */
+    public List<String> generalize(String term) {
+        return memoised(term, generalizations, parents);
+    }
+
+    /**
+     * Maps a spelling to the canonical spelling of its synonym group,
+     * e.g. "yoghurt" to "yogurt". Unknown terms map to themselves.
+     */
+    public String canonicalSpelling(String term) {
+        int id = lookup.get(term);
+        return id < 0 ? term : spellings[canonical[id]];
+    }
+
+    /**
+     * @return the number of distinct spellings in the taxonomy
+     */
+    public int size() {
+        return spellings.length;
+    }
+
+    private List<String> memoised(String term, Map<String, List<String>> memo, int[][] edges) {
+        int id = lookup.get(term);
+        if (id < 0) {
+            return List.of(term);
+        }
+        return memo.computeIfAbsent(term, t -> walk(t, id, edges));
+    }
+
+    // Collects the spellings of the term and of everything reachable from it along edges
+    private List<String> walk(String term, int id, int[][] edges) {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(term);
+
+        // Depth-first walk of the DAG; a visited set keeps shared children (and any
+        // accidental cycle in the source file) from being walked twice
+        BitSet visited = new BitSet(spellings.length);
+        int[] stack = new int[spellings.length];
+        int top = 0;
+        stack[top++] = canonical[id];
+        visited.set(canonical[id]);
+
+        while (top > 0) {
+            int node = stack[--top];
+            for (int alias : aliases[node]) {
+                result.add(spellings[alias]);
+            }
+            for (int next : edges[node]) {
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    stack[top++] = next;
+                }
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private static Parsed read(Resource location) {
+        try (Reader reader = new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8)) {
+            return Parsed.from(new BufferedReader(reader));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ingredient taxonomy from " + location, e);
+        }
+    }
+
+    /** Intermediate result of parsing, turned into the immutable arrays above. */
+    private static final class Parsed {
+        TermTrie lookup;
+        String[] spellings;
+        int[] canonical;
+        int[][] aliases;
+        int[][] children;
+        int[][] parents;
+
+        static Parsed from(BufferedReader reader) throws IOException {
+            TermTrie.Builder trie = TermTrie.builder();
+            Map<String, Integer> ids = new HashMap<>();
+            List<String> terms = new ArrayList<>();
+            List<int[]> edges = new ArrayList<>();
+            List<int[]> synonyms = new ArrayList<>();
+
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                boolean isParentRule = line.contains(">");
+                String[] sides = line.split(isParentRule ? ">" : "=", 2);
+                if (sides.length != 2) {
+                    throw new IllegalArgumentException("Invalid taxonomy rule on line " + lineNumber + ": " + line);
+                }
+
+                int left = intern(sides[0], ids, terms, trie);
+                for (String right : sides[1].split(",")) {
+                    if (right.isBlank()) continue;
+                    int r = intern(right, ids, terms, trie);
+                    (isParentRule ? edges : synonyms).add(new int[] { left, r });
+                }
+            }
+
+            int n = terms.size();
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) parent[i] = i;
+            for (int[] pair : synonyms) union(parent, pair[0], pair[1]);
+
+            Parsed parsed = new Parsed();
+            parsed.lookup = trie.build();
+            parsed.spellings = terms.toArray(String[]::new);
+            parsed.canonical = new int[n];
+            for (int i = 0; i < n; i++) parsed.canonical[i] = find(parent, i);
+
+            List<List<Integer>> aliasLists = new ArrayList<>();
+            List<Set<Integer>> childSets = new ArrayList<>();
+            List<Set<Integer>> parentSets = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                aliasLists.add(new ArrayList<>());
+                childSets.add(new LinkedHashSet<>());
+                parentSets.add(new LinkedHashSet<>());
+            }
+            for (int i = 0; i < n; i++) aliasLists.get(parsed.canonical[i]).add(i);
+            for (int[] edge : edges) {
+                int from = parsed.canonical[edge[0]];
+                int to = parsed.canonical[edge[1]];
+                if (from != to) {
+                    childSets.get(from).add(to);
+                    parentSets.get(to).add(from);
+                }
+            }
+
+            parsed.aliases = new int[n][];
+            parsed.children = new int[n][];
+            parsed.parents = new int[n][];
+            for (int i = 0; i < n; i++) {
+                parsed.aliases[i] = aliasLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+                parsed.children[i] = childSets.get(i).stream().mapToInt(Integer::intValue).toArray();
+                parsed.parents[i] = parentSets.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+            return parsed;
+        }
+
+        private static int intern(String raw, Map<String, Integer> ids, List<String> terms, TermTrie.Builder trie) {
+            String term = raw.trim().toLowerCase(Locale.ROOT);
+            if (term.isEmpty()) {
+                throw new IllegalArgumentException("Empty term in ingredient taxonomy");
+            }
+            return ids.computeIfAbsent(term, t -> {
+                terms.add(t);
+                trie.put(t, terms.size() - 1);
+                return terms.size() - 1;
+            });
+        }
+
+        // Union-find over synonym pairs; the smaller id (first seen) becomes canonical
+        private static int find(int[] parent, int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+
+        private static void union(int[] parent, int a, int b) {
+            int ra = find(parent, a);
+            int rb = find(parent, b);
+            if (ra != rb) {
+                parent[Math.max(ra, rb)] = Math.min(ra, rb);
+            }
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package is.hi.matarpontun.service;
 
+import is.hi.matarpontun.dto.FoodTypeCountDTO;
+import is.hi.matarpontun.dto.KitchenMealCountDTO;
+import is.hi.matarpontun.dto.MenuForecastRowDTO;
+import is.hi.matarpontun.metrics.OrderMetrics;
 import is.hi.matarpontun.model.DailyOrder;
-import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.MealSlot;
+import is.hi.matarpontun.model.Menu;
+import is.hi.matarpontun.model.Patient;
 import is.hi.matarpontun.repository.DailyOrderRepository;
+import is.hi.matarpontun.repository.MenuRepository;
+import is.hi.matarpontun.repository.PatientRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for managing operations related to the kitchen.
@@ -15,69 +23,150 @@ import java.util.stream.Collectors;
 @Service
 public class KitchenService {
 
+    /** Longest forecast the kitchen can ask for. */
+    public static final int MAX_FORECAST_DAYS = 28;
+
     private final DailyOrderRepository dailyOrderRepository;
+    private final MenuRepository menuRepository;
+    private final PatientRepository patientRepository;
+    private final OrderMetrics orderMetrics;
 
     /**
      * Constructs a new {@code KitchenService}.
      *
      * @param dailyOrderRepository repository used to access and query {@link DailyOrder}s
+     * @param menuRepository       repository used to read planned {@link Menu}s for the forecast
+     * @param patientRepository    repository used to count {@link Patient}s per food type
+     * @param orderMetrics         timer for building the summary
      */
-    public KitchenService(DailyOrderRepository dailyOrderRepository) {
+    public KitchenService(DailyOrderRepository dailyOrderRepository, MenuRepository menuRepository,
+            PatientRepository patientRepository, OrderMetrics orderMetrics) {
         this.dailyOrderRepository = dailyOrderRepository;
+        this.menuRepository = menuRepository;
+        this.patientRepository = patientRepository;
+        this.orderMetrics = orderMetrics;
     }
 
     /**
      * Builds a hierarchical summary of today's meals grouped by:
      * Ward → Meal Category → FoodType → Count
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getTodaysOrdersSummary() {
-        LocalDate today = LocalDate.now();
+        return orderMetrics.timeKitchenSummary(this::buildTodaysOrdersSummary);
+    }
 
-        List<DailyOrder> todaysOrders = dailyOrderRepository.findAll().stream()
-                .filter(order -> order.getOrderDate().equals(today))
-                .collect(Collectors.toList());
+    private Map<String, Object> buildTodaysOrdersSummary() {
+        LocalDate today = LocalDate.now();
 
-        if (todaysOrders.isEmpty()) {
+        long totalOrders = dailyOrderRepository.countByOrderDate(today);
+        if (totalOrders == 0) {
             return Map.of("message", "No daily orders found for today (" + today + ")");
         }
 
+        // Already counted per ward, slot and food type by the database
         Map<String, Map<String, Map<String, Long>>> wardSummary = new TreeMap<>();
-
-        for (DailyOrder order : todaysOrders) {
-            String wardName = order.getWardName() != null ? order.getWardName() : "Unassigned";
-            wardSummary.putIfAbsent(wardName, new TreeMap<>());
-
-            addMealToSummary(wardSummary.get(wardName), "Breakfast", order.getBreakfast());
-            addMealToSummary(wardSummary.get(wardName), "Lunch", order.getLunch());
-            addMealToSummary(wardSummary.get(wardName), "AfternoonSnack", order.getAfternoonSnack());
-            addMealToSummary(wardSummary.get(wardName), "Dinner", order.getDinner());
-            addMealToSummary(wardSummary.get(wardName), "NightSnack", order.getNightSnack());
+        for (KitchenMealCountDTO count : dailyOrderRepository.countKitchenMealsByOrderDate(today)) {
+            String wardName = count.wardName() != null ? count.wardName() : "Unassigned";
+            wardSummary.computeIfAbsent(wardName, w -> new TreeMap<>())
+                    .computeIfAbsent(categoryName(count.slot()), c -> new TreeMap<>())
+                    .merge(count.foodType(), count.meals(), Long::sum);
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("date", today.toString());
         response.put("wards", wardSummary);
-        response.put("totalOrders", todaysOrders.size());
+        response.put("totalOrders", totalOrders);
 
         return response;
     }
 
     /**
-     * Helper method for incrementing meal counts within a nested summary structure.
-     * 
-     * Adds a meal for a ward’s summary map under the specified category and food type.
+     * Projects meal counts for the next {@code days} days, starting tomorrow, from the
+     * current census and the menus already planned for those days. No orders are created.
      *
-     * @param mealSummary the summary map for a single ward
-     * @param category    the meal category (e.g., "Breakfast", "Lunch")
-     * @param meal        the {@link Meal} to be counted
+     * The result is grouped by Date → Meal Category → FoodType → {meal, count}. Food types
+     * with patients but no planned menu on a day are listed under {@code unplanned} for
+     * that day, so the kitchen can see what is still missing from the plan.
+     *
+     * @param days number of days to forecast, 1 to {@value #MAX_FORECAST_DAYS}
+     * @return the forecast
+     * @throws IllegalArgumentException if {@code days} is out of range
      */
-    private void addMealToSummary(Map<String, Map<String, Long>> mealSummary, String category, Meal meal) {
-        if (meal == null || meal.getFoodType() == null) return;
+    @Transactional(readOnly = true)
+    public Map<String, Object> getForecast(int days) {
+        if (days < 1 || days > MAX_FORECAST_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_FORECAST_DAYS);
+        }
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(days - 1L);
+
+        // Census per food type, and the planned menus joined with it in a single aggregate
+        Map<String, Long> census = new TreeMap<>();
+        for (FoodTypeCountDTO count : patientRepository.countOnWardsByFoodType()) {
+            census.put(count.foodType(), count.patients());
+        }
+        List<MenuForecastRowDTO> planned = menuRepository.forecastByDateRange(from, to);
+
+        Map<LocalDate, Map<String, Map<String, Map<String, Object>>>> meals = new TreeMap<>();
+        Map<LocalDate, Set<String>> plannedFoodTypes = new HashMap<>();
+        for (MenuForecastRowDTO row : planned) {
+            Map<String, Map<String, Map<String, Object>>> day =
+                    meals.computeIfAbsent(row.date(), d -> new LinkedHashMap<>());
+            addMealToForecast(day, "Breakfast", row.foodType(), row.breakfast(), row.patients());
+            addMealToForecast(day, "Lunch", row.foodType(), row.lunch(), row.patients());
+            addMealToForecast(day, "AfternoonSnack", row.foodType(), row.afternoonSnack(), row.patients());
+            addMealToForecast(day, "Dinner", row.foodType(), row.dinner(), row.patients());
+            addMealToForecast(day, "NightSnack", row.foodType(), row.nightSnack(), row.patients());
+            plannedFoodTypes.computeIfAbsent(row.date(), d -> new HashSet<>()).add(row.foodType());
+        }
+
+        Map<String, Object> forecast = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            Set<String> plannedOnDay = plannedFoodTypes.getOrDefault(date, Set.of());
+            Map<String, Long> unplanned = new TreeMap<>();
+            census.forEach((foodType, patients) -> {
+                if (!plannedOnDay.contains(foodType)) unplanned.put(foodType, patients);
+            });
+
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("meals", meals.getOrDefault(date, Map.of()));
+            day.put("unplanned", unplanned);
+            forecast.put(date.toString(), day);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from.toString());
+        response.put("to", to.toString());
+        response.put("census", census);
+        response.put("days", forecast);
+
+        return response;
+    }
 
-        String foodType = meal.getFoodType().getTypeName();
-        mealSummary.putIfAbsent(category, new TreeMap<>());
-        Map<String, Long> categoryMap = mealSummary.get(category);
+    /**
+     * Helper method for adding a planned meal to a day of the forecast.
+     *
+     * @param day      the forecast for a single day
+     * @param category the meal category (e.g., "Breakfast", "Lunch")
+     * @param foodType the food type of the menu
+     * @param meal     the name of the planned meal, or {@code null} if there is none
+     * @param patients the number of patients with the food type
+     */
+    private void addMealToForecast(Map<String, Map<String, Map<String, Object>>> day, String category,
+            String foodType, String meal, long patients) {
+        if (meal == null) return;
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("meal", meal);
+        entry.put("count", patients);
+        day.computeIfAbsent(category, c -> new TreeMap<>()).put(foodType, entry);
+    }
 
-        categoryMap.put(foodType, categoryMap.getOrDefault(foodType, 0L) + 1);
+    /**
+     * The summary's name for a slot, e.g. "AfternoonSnack".
+     */
+    private static String categoryName(MealSlot slot) {
+        return slot.getDisplayName().replace(" ", "");
     }
 }
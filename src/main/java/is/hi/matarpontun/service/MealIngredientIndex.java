@@ -0,0 +1,89 @@
+package is.hi.matarpontun.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a meal's ingredient list into a vector of ingredient ids for fast aggregation.
+ *
+ * The list is split on commas and every entry is mapped to the canonical spelling of its
+ * synonym group in the {@link IngredientTaxonomy}, so "mjólk" and "milk" count as the same
+ * ingredient. Each distinct ingredient gets a small int id; vectors are memoised by the
+ * ingredient text, so an edited meal simply gets a new vector.
+ */
+@Component
+public class MealIngredientIndex {
+
+    private static final int[] NO_INGREDIENTS = new int[0];
+
+    private final IngredientTaxonomy taxonomy;
+
+    private final Map<String, int[]> vectors = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public MealIngredientIndex(IngredientTaxonomy taxonomy) {
+        this.taxonomy = taxonomy;
+    }
+
+    /**
+     * Returns the distinct ingredient ids of an ingredient list, in ascending order.
+     *
+     * @param ingredients a meal's comma-separated ingredients, may be {@code null}
+     * @return the ingredient ids; shared, must not be modified
+     */
+    public int[] vector(String ingredients) {
+        if (ingredients == null || ingredients.isBlank()) return NO_INGREDIENTS;
+        return vectors.computeIfAbsent(ingredients, this::computeVector);
+    }
+
+    /**
+     * @param id an id from {@link #vector(String)}
+     * @return the canonical ingredient name
+     */
+    public synchronized String name(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * @return the number of ingredient ids handed out so far; every id is below this
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    private int[] computeVector(String ingredients) {
+        String[] entries = ingredients.split(",");
+        int[] vector = new int[entries.length];
+        int length = 0;
+        for (String entry : entries) {
+            String term = entry.trim().toLowerCase(Locale.ROOT);
+            if (term.isEmpty()) continue;
+            vector[length++] = id(taxonomy.canonicalSpelling(term));
+        }
+        // Sorted and deduplicated, so "milk, mjólk" counts milk once
+        Arrays.sort(vector, 0, length);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || vector[distinct - 1] != vector[i]) vector[distinct++] = vector[i];
+        }
+        return Arrays.copyOf(vector, distinct);
+    }
+
+    private int id(String ingredient) {
+        Integer id = ids.get(ingredient);
+        if (id != null) return id;
+        synchronized (this) {
+            return ids.computeIfAbsent(ingredient, name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+    }
+}
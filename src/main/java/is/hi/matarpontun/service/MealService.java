@@ -1,6 +1,7 @@
 package is.hi.matarpontun.service;
 
 import is.hi.matarpontun.dto.MealDTO;
+import is.hi.matarpontun.dto.PatientConflictSummaryDTO;
 import is.hi.matarpontun.model.FoodType;
 import is.hi.matarpontun.model.Meal;
 import is.hi.matarpontun.model.Menu;
@@ -11,9 +12,11 @@ import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Service responsible for managing {@link Meal} entities.
@@ -24,16 +27,23 @@ public class MealService {
     @Autowired
     private MealRepository mealRepository;
     private final FoodTypeRepository foodTypeRepository;
+    private final DailyOrderService dailyOrderService;
+
+    /** Wraps an updated meal together with the patients whose orders now conflict with it. */
+    public record IngredientChangeResult(Meal meal, List<PatientConflictSummaryDTO> newConflicts) {}
 
     /**
      * Constructs a new {@code MealService} with required repositories.
      *
      * @param mealRepository      the repository responsible for accessing {@link Meal} entities
      * @param foodTypeRepository  repository for retrieving {@link FoodType} entities
+     * @param dailyOrderService   service that re-checks orders after a meal changes
      */
-    public MealService(MealRepository mealRepository, FoodTypeRepository foodTypeRepository) {
+    public MealService(MealRepository mealRepository, FoodTypeRepository foodTypeRepository,
+            DailyOrderService dailyOrderService) {
         this.mealRepository = mealRepository;
         this.foodTypeRepository = foodTypeRepository;
+        this.dailyOrderService = dailyOrderService;
     }
 
     /**
@@ -92,19 +102,27 @@ public class MealService {
     }
 
     /**
-     * Changes the ingredient list for an existing {@link Meal}.
+     * Changes the ingredient list for an existing {@link Meal} and re-checks today's and
+     * future orders that serve it, in the same transaction.
      *
      * @param mealId         the id of the meal to update.
      * @param newIngredients the new ingredient string.
-     * @return the updated {@link Meal}.
+     * @return the updated {@link Meal} and the patients whose orders newly conflict with it.
      * @throws EntityNotFoundException if no meal exists with the given ID.
      */
-    public Meal modifyMealIngredients(Long mealId, String newIngredients) {
+    @Transactional
+    public IngredientChangeResult modifyMealIngredients(Long mealId, String newIngredients) {
         Meal meal = mealRepository.findById(mealId)
                 .orElseThrow(() -> new EntityNotFoundException("Meal not found with ID: " + mealId));
 
+        String previousIngredients = meal.getIngredients();
         meal.setIngredients(newIngredients);
-        return mealRepository.save(meal);
+        Meal saved = mealRepository.save(meal);
+        if (Objects.equals(previousIngredients, newIngredients)) {
+            return new IngredientChangeResult(saved, List.of());
+        }
+        return new IngredientChangeResult(saved,
+                dailyOrderService.reevaluateOrdersForMeal(saved, previousIngredients));
     }
 
     /**
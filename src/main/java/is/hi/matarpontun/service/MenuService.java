@@ -7,7 +7,10 @@ import is.hi.matarpontun.repository.FoodTypeRepository;
 import is.hi.matarpontun.repository.MealRepository;
 import is.hi.matarpontun.repository.MenuRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,9 +22,12 @@ import java.util.Random;
 @Service
 public class MenuService {
 
+    private static final Logger log = LoggerFactory.getLogger(MenuService.class);
+
     private final MenuRepository menuRepository;
     private final MealRepository mealRepository;
     private final FoodTypeRepository foodTypeRepository;
+    private final DailyOrderService dailyOrderService;
 
     /**
      * Constructs a new {@code MenuService} with required repositories.
@@ -29,13 +35,16 @@ public class MenuService {
      * @param menuRepository      the repository responsible for accessing {@link Menu} entities
      * @param mealRepository      the repository responsible for accessing {@link Meal} entities
      * @param foodTypeRepository  the repository responsible for accessing {@link FoodType} entities
+     * @param dailyOrderService   service that moves existing orders to the new menus
      */
     public MenuService(MenuRepository menuRepository,
             MealRepository mealRepository,
-            FoodTypeRepository foodTypeRepository) {
+            FoodTypeRepository foodTypeRepository,
+            DailyOrderService dailyOrderService) {
         this.menuRepository = menuRepository;
         this.mealRepository = mealRepository;
         this.foodTypeRepository = foodTypeRepository;
+        this.dailyOrderService = dailyOrderService;
     }
 
     /**
@@ -61,7 +70,7 @@ public class MenuService {
         for (FoodType foodType : foodTypes) {
             // Check if a menu already exists for this date and food type
             if (menuRepository.findByFoodTypeAndDate(foodType, targetDate).isPresent()) {
-                System.out.println("Skipping existing menu for " + foodType.getTypeName() + " on " + targetDate);
+                log.info("Skipping existing menu for {} on {}", foodType.getTypeName(), targetDate);
                 continue;
             }
 
@@ -109,11 +118,14 @@ public class MenuService {
      * Assigns today’s {@link Menu} as the “menu of the day” for each {@link FoodType}.
      * 
      * Looks up all menus matching the current date and updates their corresponding
-     * {@link FoodType} entities to reference the appropriate daily menu.
+     * {@link FoodType} entities to reference the appropriate daily menu. Today's orders
+     * that are still on an older menu are then moved onto the new one.
      *
+     * @return the moved orders' meal diff and any conflicts the new meals caused
      * @throws IllegalStateException if no menus exist for the current date.
      */
-    public void assignMenuOfTheDay() {
+    @Transactional
+    public DailyOrderService.MenuPropagationResult assignMenuOfTheDay() {
         LocalDate today = LocalDate.now();
         List<Menu> todayMenus = menuRepository.findAll()
                 .stream()
@@ -131,5 +143,7 @@ public class MenuService {
                 foodTypeRepository.save(foodType);
             }
         }
+
+        return dailyOrderService.propagateMenusOfTheDay(todayMenus, today);
     }
 }
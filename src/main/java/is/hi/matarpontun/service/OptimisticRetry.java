@@ -0,0 +1,87 @@
+package is.hi.matarpontun.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and runs it again when it lost a race with a
+ * concurrent edit: a stale {@code @Version}, a deadlock, or a duplicate key from two
+ * requests inserting the same row. Every attempt re-reads what it needs, so the retry
+ * works on the winner's data instead of overwriting it.
+ *
+ * Inside an already running transaction the work runs once: after a failure that
+ * transaction is rollback-only, and only the code that started it can retry.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    /**
+     * Constructs a new {@code OptimisticRetry}.
+     *
+     * @param transactionManager the transaction manager each attempt runs in
+     * @param maxAttempts        how often the work is tried before the failure is passed on
+     * @param backoffMillis      base pause before a retry; grows with each attempt and is jittered
+     */
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+            @Value("${matarpontun.orders.max-attempts:3}") int maxAttempts,
+            @Value("${matarpontun.orders.retry-backoff-ms:20}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Runs the work in a transaction, retrying it on concurrency failures.
+     *
+     * @param operation short description for the log, e.g. "order for patient 12"
+     * @param work      the work; must be safe to run again from the start
+     * @return the work's result
+     * @throws ConcurrencyFailureException if the last attempt still lost the race
+     * @throws DuplicateKeyException       likewise, for a concurrent insert of the same row
+     */
+    public <T> T run(String operation, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException | DuplicateKeyException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up on {} after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("Concurrent edit during {} (attempt {} of {}), retrying: {}",
+                        operation, attempt, maxAttempts, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    // Jittered, so two requests that collided do not collide again on the retry
+    private void pause(int attempt) {
+        long millis = backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
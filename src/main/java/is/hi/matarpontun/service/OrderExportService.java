@@ -0,0 +1,154 @@
+package is.hi.matarpontun.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import is.hi.matarpontun.dto.OrderExportRowDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.OrderStatus;
+import is.hi.matarpontun.repository.DailyOrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting order history as CSV or newline-delimited JSON.
+ *
+ * Rows are read through a database cursor and written to the output as they arrive, so
+ * memory use does not grow with the size of the export.
+ */
+@Service
+public class OrderExportService {
+
+    /** Supported export formats. */
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final String CSV_HEADER = "orderId,orderDate,wardName,roomNumber,patientId,patientName,"
+            + "foodType,status,breakfast,lunch,afternoonSnack,dinner,nightSnack";
+
+    private final DailyOrderRepository dailyOrderRepository;
+    private final ObjectMapper objectMapper;
+    // One flush at the end (and whenever the buffer is full) instead of one per row
+    private final ObjectWriter rowWriter;
+
+    /**
+     * Constructs a new {@code OrderExportService}.
+     *
+     * @param dailyOrderRepository repository used to stream {@link DailyOrder}s
+     * @param objectMapper         the application's JSON mapper, used for NDJSON rows
+     */
+    public OrderExportService(DailyOrderRepository dailyOrderRepository, ObjectMapper objectMapper) {
+        this.dailyOrderRepository = dailyOrderRepository;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(OrderExportRowDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes all orders matching the filters to {@code out}. Every filter is optional.
+     *
+     * The transaction (and with it the cursor) stays open until the last row has been
+     * written, so this is meant to be called from the thread that writes the response.
+     *
+     * @param format   CSV or NDJSON
+     * @param from     first order date, inclusive
+     * @param to       last order date, inclusive
+     * @param wardId   only orders from this ward
+     * @param foodType only orders with this food type
+     * @param status   only orders with this status
+     * @param out      the stream to write to; flushed but not closed
+     * @return the number of orders written
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, LocalDate from, LocalDate to, Long wardId, String foodType,
+            OrderStatus status, OutputStream out) throws IOException {
+        try (Stream<OrderExportRowDTO> rows = dailyOrderRepository.streamForExport(from, to, wardId, foodType,
+                status)) {
+            return switch (format) {
+                case CSV -> writeCsv(rows.iterator(), out);
+                case NDJSON -> writeNdjson(rows.iterator(), out);
+            };
+        }
+    }
+
+    private long writeCsv(Iterator<OrderExportRowDTO> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRowDTO row = rows.next();
+            writer.write(String.valueOf(row.orderId()));
+            writeCsvField(writer, row.orderDate() != null ? row.orderDate().toString() : null);
+            writeCsvField(writer, row.wardName());
+            writeCsvField(writer, row.roomNumber());
+            writeCsvField(writer, row.patientId() != null ? row.patientId().toString() : null);
+            writeCsvField(writer, row.patientName());
+            writeCsvField(writer, row.foodType());
+            writeCsvField(writer, row.status().getLabel());
+            writeCsvField(writer, row.breakfast());
+            writeCsvField(writer, row.lunch());
+            writeCsvField(writer, row.afternoonSnack());
+            writeCsvField(writer, row.dinner());
+            writeCsvField(writer, row.nightSnack());
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break, doubling inner quotes
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private long writeNdjson(Iterator<OrderExportRowDTO> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        while (rows.hasNext()) {
+            rowWriter.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.flush();
+        return count;
+    }
+}
@@ -0,0 +1,121 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.event.PatientDietChangedEvent;
+import is.hi.matarpontun.logging.CorrelationIdFilter;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Re-evaluates today's daily order of patients whose restrictions or allergies changed.
+ *
+ * A diet change marks the patient row in the same transaction as the edit, and the order is
+ * re-evaluated once the patient has been idle for the batching window, so a nurse adding
+ * several restrictions in a row causes one update of today's order instead of one per edit.
+ * Since the marker is stored with the patient, pending re-evaluations survive a restart and
+ * every instance sweeps the same set; the patient row is locked while its order is
+ * re-evaluated, so each change is applied by exactly one instance.
+ */
+@Service
+public class OrderReevaluationService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderReevaluationService.class);
+
+    // Patients re-evaluated per sweep at most; the rest are picked up by the next sweep
+    private static final int MAX_PER_SWEEP = 500;
+
+    private final DailyOrderService dailyOrderService;
+    private final PatientRepository patientRepository;
+    private final OptimisticRetry optimisticRetry;
+    private final long windowMillis;
+
+    /**
+     * Constructs a new {@code OrderReevaluationService}.
+     *
+     * @param dailyOrderService the service that performs the in-place slot re-check
+     * @param patientRepository repository holding the pending diet change markers
+     * @param optimisticRetry   runs each re-evaluation in a transaction of its own, retried
+     *                          when a concurrent edit of the order wins the race
+     * @param windowMillis      how long a patient must be idle before their edits are applied
+     */
+    public OrderReevaluationService(DailyOrderService dailyOrderService, PatientRepository patientRepository,
+            OptimisticRetry optimisticRetry,
+            @Value("${matarpontun.orders.reevaluation-window-ms:2000}") long windowMillis) {
+        this.dailyOrderService = dailyOrderService;
+        this.patientRepository = patientRepository;
+        this.optimisticRetry = optimisticRetry;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Marks the patient's order for re-evaluation just before the edit's transaction commits,
+     * so the marker is committed or rolled back together with the edit. A later edit within
+     * the window moves the marker forward.
+     *
+     * @param event the diet change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDietChanged(PatientDietChangedEvent event) {
+        patientRepository.markDietChanged(event.patientId(), Instant.now(), MDC.get(CorrelationIdFilter.MDC_KEY));
+    }
+
+    /**
+     * Re-evaluates the orders of all marked patients that have been idle for at least the
+     * batching window.
+     */
+    @Scheduled(fixedDelayString = "${matarpontun.orders.reevaluation-window-ms:2000}")
+    public void flushDue() {
+        Instant cutoff = Instant.now().minusMillis(windowMillis);
+        for (Long patientId : patientRepository.findDietChangedBefore(cutoff, Limit.of(MAX_PER_SWEEP))) {
+            try {
+                flush(patientId);
+            } catch (Exception e) {
+                log.warn("Could not re-evaluate order for patient {}: {}", patientId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Immediately re-evaluates a patient's order if a diet change is pending, bypassing the
+     * batching window.
+     *
+     * @param patientId the patient's id
+     * @return today's order after re-evaluation, or empty if no change was pending (e.g. it
+     *         was already applied by another instance) or the patient has no order today
+     */
+    public Optional<DailyOrder> flush(Long patientId) {
+        return optimisticRetry.run("re-evaluation for patient " + patientId, () -> apply(patientId));
+    }
+
+    // Runs with the patient row locked: a concurrent sweep of the same patient waits for the
+    // lock and then finds the marker cleared
+    private Optional<DailyOrder> apply(Long patientId) {
+        Patient patient = patientRepository.findByIdForUpdate(patientId).orElse(null);
+        if (patient == null || patient.getDietChangedAt() == null) {
+            return Optional.empty();
+        }
+        patientRepository.clearDietChanged(patientId);
+
+        // A deferred re-evaluation logs under the request that made the change
+        String correlationId = patient.getDietChangeCorrelationId();
+        boolean deferred = correlationId != null && MDC.get(CorrelationIdFilter.MDC_KEY) == null;
+        if (deferred) MDC.put(CorrelationIdFilter.MDC_KEY, correlationId);
+        try {
+            return dailyOrderService.reevaluateOrder(patientId);
+        } finally {
+            if (deferred) MDC.remove(CorrelationIdFilter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.dto.OrderRollupCountDTO;
+import is.hi.matarpontun.model.OrderDailyRollup;
+import is.hi.matarpontun.model.OrderStatus;
+import is.hi.matarpontun.repository.OrderDailyRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service that maintains the {@link OrderDailyRollup} table and answers historical questions
+ * from it, so dashboards never scan {@code daily_orders}.
+ *
+ * A nightly job recomputes the last few days, which also picks up late edits to orders.
+ * Older ranges can be (re)built with {@link #backfill(LocalDate, LocalDate)}.
+ */
+@Service
+public class OrderRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupService.class);
+
+    /** Backfills are refreshed in chunks of this many days, one transaction each. */
+    private static final int BACKFILL_CHUNK_DAYS = 31;
+
+    /** Dimensions the rollups can be summarised by. */
+    public enum GroupBy { DAY, WARD, FOOD_TYPE }
+
+    private final OrderDailyRollupRepository rollupRepository;
+    private final int refreshDays;
+
+    /**
+     * Constructs a new {@code OrderRollupService}.
+     *
+     * @param rollupRepository repository used to refresh and query {@link OrderDailyRollup}s
+     * @param refreshDays      how many days, up to and including today, the nightly job recomputes
+     */
+    public OrderRollupService(OrderDailyRollupRepository rollupRepository,
+            @Value("${matarpontun.analytics.refresh-days:3}") int refreshDays) {
+        this.rollupRepository = rollupRepository;
+        this.refreshDays = refreshDays;
+    }
+
+    /**
+     * Nightly refresh of the most recent days.
+     */
+    @Scheduled(cron = "${matarpontun.analytics.rollup-cron:0 30 0 * * *}")
+    public void refreshRecent() {
+        LocalDate today = LocalDate.now();
+        int rows = rollupRepository.refresh(today.minusDays(refreshDays - 1L), today);
+        log.info("Refreshed order rollups for the last {} days ({} rows)", refreshDays, rows);
+    }
+
+    /**
+     * Recomputes the rollups for every day from {@code from} to {@code to}, inclusive.
+     *
+     * @param from first order date
+     * @param to   last order date
+     * @return the number of rollup rows written
+     * @throws IllegalArgumentException if {@code to} is before {@code from}
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        int rows = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate end = start.plusDays(BACKFILL_CHUNK_DAYS - 1L);
+            rows += rollupRepository.refresh(start, end.isAfter(to) ? to : end);
+        }
+        log.info("Backfilled order rollups from {} to {} ({} rows)", from, to, rows);
+        return rows;
+    }
+
+    /**
+     * Summarises the rollups in a date range per day, ward or food type.
+     *
+     * Every group has the total number of orders, the count per status, the share of
+     * orders that were changed automatically or need a manual change ({@code conflictRate}),
+     * the share that need a manual change ({@code manualChangeRate}) and the number of
+     * meal slots swapped away from the planned menu.
+     *
+     * @param groupBy  the dimension to group by
+     * @param from     first order date
+     * @param to       last order date
+     * @param wardName only rollups from this ward, or {@code null} for all wards
+     * @return Group → summary, in group order
+     * @throws IllegalArgumentException if {@code to} is before {@code from}
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> summarize(GroupBy groupBy, LocalDate from, LocalDate to, String wardName) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        List<OrderRollupCountDTO> counts = switch (groupBy) {
+            case DAY -> rollupRepository.countByDay(from, to, wardName);
+            case WARD -> rollupRepository.countByWard(from, to, wardName);
+            case FOOD_TYPE -> rollupRepository.countByFoodType(from, to, wardName);
+        };
+
+        Map<String, GroupSummary> groups = new LinkedHashMap<>();
+        for (OrderRollupCountDTO count : counts) {
+            groups.computeIfAbsent(count.groupKey(), k -> new GroupSummary()).add(count);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        groups.forEach((key, summary) -> result.put(key, summary.toMap()));
+        return result;
+    }
+
+    /** Running totals for one group while the per-status rows are folded in. */
+    private static final class GroupSummary {
+        private final Map<String, Long> statuses = new TreeMap<>();
+        private long orders;
+        private long swappedSlots;
+
+        void add(OrderRollupCountDTO count) {
+            orders += count.orders();
+            swappedSlots += count.swappedSlots();
+            statuses.merge(count.status(), count.orders(), Long::sum);
+        }
+
+        Map<String, Object> toMap() {
+            long manual = statuses.getOrDefault(OrderStatus.NEEDS_MANUAL_CHANGE.getLabel(), 0L);
+            long auto = statuses.getOrDefault(OrderStatus.AUTO_CHANGED.getLabel(), 0L);
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("orders", orders);
+            map.put("statuses", statuses);
+            map.put("conflictRate", orders > 0 ? (double) (manual + auto) / orders : 0.0);
+            map.put("manualChangeRate", orders > 0 ? (double) manual / orders : 0.0);
+            map.put("swappedSlots", swappedSlots);
+            return map;
+        }
+    }
+}
@@ -1,19 +1,38 @@
 package is.hi.matarpontun.service;
 
+import is.hi.matarpontun.dto.DietEditDTO;
+import is.hi.matarpontun.dto.PatientDailyOrderDTO;
+import is.hi.matarpontun.dto.PatientMapper;
+import is.hi.matarpontun.dto.PatientOrderRowDTO;
+import is.hi.matarpontun.dto.PatientTermDTO;
+import is.hi.matarpontun.dto.PatientTermMatchDTO;
+import is.hi.matarpontun.dto.RestrictedPatientDTO;
+import is.hi.matarpontun.event.PatientDietChangedEvent;
 import is.hi.matarpontun.model.FoodType;
 import is.hi.matarpontun.model.Meal;
 import is.hi.matarpontun.model.Patient;
 import is.hi.matarpontun.model.Room;
 import is.hi.matarpontun.repository.FoodTypeRepository;
 import is.hi.matarpontun.repository.PatientRepository;
+import is.hi.matarpontun.repository.PatientRepositoryCustom.DietTermTable;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-
-import java.util.Arrays;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Service responsible for managing {@link Patient} entities..
@@ -23,50 +42,49 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final FoodTypeRepository foodTypeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConflictEngine conflictEngine;
+    private final IngredientTaxonomy taxonomy;
+    private final OptimisticRetry optimisticRetry;
+
+    /** Outcome of a batch of diet edits: the patients whose diet changed and the row counts. */
+    public record DietEditResult(List<Long> patientIds, int termsAdded, int termsRemoved) {}
 
     /**
      * Constructs a new {@code PatientService} with required repositories.
      *
      * @param patientRepository   the repository responsible for storing and retrieving {@link Patient} entities
      * @param foodTypeRepository  the repository responsible for accessing {@link FoodType} entities
+     * @param eventPublisher      publisher for {@link PatientDietChangedEvent}s
+     * @param conflictEngine      shared evaluator of meals against restrictions and allergies
+     * @param taxonomy            ingredient taxonomy used to widen restriction searches
+     * @param optimisticRetry     runs patient edits in a transaction, retried when a concurrent
+     *                            edit of the same patient wins the race
      */
-    public PatientService(PatientRepository patientRepository, FoodTypeRepository foodTypeRepository) {
+    public PatientService(PatientRepository patientRepository, FoodTypeRepository foodTypeRepository,
+            ApplicationEventPublisher eventPublisher, ConflictEngine conflictEngine, IngredientTaxonomy taxonomy,
+            OptimisticRetry optimisticRetry) {
         this.patientRepository = patientRepository;
         this.foodTypeRepository = foodTypeRepository;
+        this.eventPublisher = eventPublisher;
+        this.conflictEngine = conflictEngine;
+        this.taxonomy = taxonomy;
+        this.optimisticRetry = optimisticRetry;
     }
 
     /**
      * Checks whether a given {@link Meal} conflicts with a patient's dietary
      * restrictions or allergies.
      * 
-     * This method compares each restriction and allergy term against the meal’s ingredient list.
+     * Uses the same {@link ConflictEngine} as daily order generation, so a meal is
+     * judged the same way on every path.
      *
      * @param meal    the meal to check
      * @param patient the patient whose restrictions and allergies should be validated
      * @return {@code true} if a conflict is found; {@code false} otherwise
      */
     public boolean checkMealForConflicts(Meal meal, Patient patient) {
-        if (meal == null || meal.getIngredients() == null)
-            return false;
-
-        // Split ingredients into tokens (remove spaces)
-        List<String> mealIngredients = Arrays.stream(meal.getIngredients().split(","))
-                .map(String::trim)
-                .map(String::toLowerCase)
-                .toList();
-
-        for (String r : patient.getRestriction()) {
-            if (mealIngredients.contains(r.toLowerCase().trim())) {
-                return true;
-            }
-        }
-        for (String a : patient.getAllergies()) {
-            if (mealIngredients.contains(a.toLowerCase().trim())) {
-                return true;
-            }
-        }
-        return false;
-
+        return conflictEngine.findConflict(meal, patient) != null;
     }
 
     /**
@@ -81,7 +99,7 @@ public class PatientService {
 
     /**
      * Adds a new restriction to the patient’s restriction list if it does not
-     * already exist.
+     * already exist. A comma-separated entry is added as separate restrictions.
      *
      * @param patientID   the patient’s id
      * @param restriction the restriction to add
@@ -89,13 +107,7 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient addRestriction(Long patientID, String restriction) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        if (!patient.getRestriction().contains(restriction)) {
-            patient.getRestriction().add(restriction);
-        }
-        return patientRepository.save(patient);
+        return editTerms(patientID, Patient::getRestriction, terms -> addTerms(terms, restriction));
     }
 
     /**
@@ -107,18 +119,7 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient removeRestrictions(Long patientID, java.util.List<String> toRemove) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        if (toRemove != null && !toRemove.isEmpty()) {
-            java.util.Set<String> removeSet = new java.util.HashSet<>();
-            for (String r : toRemove) {
-                if (r != null)
-                    removeSet.add(r.trim());
-            }
-            patient.getRestriction().removeIf(r -> removeSet.contains(r.trim()));
-        }
-        return patientRepository.save(patient);
+        return editTerms(patientID, Patient::getRestriction, terms -> removeTerms(terms, toRemove));
     }
 
     /**
@@ -129,11 +130,7 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient clearAllRestrictions(Long patientID) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        patient.getRestriction().clear();
-        return patientRepository.save(patient);
+        return editTerms(patientID, Patient::getRestriction, List::clear);
     }
 
     /**
@@ -145,13 +142,7 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient addAllergy(Long patientID, String allergy) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        if (!patient.getAllergies().contains(allergy)) {
-            patient.getAllergies().add(allergy);
-        }
-        return patientRepository.save(patient);
+        return editTerms(patientID, Patient::getAllergies, terms -> addTerms(terms, allergy));
     }
 
     /**
@@ -163,18 +154,7 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient removeAllergies(Long patientID, java.util.List<String> toRemove) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
-
-        if (toRemove != null && !toRemove.isEmpty()) {
-            java.util.Set<String> removeSet = new java.util.HashSet<>();
-            for (String r : toRemove) {
-                if (r != null)
-                    removeSet.add(r.trim());
-            }
-            patient.getAllergies().removeIf(r -> removeSet.contains(r.trim()));
-        }
-        return patientRepository.save(patient);
+        return editTerms(patientID, Patient::getAllergies, terms -> removeTerms(terms, toRemove));
     }
 
     /**
@@ -185,11 +165,97 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient does not exist
      */
     public Patient clearAllAllergies(Long patientID) {
-        Patient patient = patientRepository.findById(patientID)
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
+        return editTerms(patientID, Patient::getAllergies, List::clear);
+    }
 
-        patient.getAllergies().clear();
-        return patientRepository.save(patient);
+    /**
+     * Applies a batch of restriction and allergy edits for many patients in one transaction.
+     *
+     * The patients' current terms are read with one query per table, the edits are reduced to
+     * the rows that actually change (the last edit of a term wins), and those rows are written
+     * with set-based statements on the collection tables instead of rewriting every patient's
+     * collection. One {@link PatientDietChangedEvent} is published per patient whose diet
+     * changed, so their order is re-evaluated once, and their versions are bumped so that a
+     * concurrent single edit of the same patient is retried on top of the batch.
+     *
+     * @param edits the edits, in the order they were made
+     * @return the patients whose diet changed and how many terms were added and removed
+     * @throws IllegalArgumentException if an edit is incomplete or has an unknown action or type
+     * @throws EntityNotFoundException  if a patient does not exist
+     */
+    public DietEditResult applyDietEdits(List<DietEditDTO> edits) {
+        if (edits == null || edits.isEmpty()) {
+            throw new IllegalArgumentException("No edits given");
+        }
+        return optimisticRetry.run("batch of " + edits.size() + " diet edits", () -> applyEdits(edits));
+    }
+
+    private DietEditResult applyEdits(List<DietEditDTO> edits) {
+
+        // (table, patient, term) -> add or remove, keeping the last edit of each term
+        Map<DietTermTable, Map<PatientTermDTO, Boolean>> wanted = new LinkedHashMap<>();
+        Set<Long> patientIds = new HashSet<>();
+        for (DietEditDTO edit : edits) {
+            if (edit.patientId() == null || edit.term() == null || edit.term().isBlank()) {
+                throw new IllegalArgumentException("Every edit needs a patientId and a term");
+            }
+            boolean add = parseAction(edit.action());
+            DietTermTable table = parseType(edit.type());
+            for (String term : splitTerms(edit.term())) {
+                wanted.computeIfAbsent(table, t -> new LinkedHashMap<>())
+                        .put(new PatientTermDTO(edit.patientId(), term), add);
+            }
+            patientIds.add(edit.patientId());
+        }
+
+        // Locked up front, so the terms read below stay current until this batch commits
+        Set<Long> missing = new HashSet<>(patientIds);
+        patientRepository.findAllByIdForUpdate(patientIds).forEach(patient -> missing.remove(patient.getPatientID()));
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException("Patient not found: " + missing);
+        }
+
+        Map<Long, List<String>> addedTerms = new HashMap<>();
+        Map<Long, List<String>> removedTerms = new HashMap<>();
+        int added = 0;
+        int removed = 0;
+        for (Map.Entry<DietTermTable, Map<PatientTermDTO, Boolean>> entry : wanted.entrySet()) {
+            DietTermTable table = entry.getKey();
+            Set<PatientTermDTO> current = new HashSet<>();
+            for (PatientTermDTO term : table == DietTermTable.RESTRICTIONS
+                    ? patientRepository.findRestrictionsByPatientIds(patientIds)
+                    : patientRepository.findAllergiesByPatientIds(patientIds)) {
+                current.add(new PatientTermDTO(term.patientId(), term.term().trim()));
+            }
+
+            List<PatientTermDTO> toInsert = new ArrayList<>();
+            List<PatientTermDTO> toDelete = new ArrayList<>();
+            entry.getValue().forEach((term, add) -> {
+                if (add && !current.contains(term)) toInsert.add(term);
+                else if (!add && current.contains(term)) toDelete.add(term);
+            });
+            for (PatientTermDTO term : toInsert) {
+                addedTerms.computeIfAbsent(term.patientId(), id -> new ArrayList<>()).add(term.term());
+            }
+            for (PatientTermDTO term : toDelete) {
+                removedTerms.computeIfAbsent(term.patientId(), id -> new ArrayList<>()).add(term.term());
+            }
+            removed += toDelete.isEmpty() ? 0 : patientRepository.deleteTerms(table, toDelete);
+            added += toInsert.isEmpty() ? 0 : patientRepository.insertTerms(table, toInsert);
+        }
+
+        // One event per patient covering both tables, so each order is re-evaluated once
+        Set<Long> changed = new HashSet<>(addedTerms.keySet());
+        changed.addAll(removedTerms.keySet());
+        if (!changed.isEmpty()) {
+            patientRepository.incrementVersions(changed);
+        }
+        for (Long patientId : changed) {
+            eventPublisher.publishEvent(new PatientDietChangedEvent(patientId,
+                    PatientDietChangedEvent.normalize(addedTerms.getOrDefault(patientId, List.of())),
+                    PatientDietChangedEvent.normalize(removedTerms.getOrDefault(patientId, List.of()))));
+        }
+        return new DietEditResult(List.copyOf(changed), added, removed);
     }
 
     /**
@@ -234,7 +300,12 @@ public class PatientService {
      * @return the updated {@link Patient}
      */
     public Patient updatePatient(Long id, String name, String foodTypeName, List<String> restrictions) {
-        Patient patient = patientRepository.findById(id)
+        return optimisticRetry.run("update of patient " + id,
+                () -> applyUpdate(id, name, foodTypeName, restrictions));
+    }
+
+    private Patient applyUpdate(Long id, String name, String foodTypeName, List<String> restrictions) {
+        Patient patient = patientRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
 
         if (name != null && !name.isBlank()) {
@@ -245,11 +316,20 @@ public class PatientService {
                     .orElseThrow(() -> new EntityNotFoundException("Food type ‘" + foodTypeName + "’ not found"));
             patient.setFoodType(newFoodType);
         }
+        List<String> before = new ArrayList<>(patient.getRestriction());
         if (restrictions != null) {
             patient.getRestriction().clear();
-            patient.getRestriction().addAll(restrictions);
+            for (String restriction : restrictions) {
+                for (String term : splitTerms(restriction)) {
+                    if (!patient.getRestriction().contains(term)) {
+                        patient.getRestriction().add(term);
+                    }
+                }
+            }
         }
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        publishDietChange(saved.getPatientID(), before, patient.getRestriction());
+        return saved;
     }
 
     /**
@@ -261,13 +341,192 @@ public class PatientService {
      * @throws EntityNotFoundException if the patient or food type is not found
      */
     public Patient updatePatientFoodType(Long patientId, String foodTypeName) {
-        Patient patient = patientRepository.findById(patientId)
+        return optimisticRetry.run("food type change for patient " + patientId, () -> {
+            Patient patient = patientRepository.findByIdForUpdate(patientId)
+                    .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
+
+            FoodType newFoodType = foodTypeRepository.findByTypeNameIgnoreCase(foodTypeName)
+                    .orElseThrow(() -> new EntityNotFoundException("Food type '" + foodTypeName + "' not found"));
+
+            patient.setFoodType(newFoodType);
+            return patientRepository.save(patient);
+        });
+    }
+
+    /**
+     * Finds every patient, on any ward, who is restricted from or allergic to an ingredient,
+     * e.g. to recall a batch of yogurt.
+     *
+     * A term matches when it covers the ingredient in the {@link IngredientTaxonomy}: a
+     * patient with "dairy" or "yoghurt" is found for "yogurt". Two statements, both on the
+     * lower-case term indexes.
+     *
+     * @param ingredient the ingredient to look for
+     * @return the terms searched for and the matching patients with the terms that matched,
+     *         ordered by ward, room and bed
+     * @throws IllegalArgumentException if {@code ingredient} is blank
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> findPatientsRestrictedFrom(String ingredient) {
+        String term = ingredient == null ? "" : ingredient.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty()) {
+            throw new IllegalArgumentException("Ingredient must not be blank");
+        }
+        List<String> terms = taxonomy.generalize(term);
+
+        Map<Long, RestrictedPatientDTO> patients = new LinkedHashMap<>();
+        for (PatientTermMatchDTO match : patientRepository.findByRestrictionTerms(terms)) {
+            patients.computeIfAbsent(match.patientId(), id -> RestrictedPatientDTO.of(match))
+                    .restrictions().add(match.term());
+        }
+        for (PatientTermMatchDTO match : patientRepository.findByAllergyTerms(terms)) {
+            patients.computeIfAbsent(match.patientId(), id -> RestrictedPatientDTO.of(match))
+                    .allergies().add(match.term());
+        }
+        List<RestrictedPatientDTO> sorted = new ArrayList<>(patients.values());
+        sorted.sort(RestrictedPatientDTO.BY_LOCATION);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ingredient", term);
+        result.put("matchedTerms", terms);
+        result.put("count", sorted.size());
+        result.put("patients", sorted);
+        return result;
+    }
+
+    /**
+     * Builds the patient screen for every patient in a ward: patient details, restrictions,
+     * allergies and today's order with its meals.
+     *
+     * Three statements regardless of ward size: the patients joined with today's orders and
+     * meals, then all their restrictions and all their allergies.
+     *
+     * @param wardId the ward's id
+     * @return one {@link PatientDailyOrderDTO} per patient, ordered by patient id
+     */
+    @Transactional(readOnly = true)
+    public List<PatientDailyOrderDTO> getTodaysOrdersForWard(Long wardId) {
+        LocalDate today = LocalDate.now();
+        return toDailyOrderDTOs(patientRepository.findOrderRowsByWardId(wardId, today), today);
+    }
+
+    /**
+     * Builds the patient screen for a single patient.
+     *
+     * @param patientID the patient's id
+     * @return an {@link Optional} with the patient's {@link PatientDailyOrderDTO}, or empty if
+     *         the patient does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<PatientDailyOrderDTO> findTodaysOrder(Long patientID) {
+        LocalDate today = LocalDate.now();
+        return patientRepository.findOrderRowByPatientId(patientID, today)
+                .map(row -> toDailyOrderDTOs(List.of(row), today).get(0));
+    }
+
+    /**
+     * Builds the patient screen for a single patient right after it was changed.
+     *
+     * Not read-only, so it runs on the primary database and sees the change even when
+     * read-only transactions are routed to a replica.
+     *
+     * @param patientID the patient's id
+     * @return the patient's {@link PatientDailyOrderDTO}
+     * @throws EntityNotFoundException if the patient does not exist
+     */
+    @Transactional
+    public PatientDailyOrderDTO getTodaysOrder(Long patientID) {
+        return findTodaysOrder(patientID)
                 .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
+    }
 
-        FoodType newFoodType = foodTypeRepository.findByTypeNameIgnoreCase(foodTypeName)
-                .orElseThrow(() -> new EntityNotFoundException("Food type '" + foodTypeName + "' not found"));
+    // Attaches restrictions and allergies to the rows, with one query each for all patients
+    private List<PatientDailyOrderDTO> toDailyOrderDTOs(List<PatientOrderRowDTO> rows, LocalDate today) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(PatientOrderRowDTO::patientId).toList();
+        Map<Long, List<String>> restrictions = groupByPatient(patientRepository.findRestrictionsByPatientIds(ids));
+        Map<Long, List<String>> allergies = groupByPatient(patientRepository.findAllergiesByPatientIds(ids));
+
+        return rows.stream()
+                .map(row -> PatientMapper.toDailyOrderDTO(row,
+                        restrictions.getOrDefault(row.patientId(), new ArrayList<>()),
+                        allergies.getOrDefault(row.patientId(), new ArrayList<>()),
+                        today))
+                .toList();
+    }
 
-        patient.setFoodType(newFoodType);
-        return patientRepository.save(patient);
+    private static boolean parseAction(String action) {
+        if ("add".equalsIgnoreCase(action)) return true;
+        if ("remove".equalsIgnoreCase(action)) return false;
+        throw new IllegalArgumentException("Unknown action '" + action + "', expected add or remove");
+    }
+
+    private static DietTermTable parseType(String type) {
+        if ("restriction".equalsIgnoreCase(type)) return DietTermTable.RESTRICTIONS;
+        if ("allergy".equalsIgnoreCase(type)) return DietTermTable.ALLERGIES;
+        throw new IllegalArgumentException("Unknown type '" + type + "', expected restriction or allergy");
+    }
+
+    private Map<Long, List<String>> groupByPatient(List<PatientTermDTO> terms) {
+        Map<Long, List<String>> byPatient = new HashMap<>();
+        for (PatientTermDTO term : terms) {
+            byPatient.computeIfAbsent(term.patientId(), id -> new ArrayList<>()).add(term.term());
+        }
+        return byPatient;
+    }
+
+    // Locks the patient, edits one of its term lists and publishes the change. Runs in its own
+    // transaction, so a concurrent edit or order of the patient waits for it to commit.
+    private Patient editTerms(Long patientID, Function<Patient, List<String>> list, Consumer<List<String>> edit) {
+        return optimisticRetry.run("diet edit for patient " + patientID, () -> {
+            Patient patient = patientRepository.findByIdForUpdate(patientID)
+                    .orElseThrow(() -> new EntityNotFoundException("Patient not found"));
+            List<String> terms = list.apply(patient);
+            List<String> before = new ArrayList<>(terms);
+
+            edit.accept(terms);
+            Patient saved = patientRepository.save(patient);
+            publishDietChange(saved.getPatientID(), before, terms);
+            return saved;
+        });
+    }
+
+    private static void addTerms(List<String> terms, String entry) {
+        for (String term : splitTerms(entry)) {
+            if (!terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+    }
+
+    private static void removeTerms(List<String> terms, List<String> toRemove) {
+        if (toRemove == null || toRemove.isEmpty()) return;
+        Set<String> removeSet = new HashSet<>();
+        for (String entry : toRemove) {
+            removeSet.addAll(splitTerms(entry));
+        }
+        terms.removeIf(t -> removeSet.contains(t.trim()));
+    }
+
+    // Splits a comma-separated entry into trimmed terms. Every term is stored as its own row,
+    // so the term indexes and findPatientsRestrictedFrom see each one.
+    private static List<String> splitTerms(String entry) {
+        List<String> terms = new ArrayList<>();
+        if (entry == null) return terms;
+        for (String part : entry.split(",")) {
+            String term = part.trim();
+            if (!term.isEmpty()) terms.add(term);
+        }
+        return terms;
+    }
+
+    // Publishes a PatientDietChangedEvent if the restriction/allergy list actually changed.
+    private void publishDietChange(Long patientId, List<String> before, List<String> after) {
+        PatientDietChangedEvent event = PatientDietChangedEvent.between(patientId, before, after);
+        if (!event.isEmpty()) {
+            eventPublisher.publishEvent(event);
+        }
     }
 }
@@ -1,5 +1,7 @@
 package is.hi.matarpontun.service;
 
+import is.hi.matarpontun.dto.RoomDTO;
+import is.hi.matarpontun.dto.RoomPatientRowDTO;
 import is.hi.matarpontun.model.Room;
 import is.hi.matarpontun.model.Ward;
 import is.hi.matarpontun.model.DailyOrder;
@@ -8,10 +10,13 @@ import is.hi.matarpontun.repository.RoomRepository;
 import is.hi.matarpontun.repository.WardRepository;
 import is.hi.matarpontun.repository.DailyOrderRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import is.hi.matarpontun.repository.PatientRepository;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +26,8 @@ import java.util.Map;
 @Service
 public class RoomService {
 
+    private static final Logger log = LoggerFactory.getLogger(RoomService.class);
+
     private final RoomRepository roomRepository;
     private final WardRepository wardRepository;
     private final PatientService patientService;
@@ -70,11 +77,11 @@ public class RoomService {
      * @param maxPatients the capacity of the room (also the number of patients to create)
      * @param wardId           the id of the ward to which the room belongs
      * @param roomNumber       the identifier of the new room
-     * @return the created {@link Room} including its assigned patients
+     * @return the created room including its assigned patients
      * @throws EntityNotFoundException if the ward does not exist
      */
     @Transactional
-    public Room createRoomAndFillWithPatients(int maxPatients, Long wardId, String roomNumber) {
+    public RoomDTO createRoomAndFillWithPatients(int maxPatients, Long wardId, String roomNumber) {
         Ward ward = wardRepository.findById(wardId)
                 .orElseThrow(() -> new EntityNotFoundException("Ward with ID " + wardId + " not found."));
 
@@ -93,7 +100,38 @@ public class RoomService {
         // Link patients to the room
         savedRoom.setPatients(createdPatients);
 
-        return savedRoom;
+        return toRoomDTO(savedRoom);
+    }
+
+    /**
+     * Retrieves all rooms of a ward together with their patients.
+     *
+     * Rooms and patients come from a single query, and the result holds no entities,
+     * so nothing is loaded lazily while the response is written.
+     *
+     * @param wardId the id of the ward
+     * @return the ward's rooms ordered by id, each with its patients ordered by bed number
+     */
+    @Transactional(readOnly = true)
+    public List<RoomDTO> getRoomsForWard(Long wardId) {
+        Map<Long, RoomDTO> rooms = new LinkedHashMap<>();
+        for (RoomPatientRowDTO row : roomRepository.findPatientRowsByWardId(wardId)) {
+            RoomDTO room = rooms.computeIfAbsent(row.roomId(), id -> new RoomDTO(
+                    id, row.roomNumber(), row.maxPatients(), row.qrCode(), new ArrayList<>()));
+            if (row.patientId() != null) {
+                room.patients().add(new RoomDTO.PatientInfo(
+                        row.patientId(), row.name(), row.age(), row.bedNumber(), row.foodType()));
+            }
+        }
+        return new ArrayList<>(rooms.values());
+    }
+
+    private RoomDTO toRoomDTO(Room room) {
+        List<RoomDTO.PatientInfo> patients = room.getPatients().stream()
+                .map(p -> new RoomDTO.PatientInfo(p.getPatientID(), p.getName(), p.getAge(), p.getBedNumber(),
+                        p.getFoodType() != null ? p.getFoodType().getTypeName() : null))
+                .toList();
+        return new RoomDTO(room.getId(), room.getRoomNumber(), room.getMaxPatients(), room.getQrCode(), patients);
     }
 
     /**
@@ -123,7 +161,7 @@ public class RoomService {
             for (DailyOrder order : orders) {
                 order.setPatient(null); 
                 dailyOrderRepository.delete(order);
-                System.out.println("Deleted order (" + order.getOrderDate() + ") for " + patient.getName());
+                log.info("Deleted order ({}) for patient {}", order.getOrderDate(), patient.getPatientID());
             }
         }
 
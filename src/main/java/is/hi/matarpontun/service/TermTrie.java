@@ -0,0 +1,155 @@
+package is.hi.matarpontun.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * An immutable character trie mapping terms to integer payloads.
+ *
+ * After building, the trie is flattened into a handful of primitive arrays: the outgoing
+ * edges of every node are stored contiguously and sorted by character, so lookups use a
+ * binary search and a trie with a few thousand terms costs only a few hundred kilobytes.
+ *
+ * Besides exact lookups, {@link #scan} finds every whole-word occurrence of any term in a
+ * text in a single left-to-right pass.
+ */
+final class TermTrie {
+
+    /** Receives matches found by {@link #scan}. */
+    @FunctionalInterface
+    interface MatchHandler {
+        /**
+         * @return {@code false} to stop scanning
+         */
+        boolean onMatch(int payload, int start, int end);
+    }
+
+    private static final int NONE = -1;
+
+    private final int[] edgeStart;   // node -> first edge index; edgeStart[node + 1] ends the range
+    private final char[] edgeLabel;  // edge -> character
+    private final int[] edgeTarget;  // edge -> child node
+    private final int[] payload;     // node -> payload, or NONE
+
+    private TermTrie(int[] edgeStart, char[] edgeLabel, int[] edgeTarget, int[] payload) {
+        this.edgeStart = edgeStart;
+        this.edgeLabel = edgeLabel;
+        this.edgeTarget = edgeTarget;
+        this.payload = payload;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the payload stored for exactly this term, or {@code -1} if absent
+     */
+    int get(CharSequence term) {
+        int node = 0;
+        for (int i = 0; i < term.length() && node != NONE; i++) {
+            node = child(node, term.charAt(i));
+        }
+        return node == NONE ? NONE : payload[node];
+    }
+
+    /**
+     * Reports every occurrence of a stored term in {@code text} that starts and ends on a word
+     * boundary (letters and digits are word characters), e.g. "milk" is found in
+     * "oats, milk" but not in "buttermilk".
+     */
+    void scan(String text, MatchHandler handler) {
+        int length = text.length();
+        for (int start = 0; start < length; start++) {
+            if (start > 0 && isWordChar(text.charAt(start - 1))) continue;
+
+            int node = 0;
+            for (int i = start; i < length; i++) {
+                node = child(node, text.charAt(i));
+                if (node == NONE) break;
+                if (payload[node] != NONE && (i + 1 == length || !isWordChar(text.charAt(i + 1)))) {
+                    if (!handler.onMatch(payload[node], start, i + 1)) return;
+                }
+            }
+        }
+    }
+
+    int size() {
+        return payload.length;
+    }
+
+    private int child(int node, char c) {
+        int lo = edgeStart[node];
+        int hi = edgeStart[node + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = edgeLabel[mid];
+            if (label < c) lo = mid + 1;
+            else if (label > c) hi = mid - 1;
+            else return edgeTarget[mid];
+        }
+        return NONE;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /** Mutable builder; discarded once {@link #build()} has flattened it. */
+    static final class Builder {
+
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> payloads = new ArrayList<>();
+
+        private Builder() {
+            newNode();
+        }
+
+        /**
+         * Stores a payload for a term, replacing any previous payload of the same term.
+         */
+        Builder put(String term, int value) {
+            int node = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            payloads.set(node, value);
+            return this;
+        }
+
+        TermTrie build() {
+            int nodes = payloads.size();
+            int edges = nodes - 1;
+            int[] edgeStart = new int[nodes + 1];
+            char[] edgeLabel = new char[edges];
+            int[] edgeTarget = new int[edges];
+            int[] payload = new int[nodes];
+
+            int e = 0;
+            for (int node = 0; node < nodes; node++) {
+                edgeStart[node] = e;
+                payload[node] = payloads.get(node);
+                for (var edge : children.get(node).entrySet()) {
+                    edgeLabel[e] = edge.getKey();
+                    edgeTarget[e] = edge.getValue();
+                    e++;
+                }
+            }
+            edgeStart[nodes] = e;
+            return new TermTrie(edgeStart, edgeLabel, edgeTarget, payload);
+        }
+
+        private int newNode() {
+            children.add(new TreeMap<>());
+            payloads.add(NONE);
+            return payloads.size() - 1;
+        }
+    }
+}
@@ -4,10 +4,11 @@ import is.hi.matarpontun.dto.*;
 import is.hi.matarpontun.model.*;
 import is.hi.matarpontun.repository.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +26,7 @@ public class WardService {
     private final RoomRepository roomRepository;
     private final PatientRepository patientRepository;
     private final DailyOrderRepository dailyOrderRepository;
+    private final PatientService patientService;
 
     /**
      * Constructs a new {@code WardService} with the required repositories and
@@ -37,21 +39,28 @@ public class WardService {
      * @param roomRepository    the repository for accessing {@link Room} entities
      * @param patientRepository the repository responsible for storing and
      *                          retrieving {@link Patient} entities
+     * @param patientService    the service building the patient screens
      */
     public WardService(WardRepository wardRepository,
             DailyOrderService dailyOrderService,
             RoomRepository roomRepository,
-            PatientRepository patientRepository, DailyOrderRepository dailyOrderRepository) {
+            PatientRepository patientRepository, DailyOrderRepository dailyOrderRepository,
+            PatientService patientService) {
         this.wardRepository = wardRepository;
         this.dailyOrderService = dailyOrderService;
         this.roomRepository = roomRepository;
         this.patientRepository = patientRepository;
         this.dailyOrderRepository = dailyOrderRepository;
+        this.patientService = patientService;
     }
 
     /**
      * UC2 - Generates daily meal orders for all patients in a given ward.
      *
+     * Deliberately not transactional: the ward and its patients are read up front, then
+     * every patient's order runs in a transaction of its own (see
+     * {@link DailyOrderService#generateOrdersForWard}).
+     *
      * @param wardId the id of the ward
      * @return an {@link OrderDTO} summarizing generated orders
      * @throws EntityNotFoundException if the ward does not exist
@@ -59,9 +68,12 @@ public class WardService {
     public DailyOrderService.WardOrderResult generateDailyOrdersForWard(Long wardId) {
         Ward ward = wardRepository.findById(wardId)
                 .orElseThrow(() -> new EntityNotFoundException("Ward not found: " + wardId));
+        List<WardPatientRowDTO> patients = patientRepository.findWardOrderRows(wardId);
 
-        log.info("Generating daily orders for ward: {}", ward.getWardName());
-        return dailyOrderService.generateOrdersForWard(ward);
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("ward", ward.getWardName())) {
+            log.info("Generating daily orders for ward: {}", ward.getWardName());
+            return dailyOrderService.generateOrdersForWard(ward.getWardName(), patients);
+        }
     }
 
     /**
@@ -85,10 +97,28 @@ public class WardService {
      *
      * @return a list of all {@link Ward} entities
      */
+    @Transactional(readOnly = true)
     public List<Ward> findAllWards() {
         return wardRepository.findAll();
     }
 
+    /**
+     * UC5 - Authenticates a ward.
+     *
+     * Only the ward's id is read, so signing in costs a single query no matter how
+     * many patients the ward has.
+     *
+     * @param wardName the ward’s name
+     * @param password the ward’s password
+     * @return an optional {@link WardDTO} with the ward's id and name if
+     *         authentication succeeds
+     */
+    @Transactional(readOnly = true)
+    public Optional<WardDTO> signIn(String wardName, String password) {
+        return wardRepository.findIdByWardNameAndPassword(wardName, password)
+                .map(id -> new WardDTO(id, wardName, null));
+    }
+
     /**
      * UC8 - Authenticates a ward and retrieves its associated data,
      * including rooms, patients, and their daily orders.
@@ -98,9 +128,10 @@ public class WardService {
      * @return an optional {@link WardFullDTO} containing ward and patient details
      *         if authentication succeeds
      */
+    @Transactional(readOnly = true)
     public Optional<WardFullDTO> signInAndGetData(String wardName, String password) {
-        return wardRepository.findByWardNameAndPassword(wardName, password)
-                .map(this::mapToWardFullDTO);
+        return wardRepository.findIdByWardNameAndPassword(wardName, password)
+                .map(id -> new WardFullDTO(id, wardName, patientService.getTodaysOrdersForWard(id)));
     }
 
     /**
@@ -112,15 +143,14 @@ public class WardService {
      * @return an optional {@link PatientDailyOrderDTO} with the patient’s
      *         information if found and authorized
      */
+    @Transactional(readOnly = true)
     public Optional<PatientDailyOrderDTO> signInAndGetPatientData(String wardName, String password, Long patientId) {
-        return wardRepository.findByWardNameAndPassword(wardName, password)
-                .flatMap(ward -> ward.getPatients().stream()
-                        .filter(p -> p.getPatientID().equals(patientId))
-                        .findFirst()
-                        .map(patient -> {
-                            DailyOrder order = dailyOrderService.findTodayOrderForPatient(patient);
-                            return PatientMapper.toDailyOrderDTO(patient, ward, order);
-                        }));
+        if (wardRepository.findIdByWardNameAndPassword(wardName, password).isEmpty()) {
+            return Optional.empty();
+        }
+        // Ward names are unique, so this only returns patients of the signed-in ward
+        return patientService.findTodaysOrder(patientId)
+                .filter(patient -> wardName.equals(patient.getWardName()));
     }
 
     /**
@@ -166,7 +196,7 @@ public class WardService {
      * @return a {@link WardSummaryDTO} with ward statistics
      * @throws EntityNotFoundException if the ward does not exist
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public WardSummaryDTO getWardSummaryById(Long wardId) {
         Ward ward = wardRepository.findById(wardId)
                 .orElseThrow(() -> new EntityNotFoundException("Ward not found"));
@@ -200,7 +230,7 @@ public class WardService {
                 for (DailyOrder order : orders) {
                     order.setPatient(null);
                     dailyOrderRepository.delete(order);
-                    System.out.println("Deleted today's order for patient " + patient.getName());
+                    log.info("Deleted today's order for patient {}", patient.getPatientID());
                 }
             }
         }
@@ -216,7 +246,7 @@ public class WardService {
         // Finally, delete the ward itself
         wardRepository.delete(ward);
 
-        System.out.println("Deleted ward '" + ward.getWardName() + "' and all associated data.");
+        log.info("Deleted ward '{}' and all associated data.", ward.getWardName());
     }
 
     /**
@@ -226,27 +256,9 @@ public class WardService {
      * @return the corresponding {@link Ward}
      * @throws EntityNotFoundException if no ward exists with the given id
      */
+    @Transactional(readOnly = true)
     public Ward findById(Long wardId) {
         return wardRepository.findById(wardId)
                 .orElseThrow(() -> new EntityNotFoundException("Ward not found with ID: " + wardId));
     }
-
-    // --------------------- Private Helpers ---------------------
-    /**
-     * Helper method for mapping a {@link Ward} to a {@link WardFullDTO},
-     * including all patients and their daily orders.
-     *
-     * @param ward the ward entity to map
-     * @return a {@link WardFullDTO} with ward name and patient data
-     */
-    private WardFullDTO mapToWardFullDTO(Ward ward) {
-        var patientDTOs = ward.getPatients().stream()
-                .map(patient -> {
-                    DailyOrder order = dailyOrderService.findTodayOrderForPatient(patient);
-                    return PatientMapper.toDailyOrderDTO(patient, ward, order);
-                })
-                .toList();
-
-        return new WardFullDTO(ward.getId(), ward.getWardName(), patientDTOs);
-    }
 }
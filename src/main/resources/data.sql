@@ -62,9 +62,13 @@ INSERT INTO meals (name, ingredients, category, food_type_id) VALUES
 -- Menus
     -- erum ekki með snacks núna
 -- ==========================
-INSERT INTO menus (date, breakfast_id, lunch_id, dinner_id) VALUES
-                                                                (CURRENT_DATE, 1, 2, 4),  -- General diet
-                                                                (CURRENT_DATE, 1, 3, 5);  -- Vegetarian diet
+INSERT INTO menus (date) VALUES
+                                (CURRENT_DATE),  -- General diet
+                                (CURRENT_DATE);  -- Vegetarian diet
+
+INSERT INTO menu_items (menu_id, slot, meal_id) VALUES
+                                                    (1, 'BREAKFAST', 1), (1, 'LUNCH', 2), (1, 'DINNER', 4),
+                                                    (2, 'BREAKFAST', 1), (2, 'LUNCH', 3), (2, 'DINNER', 5);
 
 -- Link FoodTypes to Menus
 UPDATE food_types SET menu_id = 1 WHERE type_name = 'A1';
@@ -0,0 +1,25 @@
+package is.hi.matarpontun;
+
+import is.hi.matarpontun.metrics.QueryBudgetProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private QueryBudgetProperties queryBudget;
+
+    @Test
+    void contextLoads() {
+    }
+
+    @Test
+    void queryBudgetKeysKeepMethodAndPath() {
+        assertThat(queryBudget.getLimits())
+                .containsEntry("POST /wards/signIn", 1)
+                .containsEntry("GET /wards/{wardId}/rooms", 1)
+                .allSatisfy((endpoint, limit) -> assertThat(endpoint).matches("[A-Z]+ /\\S+"));
+    }
+}
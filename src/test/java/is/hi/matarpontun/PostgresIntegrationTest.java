@@ -0,0 +1,38 @@
+package is.hi.matarpontun;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base class for tests that boot the whole application against PostgreSQL. One embedded
+ * server is started per test JVM and every subclass shares it, together with the cached
+ * Spring context. The native SQL (upserts, {@code ON CONFLICT}, {@code VALUES} joins) needs
+ * the real database; nothing here runs against H2.
+ */
+@SpringBootTest
+public abstract class PostgresIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        // application.properties reads the datasource from db.* placeholders
+        registry.add("db.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("db.username", () -> "postgres");
+        registry.add("db.password", () -> "postgres");
+        registry.add("spring.sql.init.mode", () -> "never");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package is.hi.matarpontun.controller;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Menu;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Controller reads run without a transaction (no open session in view), so everything they
+ * touch has to be loaded up front. The data is committed here rather than rolled back,
+ * since a test transaction would keep a session open and hide lazy loading.
+ */
+class MealControllerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MealController mealController;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long foodTypeId;
+
+    @BeforeEach
+    void setUp() {
+        foodTypeId = transactionTemplate.execute(status -> {
+            FoodType foodType = new FoodType("MealControllerTest", "Menu of the day test");
+            entityManager.persist(foodType);
+            Meal porridge = new Meal("Porridge", "oats, milk", "breakfast", foodType);
+            Meal fish = new Meal("Fish", "cod, butter", "dinner", foodType);
+            entityManager.persist(porridge);
+            entityManager.persist(fish);
+            Menu menu = new Menu(LocalDate.now(), foodType);
+            menu.setBreakfast(porridge);
+            menu.setDinner(fish);
+            entityManager.persist(menu);
+            foodType.setMenuOfTheDay(menu);
+            return foodType.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("UPDATE food_types SET menu_id = NULL WHERE id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM menu_items WHERE menu_id IN (SELECT id FROM menus WHERE food_type_id = ?)",
+                foodTypeId);
+        jdbcTemplate.update("DELETE FROM menus WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM meals WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM food_types WHERE id = ?", foodTypeId);
+    }
+
+    @Test
+    void menuForFoodTypeReadsItsMealsOutsideATransaction() {
+        ResponseEntity<MealController.MenuDetail> response = mealController.getMenuForFoodType(foodTypeId);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        MealController.MenuDetail menu = response.getBody();
+        assertThat(menu).isNotNull();
+        assertThat(menu.breakfast().name()).isEqualTo("Porridge");
+        assertThat(menu.dinner().ingredients()).isEqualTo("cod, butter");
+        assertThat(menu.lunch()).isNull();
+    }
+
+    @Test
+    void menuForFoodTypeWithoutMenuOfTheDayIsNotFound() {
+        jdbcTemplate.update("UPDATE food_types SET menu_id = NULL WHERE id = ?", foodTypeId);
+
+        assertThat(mealController.getMenuForFoodType(foodTypeId).getStatusCode().value()).isEqualTo(404);
+    }
+}
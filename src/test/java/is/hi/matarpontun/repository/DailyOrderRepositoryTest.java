@@ -0,0 +1,193 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.dto.OrderExportRowDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.MealSlot;
+import is.hi.matarpontun.model.OrderStatus;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The native order upsert: one row per patient and day, lines replaced on every write.
+ */
+@Transactional
+class DailyOrderRepositoryTest extends PostgresIntegrationTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 1);
+
+    @Autowired
+    private DailyOrderRepository dailyOrderRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Ward ward;
+    private Room room;
+    private FoodType foodType;
+    private Meal porridge;
+    private Meal soup;
+    private Meal fish;
+
+    @BeforeEach
+    void setUp() {
+        ward = new Ward("Test ward", "secret");
+        entityManager.persist(ward);
+        room = new Room("101", ward);
+        entityManager.persist(room);
+        foodType = new FoodType("A1", "Almennt fæði");
+        entityManager.persist(foodType);
+        porridge = meal("Porridge", "oats, milk");
+        soup = meal("Soup", "carrot, onion");
+        fish = meal("Fish", "cod, butter");
+        entityManager.flush();
+    }
+
+    @Test
+    void upsertInsertsOrderWithItsLines() {
+        Patient patient = patient("Jón");
+        DailyOrder order = order(patient, porridge, soup);
+
+        Long id = dailyOrderRepository.upsert(order);
+
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT patient_id, order_date, status_code, version, ward_name, room_number FROM daily_orders WHERE id = ?", id))
+                .containsEntry("patient_id", patient.getPatientID())
+                .containsEntry("status_code", 0)
+                .containsEntry("version", 0L)
+                .containsEntry("ward_name", "Test ward")
+                .containsEntry("room_number", "101");
+        assertThat(lines(id)).containsOnly(
+                Map.entry("BREAKFAST", porridge.getId()),
+                Map.entry("LUNCH", soup.getId()));
+    }
+
+    @Test
+    void upsertOverwritesTheSameDayAndReplacesTheLines() {
+        Patient patient = patient("Jón");
+        Long first = dailyOrderRepository.upsert(order(patient, porridge, soup));
+
+        DailyOrder changed = order(patient, null, null);
+        changed.swapMeal(MealSlot.DINNER, fish, "Restriction: onion");
+        changed.setStatus(OrderStatus.AUTO_CHANGED);
+        Long second = dailyOrderRepository.upsert(changed);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM daily_orders WHERE patient_id = ?", Long.class, patient.getPatientID()))
+                .isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForMap("SELECT status_code, version FROM daily_orders WHERE id = ?", first))
+                .containsEntry("status_code", 1)
+                .containsEntry("version", 1L);
+        assertThat(lines(first)).containsOnly(Map.entry("DINNER", fish.getId()));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT swap_reason FROM daily_order_lines WHERE order_id = ?", String.class, first))
+                .isEqualTo("Restriction: onion");
+    }
+
+    @Test
+    void upsertOfAStaleVersionFailsAndLeavesTheOrderAlone() {
+        Patient patient = patient("Jón");
+        Long id = dailyOrderRepository.upsert(order(patient, porridge, soup));
+        dailyOrderRepository.upsert(order(patient, fish, soup));
+
+        // Built from version 0, but the stored order is at version 1 now
+        assertThatThrownBy(() -> dailyOrderRepository.upsert(order(patient, soup, null)))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class)
+                .hasMessageContaining(String.valueOf(patient.getPatientID()));
+        assertThat(lines(id)).containsOnly(
+                Map.entry("BREAKFAST", fish.getId()),
+                Map.entry("LUNCH", soup.getId()));
+    }
+
+    @Test
+    void upsertAllWritesMoreOrdersThanFitInOneStatement() {
+        List<DailyOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            orders.add(order(patient("Patient " + i), porridge, i % 2 == 0 ? soup : fish));
+        }
+
+        Map<Long, Long> ids = dailyOrderRepository.upsertAll(orders);
+
+        assertThat(ids).hasSize(600);
+        orders.forEach(order -> assertThat(ids).containsKey(order.getPatient().getPatientID()));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM daily_order_lines WHERE order_date = ?", Long.class, TODAY))
+                .isEqualTo(1200L);
+    }
+
+    @Test
+    void findSummariesWithAndWithoutADate() {
+        dailyOrderRepository.upsert(order(patient("Jón"), porridge, soup));
+
+        assertThat(dailyOrderRepository.findSummaries(ward.getId(), TODAY, null, null)).hasSize(1);
+        assertThat(dailyOrderRepository.findSummaries(ward.getId(), TODAY.plusDays(1), null, null)).isEmpty();
+        assertThat(dailyOrderRepository.findSummaries(ward.getId(), null, "A1", OrderStatus.SUBMITTED)).hasSize(1);
+    }
+
+    @Test
+    void streamForExportWithAndWithoutADateRange() {
+        dailyOrderRepository.upsert(order(patient("Jón"), porridge, soup));
+
+        try (Stream<OrderExportRowDTO> rows = dailyOrderRepository.streamForExport(
+                null, null, ward.getId(), null, null)) {
+            assertThat(rows).singleElement()
+                    .satisfies(row -> assertThat(row.breakfast()).isEqualTo("Porridge"));
+        }
+        try (Stream<OrderExportRowDTO> rows = dailyOrderRepository.streamForExport(
+                TODAY.plusDays(1), null, ward.getId(), null, null)) {
+            assertThat(rows).isEmpty();
+        }
+    }
+
+    private Meal meal(String name, String ingredients) {
+        Meal meal = new Meal(name, ingredients, "main", foodType);
+        entityManager.persist(meal);
+        return meal;
+    }
+
+    private Patient patient(String name) {
+        Patient patient = new Patient(name, 70, 1, ward);
+        patient.setRoom(room);
+        patient.setFoodType(foodType);
+        entityManager.persist(patient);
+        entityManager.flush();
+        return patient;
+    }
+
+    private DailyOrder order(Patient patient, Meal breakfast, Meal lunch) {
+        return new DailyOrder(TODAY, patient, null, foodType, breakfast, lunch, null, null, null);
+    }
+
+    private Map<String, Long> lines(Long orderId) {
+        return jdbcTemplate.query("SELECT slot, meal_id FROM daily_order_lines WHERE order_id = ?",
+                rs -> {
+                    Map<String, Long> lines = new HashMap<>();
+                    while (rs.next()) {
+                        lines.put(rs.getString("slot"), rs.getLong("meal_id"));
+                    }
+                    return lines;
+                }, orderId);
+    }
+}
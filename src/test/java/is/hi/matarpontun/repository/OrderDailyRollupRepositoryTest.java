@@ -0,0 +1,95 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.dto.OrderRollupCountDTO;
+import is.hi.matarpontun.model.DailyOrder;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rollups are keyed by ward id and read under the ward's current name.
+ */
+@Transactional
+class OrderDailyRollupRepositoryTest extends PostgresIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 11, 3);
+
+    @Autowired
+    private OrderDailyRollupRepository rollupRepository;
+    @Autowired
+    private DailyOrderRepository dailyOrderRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Ward ward;
+    private Room room;
+    private FoodType foodType;
+    private Meal porridge;
+
+    @BeforeEach
+    void setUp() {
+        ward = new Ward("Rollup ward", "secret");
+        entityManager.persist(ward);
+        room = new Room("101", ward);
+        entityManager.persist(room);
+        foodType = new FoodType("Rollup diet", "Rollup test");
+        entityManager.persist(foodType);
+        porridge = new Meal("Porridge", "oats, milk", "breakfast", foodType);
+        entityManager.persist(porridge);
+        entityManager.flush();
+    }
+
+    @Test
+    void aRenamedWardKeepsItsHistoryInOneGroup() {
+        placeOrder("Jón", DAY);
+        rollupRepository.refresh(DAY, DAY);
+        jdbcTemplate.update("UPDATE wards SET ward_name = 'Renamed ward' WHERE id = ?", ward.getId());
+        placeOrder("Anna", DAY.plusDays(1));
+        rollupRepository.refresh(DAY.plusDays(1), DAY.plusDays(1));
+
+        assertThat(rollupRepository.countByWard(DAY, DAY.plusDays(1), null))
+                .singleElement()
+                .satisfies(count -> {
+                    assertThat(count.groupKey()).isEqualTo("Renamed ward");
+                    assertThat(count.orders()).isEqualTo(2L);
+                });
+        assertThat(rollupRepository.countByDay(DAY, DAY.plusDays(1), "Renamed ward")).hasSize(2);
+        assertThat(rollupRepository.countByDay(DAY, DAY.plusDays(1), "Rollup ward")).isEmpty();
+    }
+
+    @Test
+    void anOrderWithoutAWardIsCountedUnderItsSnapshotName() {
+        Long id = placeOrder("Jón", DAY);
+        jdbcTemplate.update("UPDATE daily_orders SET ward_id = NULL, ward_name = 'Closed ward' WHERE id = ?", id);
+        rollupRepository.refresh(DAY, DAY);
+
+        assertThat(rollupRepository.countByWard(DAY, DAY, "Closed ward"))
+                .extracting(OrderRollupCountDTO::groupKey)
+                .containsExactly("Closed ward");
+    }
+
+    private Long placeOrder(String name, LocalDate date) {
+        Patient patient = new Patient(name, 70, 1, ward);
+        patient.setRoom(room);
+        patient.setFoodType(foodType);
+        entityManager.persist(patient);
+        entityManager.flush();
+        return dailyOrderRepository.upsert(
+                new DailyOrder(date, patient, null, foodType, porridge, null, null, null, null));
+    }
+}
@@ -0,0 +1,96 @@
+package is.hi.matarpontun.repository;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.dto.PatientTermDTO;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Ward;
+import is.hi.matarpontun.repository.PatientRepositoryCustom.DietTermTable;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The batch restriction and allergy edits, written straight to the collection tables.
+ */
+@Transactional
+class PatientRepositoryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Ward ward;
+
+    @BeforeEach
+    void setUp() {
+        ward = new Ward("Test ward", "secret");
+        entityManager.persist(ward);
+    }
+
+    @Test
+    void insertTermsSkipsTermsThePatientAlreadyHas() {
+        Patient patient = patient("Jón", List.of("gluten"), List.of());
+
+        int added = patientRepository.insertTerms(DietTermTable.RESTRICTIONS, List.of(
+                new PatientTermDTO(patient.getPatientID(), "gluten"),
+                new PatientTermDTO(patient.getPatientID(), "nuts"),
+                new PatientTermDTO(patient.getPatientID(), "nuts")));
+
+        assertThat(added).isEqualTo(1);
+        assertThat(terms(DietTermTable.RESTRICTIONS, patient)).containsExactlyInAnyOrder("gluten", "nuts");
+        assertThat(terms(DietTermTable.ALLERGIES, patient)).isEmpty();
+    }
+
+    @Test
+    void deleteTermsMatchesStoredTermsTrimmed() {
+        Patient patient = patient("Jón", List.of(), List.of(" peanut ", "shellfish"));
+        Patient other = patient("Anna", List.of(), List.of("peanut"));
+
+        int removed = patientRepository.deleteTerms(DietTermTable.ALLERGIES, List.of(
+                new PatientTermDTO(patient.getPatientID(), "peanut"),
+                new PatientTermDTO(patient.getPatientID(), "egg")));
+
+        assertThat(removed).isEqualTo(1);
+        assertThat(terms(DietTermTable.ALLERGIES, patient)).containsExactly("shellfish");
+        assertThat(terms(DietTermTable.ALLERGIES, other)).containsExactly("peanut");
+    }
+
+    @Test
+    void termEditsSpanMoreRowsThanFitInOneStatement() {
+        List<PatientTermDTO> terms = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Long patientId = patient("Patient " + i, List.of(), List.of()).getPatientID();
+            terms.add(new PatientTermDTO(patientId, "lactose"));
+            terms.add(new PatientTermDTO(patientId, "salt"));
+        }
+
+        assertThat(patientRepository.insertTerms(DietTermTable.RESTRICTIONS, terms)).isEqualTo(600);
+        assertThat(patientRepository.deleteTerms(DietTermTable.RESTRICTIONS, terms)).isEqualTo(600);
+    }
+
+    private Patient patient(String name, List<String> restrictions, List<String> allergies) {
+        Patient patient = new Patient(name, 70, 1, ward);
+        patient.setRestriction(new ArrayList<>(restrictions));
+        patient.setAllergies(new ArrayList<>(allergies));
+        entityManager.persist(patient);
+        entityManager.flush();
+        return patient;
+    }
+
+    private List<String> terms(DietTermTable table, Patient patient) {
+        return jdbcTemplate.queryForList(
+                "SELECT " + table.column() + " FROM " + table.table() + " WHERE patient_id = ?",
+                String.class, patient.getPatientID());
+    }
+}
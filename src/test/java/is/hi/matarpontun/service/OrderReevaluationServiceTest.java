@@ -0,0 +1,143 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Menu;
+import is.hi.matarpontun.model.OrderStatus;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pending re-evaluations are stored on the patient row, so the tests inspect and backdate
+ * the marker directly. The food type is in no substitution group, so a conflicting meal
+ * leaves the order needing a manual change.
+ */
+class OrderReevaluationServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderReevaluationService orderReevaluationService;
+    @Autowired
+    private DailyOrderService dailyOrderService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long wardId;
+    private Long foodTypeId;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FoodType foodType = new FoodType("OrderReevaluationServiceTest", "Re-evaluation test");
+            entityManager.persist(foodType);
+            Meal porridge = new Meal("Porridge", "oats, milk", "breakfast", foodType);
+            entityManager.persist(porridge);
+            Menu menu = new Menu(LocalDate.now(), foodType);
+            menu.setBreakfast(porridge);
+            entityManager.persist(menu);
+            foodType.setMenuOfTheDay(menu);
+
+            Ward ward = new Ward("OrderReevaluationServiceTest ward", "secret");
+            entityManager.persist(ward);
+            Room room = new Room("1", ward);
+            entityManager.persist(room);
+            Patient patient = new Patient("Patient 1-1", 70, 1, ward);
+            patient.setRoom(room);
+            patient.setFoodType(foodType);
+            entityManager.persist(patient);
+
+            wardId = ward.getId();
+            foodTypeId = foodType.getId();
+            patientId = patient.getPatientID();
+        });
+        dailyOrderService.orderFoodTypeForPatient(patientId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM daily_orders WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM patient_restrictions WHERE patient_id = ?", patientId);
+        jdbcTemplate.update("DELETE FROM patient_allergies WHERE patient_id = ?", patientId);
+        jdbcTemplate.update("DELETE FROM patients WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM rooms WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM wards WHERE id = ?", wardId);
+        jdbcTemplate.update("UPDATE food_types SET menu_id = NULL WHERE id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM menu_items WHERE menu_id IN (SELECT id FROM menus WHERE food_type_id = ?)",
+                foodTypeId);
+        jdbcTemplate.update("DELETE FROM menus WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM meals WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM food_types WHERE id = ?", foodTypeId);
+    }
+
+    @Test
+    void aDietChangeIsMarkedAndAppliedOnceByFlush() {
+        patientService.addRestriction(patientId, "milk");
+
+        assertThat(dietChangedAt()).isNotNull();
+        assertThat(orderStatus()).isEqualTo(OrderStatus.SUBMITTED.getCode());
+
+        assertThat(orderReevaluationService.flush(patientId)).isPresent();
+        assertThat(orderStatus()).isEqualTo(OrderStatus.NEEDS_MANUAL_CHANGE.getCode());
+        assertThat(dietChangedAt()).isNull();
+
+        // Already applied, e.g. by another instance's sweep
+        assertThat(orderReevaluationService.flush(patientId)).isEmpty();
+    }
+
+    @Test
+    void theSweepAppliesMarkersOnlyOnceTheWindowHasPassed() {
+        patientService.addAllergy(patientId, "milk");
+
+        orderReevaluationService.flushDue();
+        assertThat(orderStatus()).isEqualTo(OrderStatus.SUBMITTED.getCode());
+
+        // A marker left behind by an earlier run of the application
+        jdbcTemplate.update("UPDATE patients SET diet_changed_at = diet_changed_at - INTERVAL '1 minute'"
+                + " WHERE ward_id = ?", wardId);
+        orderReevaluationService.flushDue();
+
+        assertThat(orderStatus()).isEqualTo(OrderStatus.NEEDS_MANUAL_CHANGE.getCode());
+        assertThat(dietChangedAt()).isNull();
+    }
+
+    @Test
+    void removingTheRestrictionClearsTheConflict() {
+        patientService.addRestriction(patientId, "milk");
+        orderReevaluationService.flush(patientId);
+        patientService.removeRestrictions(patientId, List.of("milk"));
+        orderReevaluationService.flush(patientId);
+
+        assertThat(orderStatus()).isEqualTo(OrderStatus.SUBMITTED.getCode());
+    }
+
+    private Timestamp dietChangedAt() {
+        return jdbcTemplate.queryForObject("SELECT diet_changed_at FROM patients WHERE ward_id = ?",
+                Timestamp.class, wardId);
+    }
+
+    private Short orderStatus() {
+        return jdbcTemplate.queryForObject("SELECT status_code FROM daily_orders WHERE ward_id = ?",
+                Short.class, wardId);
+    }
+}
@@ -0,0 +1,210 @@
+package is.hi.matarpontun.service;
+
+import is.hi.matarpontun.PostgresIntegrationTest;
+import is.hi.matarpontun.dto.BulkFoodTypeChangeDTO;
+import is.hi.matarpontun.dto.OrderDTO;
+import is.hi.matarpontun.model.FoodType;
+import is.hi.matarpontun.model.Meal;
+import is.hi.matarpontun.model.Menu;
+import is.hi.matarpontun.model.Patient;
+import is.hi.matarpontun.model.Room;
+import is.hi.matarpontun.model.Ward;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The ward order run places every patient's order in a transaction of its own. The data is
+ * committed rather than rolled back, since a surrounding test transaction would make the
+ * per-patient transactions join it.
+ */
+class WardServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private WardService wardService;
+    @Autowired
+    private DailyOrderService dailyOrderService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long wardId;
+    private Long foodTypeId;
+    private final List<Long> patientIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FoodType foodType = new FoodType("WardServiceTest", "Ward order run test");
+            entityManager.persist(foodType);
+            Meal porridge = new Meal("Porridge", "oats, milk", "breakfast", foodType);
+            entityManager.persist(porridge);
+            Menu menu = new Menu(LocalDate.now(), foodType);
+            menu.setBreakfast(porridge);
+            entityManager.persist(menu);
+            foodType.setMenuOfTheDay(menu);
+
+            Ward ward = new Ward("WardServiceTest ward", "secret");
+            entityManager.persist(ward);
+            for (String roomNumber : List.of("1", "2")) {
+                Room room = new Room(roomNumber, ward);
+                entityManager.persist(room);
+                for (int bed = 1; bed <= 2; bed++) {
+                    Patient patient = new Patient("Patient " + roomNumber + "-" + bed, 70, bed, ward);
+                    patient.setRoom(room);
+                    patient.setFoodType(foodType);
+                    entityManager.persist(patient);
+                    patientIds.add(patient.getPatientID());
+                }
+            }
+            wardId = ward.getId();
+            foodTypeId = foodType.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS ward_service_test_fail ON daily_orders");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS ward_service_test_fail()");
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS ward_service_test_attempts");
+        jdbcTemplate.update("DELETE FROM daily_orders WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM patient_restrictions WHERE patient_id IN (SELECT patient_id FROM patients"
+                + " WHERE ward_id = ?)", wardId);
+        jdbcTemplate.update("DELETE FROM patients WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM rooms WHERE ward_id = ?", wardId);
+        jdbcTemplate.update("DELETE FROM wards WHERE id = ?", wardId);
+        jdbcTemplate.update("UPDATE food_types SET menu_id = NULL WHERE id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM menu_items WHERE menu_id IN (SELECT id FROM menus WHERE food_type_id = ?)",
+                foodTypeId);
+        jdbcTemplate.update("DELETE FROM menus WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM meals WHERE food_type_id = ?", foodTypeId);
+        jdbcTemplate.update("DELETE FROM food_types WHERE id = ?", foodTypeId);
+        patientIds.clear();
+    }
+
+    @Test
+    void ordersEveryPatientGroupedByRoom() {
+        OrderDTO orders = wardService.generateDailyOrdersForWard(wardId).orderDTO();
+
+        assertThat(orders.rooms()).extracting(OrderDTO.RoomInfo::roomNumber).containsExactly("1", "2");
+        assertThat(orders.rooms()).allSatisfy(room -> assertThat(room.patients()).hasSize(2));
+        assertThat(ordersToday()).isEqualTo(4L);
+    }
+
+    @Test
+    void aDatabaseErrorForOnePatientKeepsTheOtherOrders() {
+        Long failing = patientIds.get(1);
+        failOrdersOf(failing, "RAISE EXCEPTION 'order rejected'");
+
+        OrderDTO orders = wardService.generateDailyOrdersForWard(wardId).orderDTO();
+
+        assertThat(orders.rooms()).flatExtracting(OrderDTO.RoomInfo::patients).hasSize(3);
+        assertThat(ordersToday()).isEqualTo(3L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM daily_orders WHERE patient_id = ?", Long.class, failing)).isZero();
+    }
+
+    @Test
+    void aDeadlockedOrderIsRetried() {
+        // Fails the first attempt only: sequences are not rolled back with the transaction
+        jdbcTemplate.execute("CREATE SEQUENCE ward_service_test_attempts");
+        failOrdersOf(patientIds.get(2), """
+                IF nextval('ward_service_test_attempts') = 1 THEN
+                    RAISE EXCEPTION 'deadlock' USING ERRCODE = '40P01';
+                END IF""");
+
+        wardService.generateDailyOrdersForWard(wardId);
+
+        assertThat(ordersToday()).isEqualTo(4L);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_value FROM ward_service_test_attempts", Long.class))
+                .isEqualTo(2L);
+    }
+
+    @Test
+    void concurrentEditsAndOrdersOfTheSamePatientsQueueInsteadOfFailing() throws Exception {
+        wardService.generateDailyOrdersForWard(wardId);
+        int threads = 8;
+        int rounds = 12;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        // Every thread adds its own restrictions to the same four patients and, in between,
+        // places orders for them in each of the ways the wards do
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    Long patientId = patientIds.get((thread + i) % patientIds.size());
+                    patientService.addRestriction(patientId, "term " + thread + "-" + i);
+                    switch (i % 4) {
+                        case 0 -> dailyOrderService.orderFoodTypeForPatient(patientId);
+                        case 1 -> dailyOrderService.orderFoodTypeForPatients(
+                                new BulkFoodTypeChangeDTO("WardServiceTest", patientIds, null, null));
+                        case 2 -> dailyOrderService.checkForConflicts(patientId);
+                        default -> assertThat(wardService.generateDailyOrdersForWard(wardId).orderDTO().rooms())
+                                .flatExtracting(OrderDTO.RoomInfo::patients).hasSize(4);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            // Rethrows whatever failed in a thread, e.g. a retry that gave up (a 409 over HTTP)
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM patient_restrictions WHERE patient_id IN"
+                + " (SELECT patient_id FROM patients WHERE ward_id = ?)", Long.class, wardId))
+                .isEqualTo((long) threads * rounds);
+        assertThat(ordersToday()).isEqualTo(4L);
+    }
+
+    // Runs the statement in a trigger on every order written for the patient
+    private void failOrdersOf(Long patientId, String statement) {
+        jdbcTemplate.execute("""
+                CREATE FUNCTION ward_service_test_fail() RETURNS trigger AS $$
+                BEGIN
+                    IF NEW.patient_id = %d THEN
+                        %s;
+                    END IF;
+                    RETURN NEW;
+                END
+                $$ LANGUAGE plpgsql""".formatted(patientId, statement));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER ward_service_test_fail BEFORE INSERT OR UPDATE ON daily_orders
+                FOR EACH ROW EXECUTE FUNCTION ward_service_test_fail()""");
+    }
+
+    private long ordersToday() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM daily_orders WHERE ward_id = ? AND order_date = ?",
+                Long.class, wardId, LocalDate.now());
+    }
+}